@@ -0,0 +1,18 @@
+package org.example.jmh;
+
+import java.util.Random;
+
+/** Benchmark input. A fixed seed keeps runs comparable. */
+final class Data {
+
+    private static final long SEED = 0x5eed_b175L;
+
+    private Data() { }
+
+    static byte[] random(int size) {
+        final byte[] bytes = new byte[size];
+        new Random(SEED).nextBytes(bytes);
+        return bytes;
+    }
+
+}
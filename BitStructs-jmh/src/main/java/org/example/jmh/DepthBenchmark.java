@@ -0,0 +1,66 @@
+package org.example.jmh;
+
+import org.example.BitStruct;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode and encode of structs nested 1 to 5 levels deep. Each level adds 4 bytes, so this also grows with size.
+ *
+ * @author Whimax07
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DepthBenchmark {
+
+    @Param({"1", "2", "3", "4", "5"})
+    private int depth;
+
+    private Class<? extends BitStruct> type;
+
+    private byte[] bytes;
+
+    private BitStruct struct;
+
+
+
+    @Setup
+    public void setup() {
+        type = switch (depth) {
+            case 1 -> Depths.Depth1.class;
+            case 2 -> Depths.Depth2.class;
+            case 3 -> Depths.Depth3.class;
+            case 4 -> Depths.Depth4.class;
+            case 5 -> Depths.Depth5.class;
+            default -> throw new IllegalStateException("No struct of depth " + depth + ".");
+        };
+        bytes = Data.random(4 * depth);
+        struct = BitStruct.decode(type, bytes);
+    }
+
+    @Benchmark
+    public BitStruct decode() {
+        return BitStruct.decode(type, bytes);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return struct.encode();
+    }
+
+}
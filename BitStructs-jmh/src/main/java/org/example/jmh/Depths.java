@@ -0,0 +1,33 @@
+package org.example.jmh;
+
+import org.example.BitStruct;
+import org.example.BitVal;
+
+/** Structs nested 1 to 5 levels deep. Each level adds a 32 bit field next to the struct it holds. */
+public class Depths {
+
+    public record Depth1(
+            @BitVal(first = 0, len = 32) int value
+    ) implements BitStruct { }
+
+    public record Depth2(
+            @BitVal(first = 0, len = 32) Depth1 inner,
+            @BitVal(first = 32, len = 32) int value
+    ) implements BitStruct { }
+
+    public record Depth3(
+            @BitVal(first = 0, len = 64) Depth2 inner,
+            @BitVal(first = 64, len = 32) int value
+    ) implements BitStruct { }
+
+    public record Depth4(
+            @BitVal(first = 0, len = 96) Depth3 inner,
+            @BitVal(first = 96, len = 32) int value
+    ) implements BitStruct { }
+
+    public record Depth5(
+            @BitVal(first = 0, len = 128) Depth4 inner,
+            @BitVal(first = 128, len = 32) int value
+    ) implements BitStruct { }
+
+}
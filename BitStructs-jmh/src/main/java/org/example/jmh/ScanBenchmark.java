@@ -0,0 +1,90 @@
+package org.example.jmh;
+
+import org.example.BitStruct;
+import org.example.BitStructScanner;
+import org.example.FieldAccessor;
+import org.example.ScanPredicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.foreign.MemorySegment;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the {@link Shapes.BankLittle} records with a given {@code statusReg.status}, by decoding every record, by
+ * reading the one field of every record, and with {@link BitStructScanner} with and without the Vector API. Only the
+ * {@code scannerVector} fork adds the incubator module. Build with {@code mvn clean package -Pvector} for the scanner
+ * to have its Vector API half, otherwise both scanner benchmarks measure the scalar comparisons.
+ *
+ * @author Whimax07
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScanBenchmark {
+
+    private static final int BATCH = 64 * 1024;
+
+    private static final String PATH = "statusReg.status";
+
+
+
+    private MemorySegment records;
+
+    private FieldAccessor status;
+
+    private ScanPredicate predicate;
+
+
+
+    @Setup
+    public void setup() {
+        records = MemorySegment.ofArray(Data.random(12 * BATCH));
+        status = FieldAccessor.of(Shapes.BankLittle.class, PATH);
+        predicate = ScanPredicate.equalTo(2);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Shapes.BankLittle> decodeAll() {
+        return BitStruct.decodeAll(Shapes.BankLittle.class, records, 0, BATCH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public BitSet fieldAccessor() {
+        final BitSet matches = new BitSet(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            if (status.getLong(records, 12L * i) == 2) matches.set(i);
+        }
+        return matches;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public BitSet scannerScalar() {
+        return BitStructScanner.filter(status, records, 0, BATCH, predicate);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+    public BitSet scannerVector() {
+        return BitStructScanner.filter(status, records, 0, BATCH, predicate);
+    }
+
+}
@@ -0,0 +1,167 @@
+package org.example.jmh;
+
+import org.example.BitStruct;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.foreign.MemorySegment;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode and encode of the struct shapes the unit tests cover: plain fields, enums, mixed endian nesting and a
+ * record next to its Lombok twin.
+ *
+ * @author Whimax07
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShapeBenchmark {
+
+    private static final int BATCH = 1024;
+
+
+
+    private byte[] simpleBytes;
+
+    private byte[] enumBytes;
+
+    private byte[] bankBytes;
+
+    private byte[] registerBytes;
+
+    private Shapes.Simple simple;
+
+    private Shapes.WithEnum withEnum;
+
+    private Shapes.BankLittle bankLittle;
+
+    private Shapes.BankBig bankBig;
+
+    /** Decoded into again and again, so the decode makes nothing once its nested structs are filled. */
+    private Shapes.BankLittleMutable bankTarget;
+
+    private MemorySegment bankSegment;
+
+    private Shapes.CurrentPowerUpReg record;
+
+    private Shapes.CurrentPowerUpRegLombok lombok;
+
+    /** {@value #BATCH} back to back {@link Shapes.BankLittle} records. */
+    private byte[] bankBatch;
+
+
+
+    @Setup
+    public void setup() {
+        simpleBytes = new byte[] {(byte) 0xa5, 0x0c};
+        // Logical byte 1 holds the enum, B = 0b10.
+        enumBytes = new byte[] {0x02, 0x05};
+        bankBytes = Data.random(12);
+        registerBytes = Data.random(4);
+        bankBatch = Data.random(12 * BATCH);
+
+        simple = BitStruct.decode(Shapes.Simple.class, simpleBytes);
+        withEnum = BitStruct.decode(Shapes.WithEnum.class, enumBytes);
+        bankLittle = BitStruct.decode(Shapes.BankLittle.class, bankBytes);
+        bankBig = BitStruct.decode(Shapes.BankBig.class, bankBytes);
+        bankTarget = BitStruct.decodeInto(new Shapes.BankLittleMutable(), bankBytes);
+        bankSegment = MemorySegment.ofArray(bankBytes);
+        record = BitStruct.decode(Shapes.CurrentPowerUpReg.class, registerBytes);
+        lombok = BitStruct.decode(Shapes.CurrentPowerUpRegLombok.class, registerBytes);
+    }
+
+
+
+    // ===> Decode.
+
+    @Benchmark
+    public Shapes.Simple decodeSimple() {
+        return BitStruct.decode(Shapes.Simple.class, simpleBytes);
+    }
+
+    @Benchmark
+    public Shapes.WithEnum decodeEnum() {
+        return BitStruct.decode(Shapes.WithEnum.class, enumBytes);
+    }
+
+    @Benchmark
+    public Shapes.BankLittle decodeNestedLittle() {
+        return BitStruct.decode(Shapes.BankLittle.class, bankBytes);
+    }
+
+    /** Run with {@code -prof gc} to check it allocates nothing per call. */
+    @Benchmark
+    public Shapes.BankLittleMutable decodeIntoNestedLittle() {
+        return BitStruct.decodeInto(bankTarget, bankSegment, 0);
+    }
+
+    @Benchmark
+    public Shapes.BankBig decodeNestedBig() {
+        return BitStruct.decode(Shapes.BankBig.class, bankBytes);
+    }
+
+    @Benchmark
+    public Shapes.CurrentPowerUpReg decodeRecord() {
+        return BitStruct.decode(Shapes.CurrentPowerUpReg.class, registerBytes);
+    }
+
+    @Benchmark
+    public Shapes.CurrentPowerUpRegLombok decodeLombok() {
+        return BitStruct.decode(Shapes.CurrentPowerUpRegLombok.class, registerBytes);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Shapes.BankLittle> decodeAllNestedLittle() {
+        return BitStruct.decodeAll(Shapes.BankLittle.class, bankBatch, BATCH);
+    }
+
+
+
+    // ===> Encode.
+
+    @Benchmark
+    public byte[] encodeSimple() {
+        return simple.encode();
+    }
+
+    @Benchmark
+    public byte[] encodeEnum() {
+        return withEnum.encode();
+    }
+
+    @Benchmark
+    public byte[] encodeNestedLittle() {
+        return bankLittle.encode();
+    }
+
+    @Benchmark
+    public byte[] encodeNestedBig() {
+        return bankBig.encode();
+    }
+
+    @Benchmark
+    public byte[] encodeRecord() {
+        return record.encode();
+    }
+
+    @Benchmark
+    public byte[] encodeLombok() {
+        return lombok.encode();
+    }
+
+}
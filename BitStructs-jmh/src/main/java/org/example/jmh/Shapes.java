@@ -0,0 +1,170 @@
+package org.example.jmh;
+
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+import org.example.BitDetails;
+import org.example.BitEnum;
+import org.example.BitStruct;
+import org.example.BitVal;
+
+/** The struct shapes used by the unit tests. */
+public class Shapes {
+
+    /** Two plain fields, like {@code SimpleTest}. */
+    @AllArgsConstructor
+    public static class Simple implements BitStruct {
+        @BitVal(first = 0, len = 4)
+        private final int delta1;
+
+        @BitVal(first = 8, len = 8)
+        private final int delta2;
+    }
+
+    /** A plain field and an enum field, like {@code EnumParamsTest}. */
+    @AllArgsConstructor
+    public static class WithEnum implements BitStruct {
+        @BitVal(first = 0, len = 4)
+        private final int delta1;
+
+        @BitVal(first = 8, len = 8)
+        private final TestEnum delta2;
+    }
+
+    @AllArgsConstructor
+    public enum TestEnum implements BitEnum {
+        A(0b1),
+        B(0b10),
+        C(0b100);
+
+        private final int value;
+
+        @Override
+        public long val() {
+            return value;
+        }
+    }
+
+
+
+    /** A little endian register bank, like {@code NestedOrderingTest}. */
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    @AllArgsConstructor
+    public static class BankLittle implements BitStruct {
+        @BitVal(first = 0, len = 32)
+        private final PwrUp0 pwrUp0;
+
+        @BitVal(first = 32, len = 32)
+        private final CurrentPowerUpReg currentPowerUpReg;
+
+        @BitVal(first = 64, len = 32)
+        private final StatusReg statusReg;
+    }
+
+    /** A big endian register bank holding mixed endian registers, like {@code NestedOrderingTest}. */
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.BIG)
+    @AllArgsConstructor
+    public static class BankBig implements BitStruct {
+        @BitVal(first = 0, len = 32)
+        private final PwrUp0 pwrUp0;
+
+        @BitVal(first = 32, len = 32)
+        private final CurrentPowerUpReg currentPowerUpReg;
+
+        @BitVal(first = 64, len = 32)
+        private final StatusReg statusReg;
+    }
+
+    @BitDetails(len = 4, byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    @AllArgsConstructor
+    public static class PwrUp0 implements BitStruct {
+        @BitVal(first = 0, len = 6)
+        private final byte source;
+
+        @BitVal(first = 6, len = 1)
+        private final byte enable;
+
+        @BitVal(first = 7, len = 1)
+        private final byte direction;
+    }
+
+    @BitDetails(len = 4, byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    public record CurrentPowerUpReg(
+            @BitVal(first = 0, len = 7) byte currentState,
+            @BitVal(first = 7, len = 25) int empty
+    ) implements BitStruct { }
+
+    @BitDetails(len = 4, byteOrdering = BitDetails.ByteOrdering.BIG)
+    @AllArgsConstructor
+    public static class StatusReg implements BitStruct {
+        @BitVal(first = 0, len = 3)
+        private final byte status;
+
+        @BitVal(first = 25, len = 4)
+        private final byte date;
+    }
+
+    /** The Lombok twin of the {@link CurrentPowerUpReg} record. */
+    @BitDetails(len = 4, byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    @AllArgsConstructor
+    public static class CurrentPowerUpRegLombok implements BitStruct {
+        @BitVal(first = 0, len = 7)
+        private final byte currentState;
+
+        @BitVal(first = 7, len = 25)
+        private final int empty;
+    }
+
+
+
+    /** A mutable {@link BankLittle}, decoded into by {@code BitStruct.decodeInto}. */
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BankLittleMutable implements BitStruct {
+        @BitVal(first = 0, len = 32)
+        private PwrUp0Mutable pwrUp0;
+
+        @BitVal(first = 32, len = 32)
+        private CurrentPowerUpRegMutable currentPowerUpReg;
+
+        @BitVal(first = 64, len = 32)
+        private StatusRegMutable statusReg;
+    }
+
+    @BitDetails(len = 4, byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PwrUp0Mutable implements BitStruct {
+        @BitVal(first = 0, len = 6)
+        private byte source;
+
+        @BitVal(first = 6, len = 1)
+        private byte enable;
+
+        @BitVal(first = 7, len = 1)
+        private byte direction;
+    }
+
+    @BitDetails(len = 4, byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CurrentPowerUpRegMutable implements BitStruct {
+        @BitVal(first = 0, len = 7)
+        private byte currentState;
+
+        @BitVal(first = 7, len = 25)
+        private int empty;
+    }
+
+    @BitDetails(len = 4, byteOrdering = BitDetails.ByteOrdering.BIG)
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StatusRegMutable implements BitStruct {
+        @BitVal(first = 0, len = 3)
+        private byte status;
+
+        @BitVal(first = 25, len = 4)
+        private byte date;
+    }
+
+}
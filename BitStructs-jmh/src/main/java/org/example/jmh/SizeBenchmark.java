@@ -0,0 +1,85 @@
+package org.example.jmh;
+
+import org.example.BitDetails.ByteOrdering;
+import org.example.BitStruct;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode and encode of flat structs from 1 to 512 bytes, in both byte orders. The 512 byte struct is made of
+ * nested 64 byte structs, as no single field can be that wide.
+ *
+ * @author Whimax07
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SizeBenchmark {
+
+    @Param({"1", "8", "64", "512"})
+    private int size;
+
+    @Param({"BIG", "LITTLE"})
+    private ByteOrdering ordering;
+
+    private Class<? extends BitStruct> type;
+
+    private byte[] bytes;
+
+    private BitStruct struct;
+
+    private byte[] frame;
+
+
+
+    @Setup
+    public void setup() {
+        type = structOf(size, ordering);
+        bytes = Data.random(size);
+        struct = BitStruct.decode(type, bytes);
+        frame = new byte[size];
+    }
+
+    @Benchmark
+    public BitStruct decode() {
+        return BitStruct.decode(type, bytes);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return struct.encode();
+    }
+
+    @Benchmark
+    public int encodeInto() {
+        return struct.encodeInto(frame, 0);
+    }
+
+
+
+    private static Class<? extends BitStruct> structOf(int size, ByteOrdering ordering) {
+        final boolean big = ordering == ByteOrdering.BIG;
+        return switch (size) {
+            case 1 -> big ? Sizes.Size1Big.class : Sizes.Size1Little.class;
+            case 8 -> big ? Sizes.Size8Big.class : Sizes.Size8Little.class;
+            case 64 -> big ? Sizes.Size64Big.class : Sizes.Size64Little.class;
+            case 512 -> big ? Sizes.Size512Big.class : Sizes.Size512Little.class;
+            default -> throw new IllegalStateException("No struct of size " + size + ".");
+        };
+    }
+
+}
@@ -0,0 +1,179 @@
+package org.example.jmh;
+
+import lombok.AllArgsConstructor;
+import org.example.BitDetails;
+import org.example.BitStruct;
+import org.example.BitVal;
+
+/** Flat structs of 1 to 512 bytes, in both byte orders. */
+public class Sizes {
+
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.BIG)
+    @AllArgsConstructor
+    public static class Size1Big implements BitStruct {
+        @BitVal(first = 0, len = 4)
+        private final byte low;
+
+        @BitVal(first = 4, len = 4)
+        private final byte high;
+    }
+
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.BIG)
+    @AllArgsConstructor
+    public static class Size8Big implements BitStruct {
+        @BitVal(first = 0, len = 8)
+        private final byte a;
+
+        @BitVal(first = 8, len = 8)
+        private final byte b;
+
+        @BitVal(first = 16, len = 16)
+        private final short c;
+
+        @BitVal(first = 32, len = 32)
+        private final int d;
+    }
+
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.BIG)
+    @AllArgsConstructor
+    public static class Size64Big implements BitStruct {
+        @BitVal(first = 0, len = 64)
+        private final long l0;
+
+        @BitVal(first = 64, len = 64)
+        private final long l1;
+
+        @BitVal(first = 128, len = 64)
+        private final long l2;
+
+        @BitVal(first = 192, len = 64)
+        private final long l3;
+
+        @BitVal(first = 256, len = 64)
+        private final long l4;
+
+        @BitVal(first = 320, len = 64)
+        private final long l5;
+
+        @BitVal(first = 384, len = 64)
+        private final long l6;
+
+        @BitVal(first = 448, len = 64)
+        private final long l7;
+    }
+
+    /** Eight {@link Size64Big} structs. */
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.BIG)
+    @AllArgsConstructor
+    public static class Size512Big implements BitStruct {
+        @BitVal(first = 0, len = 512)
+        private final Size64Big s0;
+
+        @BitVal(first = 512, len = 512)
+        private final Size64Big s1;
+
+        @BitVal(first = 1024, len = 512)
+        private final Size64Big s2;
+
+        @BitVal(first = 1536, len = 512)
+        private final Size64Big s3;
+
+        @BitVal(first = 2048, len = 512)
+        private final Size64Big s4;
+
+        @BitVal(first = 2560, len = 512)
+        private final Size64Big s5;
+
+        @BitVal(first = 3072, len = 512)
+        private final Size64Big s6;
+
+        @BitVal(first = 3584, len = 512)
+        private final Size64Big s7;
+    }
+
+
+
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    @AllArgsConstructor
+    public static class Size1Little implements BitStruct {
+        @BitVal(first = 0, len = 4)
+        private final byte low;
+
+        @BitVal(first = 4, len = 4)
+        private final byte high;
+    }
+
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    @AllArgsConstructor
+    public static class Size8Little implements BitStruct {
+        @BitVal(first = 0, len = 8)
+        private final byte a;
+
+        @BitVal(first = 8, len = 8)
+        private final byte b;
+
+        @BitVal(first = 16, len = 16)
+        private final short c;
+
+        @BitVal(first = 32, len = 32)
+        private final int d;
+    }
+
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    @AllArgsConstructor
+    public static class Size64Little implements BitStruct {
+        @BitVal(first = 0, len = 64)
+        private final long l0;
+
+        @BitVal(first = 64, len = 64)
+        private final long l1;
+
+        @BitVal(first = 128, len = 64)
+        private final long l2;
+
+        @BitVal(first = 192, len = 64)
+        private final long l3;
+
+        @BitVal(first = 256, len = 64)
+        private final long l4;
+
+        @BitVal(first = 320, len = 64)
+        private final long l5;
+
+        @BitVal(first = 384, len = 64)
+        private final long l6;
+
+        @BitVal(first = 448, len = 64)
+        private final long l7;
+    }
+
+    /** Eight {@link Size64Little} structs. */
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    @AllArgsConstructor
+    public static class Size512Little implements BitStruct {
+        @BitVal(first = 0, len = 512)
+        private final Size64Little s0;
+
+        @BitVal(first = 512, len = 512)
+        private final Size64Little s1;
+
+        @BitVal(first = 1024, len = 512)
+        private final Size64Little s2;
+
+        @BitVal(first = 1536, len = 512)
+        private final Size64Little s3;
+
+        @BitVal(first = 2048, len = 512)
+        private final Size64Little s4;
+
+        @BitVal(first = 2560, len = 512)
+        private final Size64Little s5;
+
+        @BitVal(first = 3072, len = 512)
+        private final Size64Little s6;
+
+        @BitVal(first = 3584, len = 512)
+        private final Size64Little s7;
+    }
+
+}
@@ -0,0 +1,128 @@
+package org.example.processor;
+
+import org.example.BitDetails;
+import org.example.BitVal;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@link org.example.BitCodec} for every {@link org.example.BitStruct} that uses {@link BitDetails} or
+ * {@link BitVal}, and reports overlapping or out of range {@link BitVal} fields as compile errors. <br><br>
+ *
+ * Structs the generated code can't reach, for example private classes or classes without a visible "all args"
+ * constructor, are left to the reflective implementation.
+ *
+ * @author Whimax07
+ */
+public class BitStructProcessor extends AbstractProcessor {
+
+    private StructParser parser;
+
+    /**
+     * Structs without a visible "all args" constructor. Other processors, like Lombok, may add it later, so these
+     * are looked at again every round.
+     */
+    private final Map<String, TypeElement> deferred = new LinkedHashMap<>();
+
+    private final Set<String> done = new HashSet<>();
+
+
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.parser = new StructParser(processingEnv);
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(BitDetails.class.getCanonicalName(), BitVal.class.getCanonicalName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        final Map<String, TypeElement> structs = new LinkedHashMap<>(deferred);
+        deferred.clear();
+        parser.reset();
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(BitDetails.class)) {
+            if (element instanceof TypeElement type) structs.put(type.getQualifiedName().toString(), type);
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(BitVal.class)) {
+            if (element.getEnclosingElement() instanceof TypeElement type) {
+                structs.put(type.getQualifiedName().toString(), type);
+            }
+        }
+
+        for (TypeElement type : structs.values()) {
+            if (done.contains(type.getQualifiedName().toString())) continue;
+            process(type, roundEnv.processingOver());
+        }
+
+        return false;
+    }
+
+    private void process(TypeElement type, boolean lastRound) {
+        final String name = type.getQualifiedName().toString();
+
+        if (!parser.isBitStruct(type)) {
+            note(type, "%s uses @BitVal but is not a BitStruct.", type.getSimpleName());
+            done.add(name);
+            return;
+        }
+
+        final StructModel model = parser.parse(type);
+        if (model == null) {
+            // The errors have been reported by the parser.
+            done.add(name);
+            return;
+        }
+
+        final CodecWriter writer = new CodecWriter(model);
+        final String reason = writer.whyNotGeneratable();
+        if (reason != null && model.constructor == null && !lastRound) {
+            deferred.put(name, type);
+            return;
+        }
+
+        done.add(name);
+        if (reason != null) {
+            note(type, "No codec generated for %s, it will use reflection. %s", type.getSimpleName(), reason);
+            return;
+        }
+
+        try {
+            final JavaFileObject file = processingEnv.getFiler().createSourceFile(writer.qualifiedCodecName(), type);
+            try (Writer out = file.openWriter()) {
+                out.write(writer.write());
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.ERROR, "Failed to write the codec of " + name + ": " + e.getMessage(), type
+            );
+        }
+    }
+
+    private void note(Element element, String format, Object... args) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, String.format(format, args), element);
+    }
+
+}
@@ -0,0 +1,468 @@
+package org.example.processor;
+
+import org.example.BitCodec;
+import org.example.processor.Frame.Chunk;
+import org.example.processor.StructModel.FieldModel;
+import org.example.processor.StructModel.Kind;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Writes the source of the {@link BitCodec} for a {@link StructModel}. <br><br>
+ *
+ * Every field, including the fields of nested structs, is resolved to fixed byte indexes, shifts and masks, so the
+ * generated decode is a single constructor call and the generated encode a flat list of byte writes.
+ *
+ * @author Whimax07
+ */
+final class CodecWriter {
+
+    static final String SUFFIX = "Codec";
+
+    /** Joins the class names of the nesting path, must match {@code BitCodecs.JOIN}. */
+    static final String JOIN = "$$";
+
+    private static final String INDENT = "    ";
+
+
+
+    private final StructModel model;
+
+    private final String packageName;
+
+    private final String codecName;
+
+    /** {@link org.example.BitEnumLookup} constants, keyed by the enum's qualified name. */
+    private final Map<String, String> enumLookups = new LinkedHashMap<>();
+
+    private final List<String> handleDeclarations = new ArrayList<>();
+
+    /** VarHandle names, keyed by the qualified name of the field they read. */
+    private final Map<String, String> handles = new LinkedHashMap<>();
+
+    private int locals = 0;
+
+
+
+    CodecWriter(StructModel model) {
+        this.model = model;
+        this.packageName = packageOf(model.type).getQualifiedName().toString();
+        this.codecName = codecName(model.type);
+    }
+
+    /** The simple name of the codec, for example {@code Outer$$InnerCodec} for {@code Outer.Inner}. */
+    static String codecName(TypeElement type) {
+        final StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement();
+             enclosing instanceof TypeElement enclosingType;
+             enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, enclosingType.getSimpleName() + JOIN);
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    String qualifiedCodecName() {
+        return packageName.isEmpty() ? codecName : packageName + "." + codecName;
+    }
+
+    /**
+     * Returns why a codec can't be generated for the struct, or null if it can. Generated code has to be able to name
+     * every type and call every constructor from the struct's package.
+     */
+    String whyNotGeneratable() {
+        return whyNotGeneratable(model);
+    }
+
+    private String whyNotGeneratable(StructModel struct) {
+        if (!isAccessible(struct.type)) return struct.type.getSimpleName() + " is not accessible.";
+        if (struct.constructor == null) {
+            return "No \"all args\" constructor for the BitVals of " + struct.type.getSimpleName() + " is visible.";
+        }
+        if (!isAccessible(struct.constructor)) {
+            return "The \"all args\" constructor of " + struct.type.getSimpleName() + " is not accessible.";
+        }
+
+        for (FieldModel field : struct.fields) {
+            if (field.lazy) return "Lazy fields are decoded by the reflective codec.";
+            if (field.len > field.kind.maxLen) {
+                return field.name + " is wider than its type, the reflective codec narrows it.";
+            }
+            if (field.kind == Kind.ENUM && !isAccessible(asTypeElement(field.elementType))) {
+                return field.elementType + " is not accessible.";
+            }
+            if (field.nested != null) {
+                final String nestedReason = whyNotGeneratable(field.nested);
+                if (nestedReason != null) return nestedReason;
+            }
+        }
+
+        return null;
+    }
+
+
+
+    String write() {
+        final String typeName = typeName(model.type);
+        final String decodeBody = decodeBody();
+        final String segmentDecodeBody = segmentDecodeBody();
+        final String encodeBody = encodeBody();
+        final String encodeIntoBody = encodeIntoBody();
+
+        final StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) source.append("package ").append(packageName).append(";\n\n");
+
+        source.append("/** Generated {@link org.example.BitCodec} for {@link ").append(typeName).append("}. */\n");
+        source.append("@javax.annotation.processing.Generated(\"")
+                .append(BitStructProcessor.class.getCanonicalName()).append("\")\n");
+        source.append("public final class ").append(codecName)
+                .append(" implements org.example.BitCodec<").append(typeName).append("> {\n\n");
+
+        source.append(INDENT).append("public static final int SIZE = ").append(model.size).append(";\n\n");
+        for (String declaration : handleDeclarations) source.append(INDENT).append(declaration).append("\n");
+        for (Map.Entry<String, String> lookup : enumLookups.entrySet()) {
+            source.append(INDENT).append("private static final org.example.BitEnumLookup<").append(lookup.getKey())
+                    .append("> ").append(lookup.getValue()).append(" =\n")
+                    .append(INDENT).append(INDENT).append(INDENT).append(INDENT)
+                    .append("org.example.BitEnumLookup.of(").append(lookup.getKey()).append(".class);\n");
+        }
+        if (!handleDeclarations.isEmpty() || !enumLookups.isEmpty()) source.append("\n");
+
+        source.append(INDENT).append("@Override\n");
+        source.append(INDENT).append("public ").append(typeName).append(" decode(byte[] bytes) {\n");
+        source.append(decodeBody);
+        source.append(INDENT).append("}\n\n");
+
+        source.append(INDENT).append("@Override\n");
+        source.append(INDENT).append("public ").append(typeName)
+                .append(" decode(java.lang.foreign.MemorySegment segment, long offset) {\n");
+        source.append(segmentDecodeBody);
+        source.append(INDENT).append("}\n\n");
+
+        source.append(INDENT).append("@Override\n");
+        source.append(INDENT).append("public byte[] encode(").append(typeName).append(" value) {\n");
+        source.append(encodeBody);
+        source.append(INDENT).append("}\n\n");
+
+        source.append(INDENT).append("@Override\n");
+        source.append(INDENT).append("public int encodeInto(").append(typeName)
+                .append(" value, java.lang.foreign.MemorySegment segment, long offset) {\n");
+        source.append(encodeIntoBody);
+        source.append(INDENT).append("}\n\n");
+
+        source.append(INDENT).append("@Override\n");
+        source.append(INDENT).append("public int size() {\n");
+        source.append(INDENT).append(INDENT).append("return SIZE;\n");
+        source.append(INDENT).append("}\n");
+
+        if (!handleDeclarations.isEmpty()) source.append("\n").append(handleHelper());
+
+        source.append("\n}\n");
+        return source.toString();
+    }
+
+
+
+    private String decodeBody() {
+        final String indent = INDENT + INDENT;
+
+        final StringBuilder body = new StringBuilder();
+        body.append(indent).append("if (bytes.length < SIZE) {\n");
+        body.append(indent).append(INDENT).append("throw new RuntimeException(")
+                .append("\"Passed in byte array is to small. Required size: \" + SIZE);\n");
+        body.append(indent).append("}\n");
+
+        // Big endian structs are read from the end of the array, little endian ones from the start.
+        final String base = model.big ? "o + " : "";
+        if (model.big) body.append(indent).append("final int o = bytes.length - SIZE;\n");
+
+        final Frame frame = Frame.top(model.size, model.big);
+        final IntFunction<String> byteAt = index -> "bytes[" + base + index + "]";
+        body.append(indent).append("return ").append(construct(model, frame, byteAt, indent)).append(";\n");
+        return body.toString();
+    }
+
+    /** Same as {@link #decodeBody()}, but the struct always starts at the offset. */
+    private String segmentDecodeBody() {
+        final String indent = INDENT + INDENT;
+
+        final StringBuilder body = new StringBuilder();
+        body.append(indent).append("if (offset < 0 || segment.byteSize() - offset < SIZE) {\n");
+        body.append(indent).append(INDENT).append("throw new RuntimeException(\n");
+        body.append(indent).append(INDENT).append(INDENT).append(INDENT)
+                .append("\"Passed in segment is to small. Required size: \" + SIZE + ")
+                .append("\" bytes from offset \" + offset\n");
+        body.append(indent).append(INDENT).append(");\n");
+        body.append(indent).append("}\n");
+
+        final Frame frame = Frame.top(model.size, model.big);
+        final IntFunction<String> byteAt = index -> "segment.get(java.lang.foreign.ValueLayout.JAVA_BYTE, offset + "
+                + index + ")";
+        body.append(indent).append("return ").append(construct(model, frame, byteAt, indent)).append(";\n");
+        return body.toString();
+    }
+
+    private String construct(StructModel struct, Frame frame, IntFunction<String> byteAt, String indent) {
+        final String argIndent = indent + INDENT + INDENT;
+        final List<String> args = new ArrayList<>();
+
+        for (FieldModel field : struct.constructorOrder) {
+            if (!field.isArray()) {
+                args.add(value(struct, field, frame, byteAt, argIndent));
+                continue;
+            }
+
+            // Arrays are unrolled, the count is fixed so every element resolves to its own chunks.
+            final String elementIndent = argIndent + INDENT + INDENT;
+            final List<String> elements = new ArrayList<>();
+            for (int i = 0; i < field.count; i++) {
+                elements.add(value(struct, field.element(i), frame, byteAt, elementIndent));
+            }
+            args.add("new " + field.elementType + "[] {\n"
+                    + elementIndent + String.join(",\n" + elementIndent, elements) + "\n"
+                    + argIndent + "}");
+        }
+
+        if (args.isEmpty()) return "new " + typeName(struct.type) + "()";
+        return "new " + typeName(struct.type) + "(\n"
+                + argIndent + String.join(",\n" + argIndent, args) + "\n"
+                + indent + ")";
+    }
+
+    /** The expression decoding a single value field, or a nested struct. */
+    private String value(StructModel struct, FieldModel field, Frame frame, IntFunction<String> byteAt,
+                         String indent) {
+        if (field.nested == null) return convert(field, read(frame.chunks(field.first, field.len), byteAt));
+
+        final Frame nestedFrame = frame.nested(field, struct.big, field.nested, true);
+        return construct(field.nested, nestedFrame, byteAt, indent);
+    }
+
+    /** Or together the chunks of a field, {@code byteAt} gives the expression reading a byte of the struct. */
+    private static String read(List<Chunk> chunks, IntFunction<String> byteAt) {
+        if (chunks.isEmpty()) return "0L";
+
+        final List<String> terms = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            String term = "(" + byteAt.apply(chunk.byteIndex()) + " & 0xFFL)";
+            if (chunk.shift() > 0) term = "(" + term + " >>> " + chunk.shift() + ")";
+            if (chunk.shift() + chunk.width() < 8) term = "(" + term + " & " + hex(chunk.mask()) + ")";
+            if (chunk.valueBit() > 0) term = "(" + term + " << " + chunk.valueBit() + ")";
+            terms.add(term);
+        }
+
+        return (terms.size() == 1) ? terms.getFirst() : "(" + String.join(" | ", terms) + ")";
+    }
+
+    private String convert(FieldModel field, String bits) {
+        return switch (field.kind) {
+            case BOOLEAN -> bits + " != 0L";
+            case BYTE -> "(byte) " + bits;
+            case SHORT -> "(short) " + bits;
+            case INT -> "(int) " + bits;
+            case LONG -> bits;
+            case ENUM -> enumLookup(field.type) + ".get(" + bits + ")";
+            case STRUCT -> throw new IllegalStateException("Structs are constructed, not converted.");
+        };
+    }
+
+
+
+    private String encodeBody() {
+        final String indent = INDENT + INDENT;
+
+        final StringBuilder body = new StringBuilder();
+        final List<List<String>> bytes = writeFields(body, indent);
+        body.append(indent).append("final byte[] out = new byte[SIZE];\n");
+        for (int i = 0; i < bytes.size(); i++) {
+            if (bytes.get(i).isEmpty()) continue;
+            body.append(indent).append("out[").append(i).append("] = ").append(toByte(bytes.get(i))).append(";\n");
+        }
+        body.append(indent).append("return out;\n");
+        return body.toString();
+    }
+
+    /** Same as {@link #encodeBody()}, but every byte of the struct is stored into the segment, including zeros. */
+    private String encodeIntoBody() {
+        final String indent = INDENT + INDENT;
+
+        final StringBuilder body = new StringBuilder();
+        body.append(indent).append("if (offset < 0 || segment.byteSize() - offset < SIZE) {\n");
+        body.append(indent).append(INDENT).append("throw new RuntimeException(\n");
+        body.append(indent).append(INDENT).append(INDENT).append(INDENT)
+                .append("\"Destination is to small. Required size: \" + SIZE + ")
+                .append("\" bytes from offset \" + offset\n");
+        body.append(indent).append(INDENT).append(");\n");
+        body.append(indent).append("}\n");
+
+        final List<List<String>> bytes = writeFields(body, indent);
+        for (int i = 0; i < bytes.size(); i++) {
+            final String value = bytes.get(i).isEmpty() ? "(byte) 0" : toByte(bytes.get(i));
+            body.append(indent).append("segment.set(java.lang.foreign.ValueLayout.JAVA_BYTE, offset + ").append(i)
+                    .append(", ").append(value).append(");\n");
+        }
+        body.append(indent).append("return SIZE;\n");
+        return body.toString();
+    }
+
+    /**
+     * Declares a local for every field value and returns, for each byte of the struct, the terms to or together.
+     * Overlapping fields are a compile error, so each byte can be stored once with all of its terms.
+     */
+    private List<List<String>> writeFields(StringBuilder body, String indent) {
+        locals = 0;
+        final List<List<String>> bytes = new ArrayList<>();
+        for (int i = 0; i < model.size; i++) bytes.add(new ArrayList<>());
+
+        writeFields(body, bytes, model, Frame.top(model.size, model.big), "value", indent);
+        return bytes;
+    }
+
+    private void writeFields(StringBuilder body, List<List<String>> bytes, StructModel struct, Frame frame,
+                             String owner, String indent) {
+        for (FieldModel field : struct.fields) {
+            final String getter = getter(struct, field, owner);
+            if (!field.isArray()) {
+                writeValue(body, bytes, struct, field, frame, getter, indent);
+                continue;
+            }
+
+            final String array = "v" + locals++;
+            body.append(indent).append("final ").append(field.type).append(" ").append(array)
+                    .append(" = ").append(getter).append(";\n");
+            body.append(indent).append("if (").append(array).append(".length != ").append(field.count).append(") {\n");
+            body.append(indent).append(INDENT).append("throw new RuntimeException(\n");
+            body.append(indent).append(INDENT).append(INDENT).append(INDENT)
+                    .append("\"Array field has the wrong number of elements. [Field=").append(field.name)
+                    .append(", Expected=").append(field.count).append(", Actual=\" + ").append(array)
+                    .append(".length + \"] \"\n");
+            body.append(indent).append(INDENT).append(");\n");
+            body.append(indent).append("}\n");
+
+            for (int i = 0; i < field.count; i++) {
+                writeValue(body, bytes, struct, field.element(i), frame, array + "[" + i + "]", indent);
+            }
+        }
+    }
+
+    /** Declares a local for a field value, or a nested struct, and adds its terms to the bytes it covers. */
+    private void writeValue(StringBuilder body, List<List<String>> bytes, StructModel struct, FieldModel field,
+                            Frame frame, String getter, String indent) {
+        final String local = "v" + locals++;
+
+        if (field.nested != null) {
+            body.append(indent).append("final ").append(field.type).append(" ").append(local)
+                    .append(" = ").append(getter).append(";\n");
+            final Frame nestedFrame = frame.nested(field, struct.big, field.nested, false);
+            writeFields(body, bytes, field.nested, nestedFrame, local, indent);
+            return;
+        }
+
+        final List<Chunk> chunks = frame.chunks(field.first, field.len);
+        if (chunks.isEmpty()) return;
+
+        body.append(indent).append("final long ").append(local).append(" = ")
+                .append(toLong(field, getter)).append(";\n");
+        for (Chunk chunk : chunks) {
+            String term = local;
+            if (chunk.valueBit() > 0) term = "(" + term + " >>> " + chunk.valueBit() + ")";
+            term = "(" + term + " & " + hex(chunk.mask()) + ")";
+            if (chunk.shift() > 0) term = "(" + term + " << " + chunk.shift() + ")";
+            bytes.get(chunk.byteIndex()).add(term);
+        }
+    }
+
+    private static String toByte(List<String> terms) {
+        return "(byte) " + ((terms.size() == 1) ? terms.getFirst() : "(" + String.join(" | ", terms) + ")");
+    }
+
+    private static String toLong(FieldModel field, String getter) {
+        return switch (field.kind) {
+            case BOOLEAN -> getter + " ? 1L : 0L";
+            case ENUM -> getter + ".val()";
+            default -> getter;
+        };
+    }
+
+    private String getter(StructModel owner, FieldModel field, String ownerExpression) {
+        if (owner.isRecord()) return ownerExpression + "." + field.name + "()";
+        if (isAccessible(field.element)) return ownerExpression + "." + field.name;
+
+        final String handle = handles.computeIfAbsent(typeName(owner.type) + "." + field.name, key -> {
+            final String name = "H" + handleDeclarations.size();
+            handleDeclarations.add(String.format(
+                    "private static final java.lang.invoke.VarHandle %s = handle(%s.class, \"%s\", %s.class);",
+                    name, typeName(owner.type), field.name, field.type
+            ));
+            return name;
+        });
+        return "((" + field.type + ") " + handle + ".get(" + ownerExpression + "))";
+    }
+
+
+
+    private String enumLookup(TypeMirror enumType) {
+        return enumLookups.computeIfAbsent(enumType.toString(), name -> "ENUM" + enumLookups.size());
+    }
+
+    private static String handleHelper() {
+        return INDENT + "private static java.lang.invoke.VarHandle handle("
+                + "Class<?> owner, String name, Class<?> type) {\n"
+                + INDENT + INDENT + "try {\n"
+                + INDENT + INDENT + INDENT + "return java.lang.invoke.MethodHandles\n"
+                + INDENT + INDENT + INDENT + INDENT + INDENT
+                + ".privateLookupIn(owner, java.lang.invoke.MethodHandles.lookup())\n"
+                + INDENT + INDENT + INDENT + INDENT + INDENT + ".findVarHandle(owner, name, type);\n"
+                + INDENT + INDENT + "} catch (ReflectiveOperationException e) {\n"
+                + INDENT + INDENT + INDENT + "throw new ExceptionInInitializerError(e);\n"
+                + INDENT + INDENT + "}\n"
+                + INDENT + "}\n";
+    }
+
+
+
+    private boolean isAccessible(Element element) {
+        final boolean samePackage = packageOf(element).getQualifiedName().contentEquals(packageName);
+        for (Element current = element;
+             current != null && current.getKind() != ElementKind.PACKAGE;
+             current = current.getEnclosingElement()) {
+            final boolean isMember = current instanceof TypeElement
+                    || current instanceof ExecutableElement
+                    || current.getKind().isField();
+            if (!isMember) continue;
+
+            if (current.getModifiers().contains(Modifier.PRIVATE)) return false;
+            if (!samePackage && !current.getModifiers().contains(Modifier.PUBLIC)) return false;
+        }
+        return true;
+    }
+
+    private static TypeElement asTypeElement(TypeMirror type) {
+        return (TypeElement) ((javax.lang.model.type.DeclaredType) type).asElement();
+    }
+
+    private static String typeName(TypeElement type) {
+        return type.getQualifiedName().toString();
+    }
+
+    private static PackageElement packageOf(Element element) {
+        Element current = element;
+        while (current.getKind() != ElementKind.PACKAGE) current = current.getEnclosingElement();
+        return (PackageElement) current;
+    }
+
+    private static String hex(long value) {
+        return "0x" + Long.toHexString(value) + "L";
+    }
+
+}
@@ -0,0 +1,103 @@
+package org.example.processor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the logical bits of a struct, bit 0 being the least significant bit, onto the bits of the outermost byte array.
+ * A nested struct gets its own frame built on top of its parent's, so every field can be resolved to fixed byte
+ * indexes and shifts at compile time.
+ *
+ * @author Whimax07
+ */
+interface Frame {
+
+    /** Returns the physical position of a logical bit as {@code byteIndex * 8 + bitInByte}, or -1 if not stored. */
+    int physical(int bit);
+
+
+
+    /** The frame of the outermost struct, occupying the bytes {@code [0, size)}. */
+    static Frame top(int size, boolean big) {
+        return bit -> {
+            if (bit < 0 || bit >= size * 8) return -1;
+            final int logicalByte = bit >>> 3;
+            final int physicalByte = big ? size - 1 - logicalByte : logicalByte;
+            return physicalByte * 8 + (bit & 7);
+        };
+    }
+
+    /**
+     * The frame of a struct nested in the bits {@code [first, first + len)} of this frame. <br><br>
+     *
+     * The nested struct sees the field as a number written out in the parent's byte order. If the orderings differ the
+     * bytes of the nested struct are reversed, over the width of the field when decoding and over the width of the
+     * nested struct when encoding, which mirrors the reflective implementation.
+     */
+    default Frame nested(StructModel.FieldModel field, boolean parentBig, StructModel child, boolean decode) {
+        return nested(field.first, field.len, child.size, parentBig == child.big, decode);
+    }
+
+    /**
+     * The frame of a struct of {@code childSize} bytes nested in the bits {@code [first, first + len)} of this frame.
+     */
+    default Frame nested(int first, int len, int childSize, boolean sameOrder, boolean decode) {
+        final int childBits = childSize * 8;
+        final int reverseWidth = decode ? (len + 7) / 8 : childSize;
+
+        return bit -> {
+            if (bit < 0 || bit >= childBits) return -1;
+            final int childByte = bit >>> 3;
+            final int valueByte = sameOrder ? childByte : reverseWidth - 1 - childByte;
+            if (valueByte < 0) return -1;
+
+            final int valueBit = valueByte * 8 + (bit & 7);
+            if (valueBit >= len) return -1;
+            return physical(first + valueBit);
+        };
+    }
+
+    /** Splits the bits {@code [first, first + len)} into runs that each sit in a single physical byte. */
+    default List<Chunk> chunks(int first, int len) {
+        final List<Chunk> chunks = new ArrayList<>();
+        Chunk current = null;
+
+        for (int valueBit = 0; valueBit < len; valueBit++) {
+            final int position = physical(first + valueBit);
+            if (position < 0) {
+                current = null;
+                continue;
+            }
+
+            final int byteIndex = position >>> 3;
+            final int shift = position & 7;
+            final boolean continuesRun = current != null
+                    && current.byteIndex == byteIndex
+                    && current.shift + current.width == shift
+                    && current.valueBit + current.width == valueBit;
+
+            if (continuesRun) {
+                current = new Chunk(byteIndex, current.shift, current.valueBit, current.width + 1);
+                chunks.set(chunks.size() - 1, current);
+            } else {
+                current = new Chunk(byteIndex, shift, valueBit, 1);
+                chunks.add(current);
+            }
+        }
+
+        return chunks;
+    }
+
+
+
+    /**
+     * A run of {@code width} bits of a field value, starting at {@code valueBit}, stored in the physical byte
+     * {@code byteIndex} starting at bit {@code shift}.
+     */
+    record Chunk(int byteIndex, int shift, int valueBit, int width) {
+        long mask() {
+            return (1L << width) - 1;
+        }
+    }
+
+}
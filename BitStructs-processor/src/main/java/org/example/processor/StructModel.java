@@ -0,0 +1,173 @@
+package org.example.processor;
+
+import org.example.BitDetails;
+import org.example.BitVal;
+
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The compile time view of a {@link org.example.BitStruct} class, mirroring what the runtime resolves through
+ * reflection.
+ *
+ * @author Whimax07
+ */
+final class StructModel {
+
+    final TypeElement type;
+
+    final boolean big;
+
+    /** Size in bytes of the serialized form. */
+    final int size;
+
+    /** All {@link BitVal} fields, in declaration order. */
+    final List<FieldModel> fields;
+
+    /** The "all args" constructor, or null if none is visible. */
+    final ExecutableElement constructor;
+
+    /** The non-constant {@link BitVal} fields, in the parameter order of {@link #constructor}. */
+    final List<FieldModel> constructorOrder;
+
+
+
+    StructModel(TypeElement type, BitDetails details, int size, List<FieldModel> fields) {
+        this.type = type;
+        this.big = details == null || details.byteOrdering() == BitDetails.ByteOrdering.BIG;
+        this.size = size;
+        this.fields = List.copyOf(fields);
+
+        final Map<String, FieldModel> byName = new HashMap<>();
+        fields.stream().filter(field -> !field.constant).forEach(field -> byName.put(field.name, field));
+
+        this.constructor = findConstructor(type, byName.keySet());
+        this.constructorOrder = (constructor == null) ? null : constructor.getParameters().stream()
+                .map(parameter -> byName.get(parameter.getSimpleName().toString()))
+                .toList();
+    }
+
+    boolean isRecord() {
+        return type.getKind() == ElementKind.RECORD;
+    }
+
+    private static ExecutableElement findConstructor(TypeElement type, Set<String> fieldNames) {
+        return type.getEnclosedElements().stream()
+                .filter(element -> element.getKind() == ElementKind.CONSTRUCTOR)
+                .map(ExecutableElement.class::cast)
+                .filter(constructor -> paramNames(constructor).equals(fieldNames))
+                .findAny()
+                .orElse(null);
+    }
+
+    private static Set<String> paramNames(ExecutableElement constructor) {
+        return constructor.getParameters().stream()
+                .map(parameter -> parameter.getSimpleName().toString())
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+
+
+    /** The supported field types. The boxed types share the kind of their primitive. */
+    enum Kind {
+        BOOLEAN(Long.SIZE),
+        BYTE(Byte.SIZE),
+        SHORT(Short.SIZE),
+        INT(Integer.SIZE),
+        LONG(Long.SIZE),
+        ENUM(Long.SIZE),
+        STRUCT(Integer.MAX_VALUE);
+
+        /** The widest {@link BitVal#len()} the type can hold. */
+        final int maxLen;
+
+        Kind(int maxLen) {
+            this.maxLen = maxLen;
+        }
+    }
+
+    /** A single {@link BitVal} field. */
+    static final class FieldModel {
+        final VariableElement element;
+
+        final String name;
+
+        final int first;
+
+        final int len;
+
+        final boolean constant;
+
+        final Kind kind;
+
+        final boolean boxed;
+
+        /** The erased type of the field. */
+        final TypeMirror type;
+
+        /** The erased type of the elements of an array field, otherwise the same as {@link #type}. */
+        final TypeMirror elementType;
+
+        /** Number of elements of an array field, 0 for other fields. */
+        final int count;
+
+        /** Bits from the start of one array element to the start of the next. */
+        final int stride;
+
+        /** The model of the field's type, or element type, if it is a struct, otherwise null. */
+        final StructModel nested;
+
+        /** True if the field is a {@link org.example.Lazy} struct, {@link #type} is then the struct's type. */
+        final boolean lazy;
+
+        FieldModel(VariableElement element, BitVal bitVal, Kind kind, boolean boxed, TypeMirror type,
+                   TypeMirror elementType, StructModel nested, boolean lazy) {
+            this(element, element.getSimpleName().toString(), bitVal.first(), bitVal.len(), bitVal.constant(), kind,
+                    boxed, type, elementType, bitVal.count(), (bitVal.stride() > 0) ? bitVal.stride() : bitVal.len(),
+                    nested, lazy);
+        }
+
+        private FieldModel(VariableElement element, String name, int first, int len, boolean constant, Kind kind,
+                           boolean boxed, TypeMirror type, TypeMirror elementType, int count, int stride,
+                           StructModel nested, boolean lazy) {
+            this.element = element;
+            this.name = name;
+            this.first = first;
+            this.len = len;
+            this.constant = constant;
+            this.kind = kind;
+            this.boxed = boxed;
+            this.type = type;
+            this.elementType = elementType;
+            this.count = count;
+            this.stride = stride;
+            this.nested = nested;
+            this.lazy = lazy;
+        }
+
+        boolean isArray() {
+            return count > 0;
+        }
+
+        /** An element of an array field, as a field of its own. */
+        FieldModel element(int index) {
+            return new FieldModel(element, name + "[" + index + "]", first + index * stride, len, constant, kind,
+                    boxed, elementType, elementType, 0, len, nested, lazy);
+        }
+
+        /** One past the last bit of the field, of the last element for arrays. */
+        int end() {
+            return isArray() ? first + (count - 1) * stride + len : first + len;
+        }
+    }
+
+}
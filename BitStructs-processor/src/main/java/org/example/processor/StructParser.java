@@ -0,0 +1,315 @@
+package org.example.processor;
+
+import org.example.BitDetails;
+import org.example.BitEnum;
+import org.example.BitEnumDetails;
+import org.example.BitStruct;
+import org.example.BitVal;
+import org.example.Lazy;
+import org.example.processor.StructModel.FieldModel;
+import org.example.processor.StructModel.Kind;
+
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Builds {@link StructModel}s and reports invalid {@link BitVal} layouts as compile errors.
+ *
+ * @author Whimax07
+ */
+final class StructParser {
+
+    private final Messager messager;
+
+    private final Types types;
+
+    private final TypeMirror bitStructType;
+
+    private final TypeMirror bitEnumType;
+
+    private final TypeMirror lazyType;
+
+    /** Parsed structs, an empty value means the struct has errors. */
+    private final Map<String, Optional<StructModel>> parsed = new HashMap<>();
+
+    private final Set<String> inProgress = new HashSet<>();
+
+
+
+    StructParser(ProcessingEnvironment env) {
+        final Elements elements = env.getElementUtils();
+        this.messager = env.getMessager();
+        this.types = env.getTypeUtils();
+        this.bitStructType = elements.getTypeElement(BitStruct.class.getCanonicalName()).asType();
+        this.bitEnumType = elements.getTypeElement(BitEnum.class.getCanonicalName()).asType();
+        this.lazyType = types.erasure(elements.getTypeElement(Lazy.class.getCanonicalName()).asType());
+    }
+
+    boolean isBitStruct(TypeElement type) {
+        return type.getKind() != ElementKind.ENUM && types.isAssignable(type.asType(), bitStructType);
+    }
+
+    /** Returns the model of the struct, or null if it has errors. The errors are reported when first parsed. */
+    StructModel parse(TypeElement type) {
+        final String name = type.getQualifiedName().toString();
+        final Optional<StructModel> cached = parsed.get(name);
+        //noinspection OptionalAssignedToNull
+        if (cached != null) return cached.orElse(null);
+
+        if (!inProgress.add(name)) {
+            error(type, "%s contains itself through its @BitVal fields.", type.getSimpleName());
+            return null;
+        }
+
+        final StructModel model = parseImpl(type);
+        inProgress.remove(name);
+        parsed.put(name, Optional.ofNullable(model));
+        return model;
+    }
+
+    /** Forget the parsed structs, so types still being completed by other processors are looked at again. */
+    void reset() {
+        parsed.clear();
+    }
+
+
+
+    private StructModel parseImpl(TypeElement type) {
+        boolean ok = true;
+
+        final List<FieldModel> fields = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC)) continue;
+            final BitVal bitVal = field.getAnnotation(BitVal.class);
+            if (bitVal == null) continue;
+
+            final FieldModel fieldModel = parseField(field, bitVal);
+            if (fieldModel == null) {
+                ok = false;
+            } else {
+                fields.add(fieldModel);
+            }
+        }
+
+        final BitDetails details = type.getAnnotation(BitDetails.class);
+        final int size = getByteArraySize(type, details, fields);
+        if (size < 0) return null;
+
+        ok &= checkRanges(details, size, fields);
+        return ok ? new StructModel(type, details, size, fields) : null;
+    }
+
+    private FieldModel parseField(VariableElement field, BitVal bitVal) {
+        if (bitVal.first() < 0 || bitVal.len() < 1) {
+            error(field, "@BitVal range out of bounds, first must be at least 0 and len at least 1.");
+            return null;
+        }
+
+        final boolean array = field.asType().getKind() == TypeKind.ARRAY;
+        if (!checkArray(field, bitVal, array)) return null;
+
+        final TypeMirror declared = array ? ((ArrayType) field.asType()).getComponentType() : field.asType();
+        final boolean lazy = types.isSameType(types.erasure(declared), lazyType);
+        final TypeMirror type = types.erasure(lazy ? lazyArgument(declared) : declared);
+        final Kind kind;
+        final boolean boxed;
+        StructModel nested = null;
+
+        if (lazy && array) {
+            error(field, "Lazy @BitVal fields can't be arrays.");
+            return null;
+        } else if (lazy && !types.isAssignable(type, bitStructType)) {
+            error(field, "Lazy @BitVal fields need a BitStruct type argument.");
+            return null;
+        } else if (type.getKind().isPrimitive()) {
+            kind = primitiveKind(type.getKind());
+            boxed = false;
+        } else if (types.isAssignable(type, bitEnumType) && isEnum(type)) {
+            kind = Kind.ENUM;
+            boxed = false;
+            if (!checkUnknownConstant(field, (TypeElement) types.asElement(type))) return null;
+        } else if (types.isAssignable(type, bitStructType)) {
+            kind = Kind.STRUCT;
+            boxed = false;
+            nested = parse((TypeElement) types.asElement(type));
+            if (nested == null) return null;
+        } else if (isBoxed(type) && !array) {
+            kind = primitiveKind(types.unboxedType(type).getKind());
+            boxed = true;
+        } else {
+            kind = null;
+            boxed = false;
+        }
+
+        if (kind == null) {
+            error(field, "Unsupported @BitVal type: %s", type);
+            return null;
+        }
+
+        // The reflective codec has always narrowed wide fields, so keep accepting them and leave them to it.
+        if (bitVal.len() > kind.maxLen) {
+            warning(field, "@BitVal len %d is wider than the %d bits of %s, only the low bits are kept.",
+                    bitVal.len(), kind.maxLen, type);
+        }
+
+        if (nested != null && (bitVal.len() + 7) / 8 < nested.size) {
+            error(field, "@BitVal len %d is too narrow for the %d byte struct %s.",
+                    bitVal.len(), nested.size, type);
+            return null;
+        }
+
+        final TypeMirror fieldType = array ? types.erasure(field.asType()) : type;
+        return new FieldModel(field, bitVal, kind, boxed, fieldType, type, nested, lazy);
+    }
+
+    /** Array fields need a count, other fields must not have one, and elements can't overlap. */
+    private boolean checkArray(VariableElement field, BitVal bitVal, boolean array) {
+        if (array && bitVal.count() < 1) {
+            error(field, "Array @BitVal fields need a count of at least 1.");
+            return false;
+        }
+        if (!array && bitVal.count() != 0) {
+            error(field, "@BitVal count is only for array fields.");
+            return false;
+        }
+        if (bitVal.stride() < 0 || (bitVal.stride() > 0 && bitVal.stride() < bitVal.len())) {
+            error(field, "@BitVal stride %d is shorter than the %d bit elements.", bitVal.stride(), bitVal.len());
+            return false;
+        }
+        return true;
+    }
+
+    private int getByteArraySize(TypeElement type, BitDetails details, List<FieldModel> fields) {
+        if (details != null && details.len() != BitDetails.UNSET) {
+            if (details.len() > 0) return details.len();
+            error(type, "@BitDetails len must be positive.");
+            return -1;
+        }
+
+        final int numBits = fields.stream().mapToInt(FieldModel::end).max().orElse(-1);
+        if (numBits < 0) {
+            error(type, "No BitVal fields found.");
+            return -1;
+        }
+
+        return (numBits + 7) / 8;
+    }
+
+    private boolean checkRanges(BitDetails details, int size, List<FieldModel> fields) {
+        boolean ok = true;
+
+        if (details != null && details.len() != BitDetails.UNSET) {
+            for (FieldModel field : fields) {
+                if (field.end() <= size * 8) continue;
+                error(field.element, "@BitVal bits [%d, %d) are outside of the %d byte struct.",
+                        field.first, field.end(), size);
+                ok = false;
+            }
+        }
+
+        // Arrays are checked element by element, so strided arrays can interleave. Each pair of fields is reported
+        // once.
+        final List<FieldModel> sorted = fields.stream()
+                .flatMap(field -> field.isArray()
+                        ? IntStream.range(0, field.count).mapToObj(field::element)
+                        : Stream.of(field))
+                .sorted(Comparator.comparingInt(field -> field.first))
+                .toList();
+        final Set<List<Element>> reported = new HashSet<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            for (int j = i + 1; j < sorted.size() && sorted.get(j).first < sorted.get(i).end(); j++) {
+                final FieldModel earlier = sorted.get(i);
+                final FieldModel later = sorted.get(j);
+                if (earlier.element == later.element || !reported.add(List.of(earlier.element, later.element))) {
+                    continue;
+                }
+
+                error(later.element, "@BitVal bits [%d, %d) overlap %s bits [%d, %d).",
+                        later.first, later.end(), earlier.name, earlier.first, earlier.end());
+                ok = false;
+            }
+        }
+
+        return ok;
+    }
+
+
+
+    /** An enum decoding unknown values as a named constant must have that constant. */
+    private boolean checkUnknownConstant(VariableElement field, TypeElement enumType) {
+        final BitEnumDetails details = enumType.getAnnotation(BitEnumDetails.class);
+        if (details == null || details.onUnknown() != BitEnumDetails.OnUnknown.CONSTANT) return true;
+
+        final boolean hasConstant = enumType.getEnclosedElements().stream()
+                .filter(element -> element.getKind() == ElementKind.ENUM_CONSTANT)
+                .anyMatch(element -> element.getSimpleName().contentEquals(details.unknownConstant()));
+        if (hasConstant) return true;
+
+        error(field, "%s has no constant named %s for unknown values.",
+                enumType.getSimpleName(), details.unknownConstant());
+        return false;
+    }
+
+    /** The type argument of a {@code Lazy<S>}, or the raw type itself if it has none. */
+    private static TypeMirror lazyArgument(TypeMirror type) {
+        if (!(type instanceof DeclaredType declared) || declared.getTypeArguments().isEmpty()) return type;
+        return declared.getTypeArguments().getFirst();
+    }
+
+    private boolean isEnum(TypeMirror type) {
+        final Element element = types.asElement(type);
+        return element != null && element.getKind() == ElementKind.ENUM;
+    }
+
+    private boolean isBoxed(TypeMirror type) {
+        if (!(type instanceof DeclaredType)) return false;
+        try {
+            return types.unboxedType(type).getKind().isPrimitive();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static Kind primitiveKind(TypeKind kind) {
+        return switch (kind) {
+            case BOOLEAN -> Kind.BOOLEAN;
+            case BYTE -> Kind.BYTE;
+            case SHORT -> Kind.SHORT;
+            case INT -> Kind.INT;
+            case LONG -> Kind.LONG;
+            default -> null;
+        };
+    }
+
+    private void error(Element element, String format, Object... args) {
+        messager.printMessage(Diagnostic.Kind.ERROR, String.format(format, args), element);
+    }
+
+    private void warning(Element element, String format, Object... args) {
+        messager.printMessage(Diagnostic.Kind.WARNING, String.format(format, args), element);
+    }
+
+}
@@ -0,0 +1,40 @@
+package org.example;
+
+import org.example.BitDetails.ByteOrdering;
+
+import java.util.List;
+
+/**
+ * Opens the runtime's package private {@link BitFrame} to the processor's tests, so the two frames can be checked
+ * against each other.
+ *
+ * @author Whimax07
+ */
+public final class BitFrames {
+
+    private final BitFrame frame;
+
+    private BitFrames(BitFrame frame) {
+        this.frame = frame;
+    }
+
+    public static BitFrames top(int size, boolean big) {
+        return new BitFrames(BitFrame.top(size, big ? ByteOrdering.BIG : ByteOrdering.LITTLE));
+    }
+
+    public BitFrames nested(int first, int len, int childSize, boolean sameOrder, boolean decode) {
+        return new BitFrames(frame.nested(first, len, childSize, sameOrder, decode));
+    }
+
+    public int physical(int bit) {
+        return frame.physical(bit);
+    }
+
+    /** The chunks of the bits as {@code {byteIndex, shift, valueBit, width}}. */
+    public List<List<Integer>> chunks(int first, int len) {
+        return frame.chunks(first, len).stream()
+                .map(chunk -> List.of(chunk.byteIndex(), chunk.shift(), chunk.valueBit(), chunk.width()))
+                .toList();
+    }
+
+}
@@ -0,0 +1,575 @@
+package org.example.processor;
+
+import org.example.BitCodec;
+import org.example.BitStruct;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.Diagnostic;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BitStructProcessorTest {
+
+    private static final String BANK = """
+            package test;
+
+            import lombok.AllArgsConstructor;
+            import org.example.BitDetails;
+            import org.example.BitEnum;
+            import org.example.BitStruct;
+            import org.example.BitVal;
+
+            public class Bank {
+
+                @BitDetails(byteOrdering = BitDetails.ByteOrdering.BIG)
+                @AllArgsConstructor
+                public static class BankBig implements BitStruct {
+                    @BitVal(first = 0, len = 32)
+                    private PwrUp0 pwrUp0;
+
+                    @BitVal(first = 32, len = 32)
+                    private CurrentPowerUpReg currentPowerUpReg;
+
+                    @BitVal(first = 64, len = 32)
+                    private StatusReg statusReg;
+                }
+
+                @BitDetails(len = 4, byteOrdering = BitDetails.ByteOrdering.LITTLE)
+                @AllArgsConstructor
+                public static class PwrUp0 implements BitStruct {
+                    @BitVal(first = 0, len = 6)
+                    private byte source;
+
+                    @BitVal(first = 6, len = 1)
+                    private byte enable;
+
+                    @BitVal(first = 7, len = 1)
+                    private boolean direction;
+                }
+
+                @BitDetails(len = 4, byteOrdering = BitDetails.ByteOrdering.LITTLE)
+                public record CurrentPowerUpReg(
+                        @BitVal(first = 0, len = 7) byte currentState,
+                        @BitVal(first = 7, len = 25) int empty
+                ) implements BitStruct { }
+
+                @BitDetails(len = 4, byteOrdering = BitDetails.ByteOrdering.BIG)
+                public static class StatusReg implements BitStruct {
+                    @BitVal(first = 0, len = 4)
+                    final Status status;
+
+                    @BitVal(first = 25, len = 4)
+                    final Byte date;
+
+                    public StatusReg(Status status, Byte date) {
+                        this.status = status;
+                        this.date = date;
+                    }
+                }
+
+                public enum Status implements BitEnum {
+                    GOOD, BAD;
+
+                    @Override
+                    public long val() {
+                        return ordinal() + 1;
+                    }
+                }
+
+            }
+            """;
+
+    @Test
+    public void generatesNestedCodec() throws Exception {
+        final TestCompiler compiled = TestCompiler.compile("test.Bank", BANK);
+        assertTrue(compiled.success(), compiled.errors());
+        assertTrue(compiled.generated("test.Bank$$BankBigCodec"));
+        assertTrue(compiled.generated("test.Bank$$PwrUp0Codec"));
+        assertTrue(compiled.generated("test.Bank$$CurrentPowerUpRegCodec"));
+
+        final ClassLoader loader = compiled.classLoader();
+        final Class<? extends BitStruct> bankClass =
+                loader.loadClass("test.Bank$BankBig").asSubclass(BitStruct.class);
+        final Object codec = loader.loadClass("test.Bank$$BankBigCodec").getConstructor().newInstance();
+        assertInstanceOf(BitCodec.class, codec);
+
+        final byte[] bytes = {0x1e, 0, 0, 2, 0x12, 0, 0, 0, (byte) 0xcf, 0, 0, 0};
+        final BitStruct decoded = BitStruct.decode(bankClass, bytes);
+        assertArrayEquals(bytes, decoded.encode());
+
+        final Object statusReg = field(decoded, "statusReg");
+        assertEquals("BAD", field(statusReg, "status").toString());
+        assertEquals((byte) 15, field(statusReg, "date"));
+
+        final Object pwrUp0 = field(decoded, "pwrUp0");
+        assertEquals((byte) 0xf, field(pwrUp0, "source"));
+        assertEquals(true, field(pwrUp0, "direction"));
+    }
+
+    @Test
+    public void nestedCodecNamesDontClash() throws Exception {
+        final TestCompiler compiled = TestCompiler.compile("test.Outer", """
+                package test;
+
+                import org.example.BitStruct;
+                import org.example.BitVal;
+
+                public record Outer(@BitVal(first = 0, len = 8) Inner inner) implements BitStruct {
+                    public record Inner(@BitVal(first = 0, len = 8) byte value) implements BitStruct { }
+                }
+                """, "test.Outer_Inner", """
+                package test;
+
+                import org.example.BitStruct;
+                import org.example.BitVal;
+
+                public record Outer_Inner(@BitVal(first = 0, len = 16) short value) implements BitStruct { }
+                """);
+        assertTrue(compiled.success(), compiled.errors());
+        assertTrue(compiled.generated("test.Outer$$InnerCodec"));
+        assertTrue(compiled.generated("test.Outer_InnerCodec"));
+
+        final ClassLoader loader = compiled.classLoader();
+        final Class<? extends BitStruct> nested = loader.loadClass("test.Outer$Inner").asSubclass(BitStruct.class);
+        final Class<? extends BitStruct> underscored = loader.loadClass("test.Outer_Inner").asSubclass(BitStruct.class);
+        assertEquals("Inner[value=18]", BitStruct.decode(nested, new byte[] {0x12}).toString());
+        assertEquals("Outer_Inner[value=4660]", BitStruct.decode(underscored, new byte[] {0x12, 0x34}).toString());
+    }
+
+    @Test
+    public void generatedCodecDecodesSegments() throws Exception {
+        final TestCompiler compiled = TestCompiler.compile("test.Bank", BANK);
+        assertTrue(compiled.success(), compiled.errors());
+
+        final Class<? extends BitStruct> bankClass =
+                compiled.classLoader().loadClass("test.Bank$BankBig").asSubclass(BitStruct.class);
+
+        final byte[] bytes = {0x1e, 0, 0, 2, 0x12, 0, 0, 0, (byte) 0xcf, 0, 0, 0};
+        final byte[] padded = new byte[bytes.length + 6];
+        System.arraycopy(bytes, 0, padded, 4, bytes.length);
+
+        final BitStruct fromSegment = BitStruct.decode(bankClass, MemorySegment.ofArray(padded), 4);
+        assertArrayEquals(bytes, fromSegment.encode());
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(padded.length).put(padded).position(4);
+        assertArrayEquals(bytes, BitStruct.decode(bankClass, buffer).encode());
+        assertEquals(4, buffer.position());
+    }
+
+    @Test
+    public void generatedCodecEncodesInPlace() throws Exception {
+        final TestCompiler compiled = TestCompiler.compile("test.Bank", BANK);
+        assertTrue(compiled.success(), compiled.errors());
+
+        final Class<? extends BitStruct> bankClass =
+                compiled.classLoader().loadClass("test.Bank$BankBig").asSubclass(BitStruct.class);
+
+        final byte[] bytes = {0x1e, 0, 0, 2, 0x12, 0, 0, 0, (byte) 0xcf, 0, 0, 0};
+        final BitStruct decoded = BitStruct.decode(bankClass, bytes);
+
+        final byte[] frame = new byte[bytes.length + 4];
+        Arrays.fill(frame, (byte) -1);
+        assertEquals(bytes.length, decoded.encodeInto(frame, 2));
+
+        assertArrayEquals(bytes, Arrays.copyOfRange(frame, 2, 2 + bytes.length));
+        assertArrayEquals(new byte[] {-1, -1}, Arrays.copyOfRange(frame, 0, 2));
+        assertArrayEquals(new byte[] {-1, -1}, Arrays.copyOfRange(frame, 2 + bytes.length, frame.length));
+    }
+
+    @Test
+    public void generatedArraysMatchReflection() throws Exception {
+        final String regs = """
+                    @BitDetails(byteOrdering = BitDetails.ByteOrdering.BIG)
+                    @AllArgsConstructor
+                    %s static class %s implements BitStruct {
+                        @BitVal(first = 0, len = 4, count = 4)
+                        private byte[] gains;
+
+                        @BitVal(first = 16, len = 16, count = 2)
+                        private Pair[] pairs;
+
+                        @BitVal(first = 48, len = 3, count = 2, stride = 4)
+                        private Mode[] modes;
+
+                        @BitVal(first = 56, len = 1, count = 8)
+                        private boolean[] flags;
+
+                        @BitVal(first = 64, len = 12, count = 2)
+                        private int[] wide;
+
+                        @BitVal(first = 88, len = 40, count = 1)
+                        private long[] longs;
+                    }
+                """;
+        final TestCompiler compiled = TestCompiler.compile("test.Block", """
+                package test;
+
+                import lombok.AllArgsConstructor;
+                import org.example.BitDetails;
+                import org.example.BitEnum;
+                import org.example.BitStruct;
+                import org.example.BitVal;
+
+                public class Block {
+                %s
+                %s
+                    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+                    public record Pair(
+                            @BitVal(first = 0, len = 8) byte low,
+                            @BitVal(first = 8, len = 8) byte high
+                    ) implements BitStruct { }
+
+                    public enum Mode implements BitEnum {
+                        M0, M1, M2, M3, M4, M5, M6, M7;
+
+                        @Override
+                        public long val() {
+                            return ordinal();
+                        }
+                    }
+                }
+                """.formatted(regs.formatted("public", "Generated"), regs.formatted("private", "Reflected")));
+        assertTrue(compiled.success(), compiled.errors());
+        assertTrue(compiled.generated("test.Block$$GeneratedCodec"));
+        assertFalse(compiled.generated("test.Block$$ReflectedCodec"));
+
+        final ClassLoader loader = compiled.classLoader();
+        final Class<? extends BitStruct> generated =
+                loader.loadClass("test.Block$Generated").asSubclass(BitStruct.class);
+        final Class<? extends BitStruct> reflected =
+                loader.loadClass("test.Block$Reflected").asSubclass(BitStruct.class);
+
+        final byte[] bytes = new byte[16];
+        new Random(3).nextBytes(bytes);
+        // Bits 51 and 55 fall between the strided modes, and encode leaves them clear.
+        bytes[9] &= (byte) ~0x88;
+
+        final BitStruct fromGenerated = BitStruct.decode(generated, bytes);
+        final BitStruct fromReflected = BitStruct.decode(reflected, bytes);
+        assertArrayEquals(bytes, fromGenerated.encode());
+        assertArrayEquals(bytes, fromReflected.encode());
+
+        for (String name : List.of("gains", "flags", "wide", "longs")) {
+            assertTrue(Objects.deepEquals(field(fromGenerated, name), field(fromReflected, name)), name);
+        }
+        assertArrayEquals((Object[]) field(fromReflected, "pairs"), (Object[]) field(fromGenerated, "pairs"));
+        assertArrayEquals((Object[]) field(fromReflected, "modes"), (Object[]) field(fromGenerated, "modes"));
+        assertEquals((byte) (bytes[15] & 0xf), ((byte[]) field(fromGenerated, "gains"))[0]);
+    }
+
+    @Test
+    public void unalignedMixedOrderNestingMatchesReflection() throws Exception {
+        final String structs = """
+                    @BitDetails(byteOrdering = BitDetails.ByteOrdering.BIG)
+                    %1$s record Outer%2$s(
+                            @BitVal(first = 0, len = 3) byte tag,
+                            @BitVal(first = 3, len = 29) Middle%2$s middle,
+                            @BitVal(first = 32, len = 12) Pair pair
+                    ) implements BitStruct { }
+
+                    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+                    %1$s record Middle%2$s(
+                            @BitVal(first = 0, len = 5) byte a,
+                            @BitVal(first = 5, len = 20) Inner%2$s inner,
+                            @BitVal(first = 25, len = 3) byte b
+                    ) implements BitStruct { }
+
+                    @BitDetails(byteOrdering = BitDetails.ByteOrdering.BIG)
+                    %1$s record Inner%2$s(
+                            @BitVal(first = 0, len = 7) byte x,
+                            @BitVal(first = 7, len = 9) short y
+                    ) implements BitStruct { }
+                """;
+        final TestCompiler compiled = TestCompiler.compile("test.Deep", """
+                package test;
+
+                import org.example.BitDetails;
+                import org.example.BitStruct;
+                import org.example.BitVal;
+
+                public class Deep {
+                %s
+                %s
+                    public record Pair(
+                            @BitVal(first = 0, len = 4) byte low,
+                            @BitVal(first = 4, len = 4) byte high
+                    ) implements BitStruct { }
+                }
+                """.formatted(structs.formatted("public", "Generated"), structs.formatted("private", "Reflected")));
+        assertTrue(compiled.success(), compiled.errors());
+        assertTrue(compiled.generated("test.Deep$$OuterGeneratedCodec"));
+        assertFalse(compiled.generated("test.Deep$$OuterReflectedCodec"));
+
+        final ClassLoader loader = compiled.classLoader();
+        final Class<? extends BitStruct> generated =
+                loader.loadClass("test.Deep$OuterGenerated").asSubclass(BitStruct.class);
+        final Class<? extends BitStruct> reflected =
+                loader.loadClass("test.Deep$OuterReflected").asSubclass(BitStruct.class);
+
+        final Random random = new Random(23);
+        for (int round = 0; round < 200; round++) {
+            final byte[] bytes = new byte[6];
+            random.nextBytes(bytes);
+
+            final BitStruct fromGenerated = BitStruct.decode(generated, bytes);
+            final BitStruct fromReflected = BitStruct.decode(reflected, bytes);
+            assertEquals(fromGenerated.toString(), fromReflected.toString().replace("Reflected", "Generated"));
+            assertArrayEquals(fromGenerated.encode(), fromReflected.encode());
+        }
+    }
+
+    @Test
+    public void badArraysAreErrors() {
+        final TestCompiler compiled = TestCompiler.compile("test.BadArrays", """
+                package test;
+
+                import org.example.BitStruct;
+                import org.example.BitVal;
+
+                public record BadArrays(
+                        @BitVal(first = 0, len = 4) byte[] noCount,
+                        @BitVal(first = 8, len = 4, count = 2) byte notArray,
+                        @BitVal(first = 16, len = 4, count = 2, stride = 2) byte[] tooClose,
+                        @BitVal(first = 32, len = 9, count = 2) byte[] tooWide
+                ) implements BitStruct { }
+                """);
+
+        assertFalse(compiled.success());
+        assertTrue(compiled.errors().contains("need a count of at least 1"), compiled.errors());
+        assertTrue(compiled.errors().contains("count is only for array fields"), compiled.errors());
+        assertTrue(compiled.errors().contains("stride 2 is shorter than the 4 bit elements"), compiled.errors());
+        assertTrue(compiled.messages(Diagnostic.Kind.WARNING).contains("len 9 is wider than the 8 bits of byte"));
+    }
+
+    @Test
+    public void wideFieldsWarnAndUseReflection() {
+        final TestCompiler compiled = TestCompiler.compile("test.Wide", """
+                package test;
+
+                import org.example.BitStruct;
+                import org.example.BitVal;
+
+                public record Wide(@BitVal(first = 0, len = 40) int value) implements BitStruct { }
+                """);
+
+        assertTrue(compiled.success(), compiled.errors());
+        assertTrue(compiled.messages(Diagnostic.Kind.WARNING).contains("len 40 is wider than the 32 bits of int"));
+        assertFalse(compiled.generated("test.WideCodec"));
+    }
+
+    @Test
+    public void wideBooleansMatchReflection() throws Exception {
+        final String flags = """
+                    %1$s record Flags%2$s(
+                            @BitVal(first = 0, len = 40) boolean wide,
+                            @BitVal(first = 40, len = 8) boolean narrow
+                    ) implements BitStruct { }
+                """;
+        final TestCompiler compiled = TestCompiler.compile("test.Booleans", """
+                package test;
+
+                import org.example.BitStruct;
+                import org.example.BitVal;
+
+                public class Booleans {
+                %s
+                %s
+                }
+                """.formatted(flags.formatted("public", "Generated"), flags.formatted("private", "Reflected")));
+        assertTrue(compiled.success(), compiled.errors());
+        assertTrue(compiled.generated("test.Booleans$$FlagsGeneratedCodec"));
+
+        final ClassLoader loader = compiled.classLoader();
+        final Class<? extends BitStruct> generated =
+                loader.loadClass("test.Booleans$FlagsGenerated").asSubclass(BitStruct.class);
+        final Class<? extends BitStruct> reflected =
+                loader.loadClass("test.Booleans$FlagsReflected").asSubclass(BitStruct.class);
+
+        // Only bits above the low 32 of the wide field are set.
+        final byte[] bytes = {0, 0x10, 0, 0, 0, 0};
+        final BitStruct fromGenerated = BitStruct.decode(generated, bytes);
+        assertEquals("FlagsGenerated[wide=true, narrow=false]", fromGenerated.toString());
+        final BitStruct fromReflected = BitStruct.decode(reflected, bytes);
+        assertEquals(fromGenerated.toString(), fromReflected.toString().replace("Reflected", "Generated"));
+    }
+
+    @Test
+    public void overlappingFieldsAreErrors() {
+        final TestCompiler compiled = TestCompiler.compile("test.Overlap", """
+                package test;
+
+                import org.example.BitStruct;
+                import org.example.BitVal;
+
+                public record Overlap(
+                        @BitVal(first = 0, len = 8) byte low,
+                        @BitVal(first = 4, len = 8) byte middle
+                ) implements BitStruct { }
+                """);
+
+        assertFalse(compiled.success());
+        assertTrue(compiled.errors().contains("@BitVal bits [4, 12) overlap low bits [0, 8)"), compiled.errors());
+    }
+
+    @Test
+    public void interleavedArraysDontOverlap() throws Exception {
+        final TestCompiler compiled = TestCompiler.compile("test.Interleaved", """
+                package test;
+
+                import org.example.BitStruct;
+                import org.example.BitVal;
+
+                public record Interleaved(
+                        @BitVal(first = 0, len = 8, count = 2, stride = 16) byte[] even,
+                        @BitVal(first = 8, len = 8, count = 2, stride = 16) byte[] odd
+                ) implements BitStruct { }
+                """);
+
+        assertTrue(compiled.success(), compiled.errors());
+        assertTrue(compiled.generated("test.InterleavedCodec"));
+
+        final Class<? extends BitStruct> type = compiled.classLoader().loadClass("test.Interleaved")
+                .asSubclass(BitStruct.class);
+        final byte[] bytes = {4, 3, 2, 1};
+        final BitStruct decoded = BitStruct.decode(type, bytes);
+        assertArrayEquals(new byte[] {1, 3}, (byte[]) type.getMethod("even").invoke(decoded));
+        assertArrayEquals(new byte[] {2, 4}, (byte[]) type.getMethod("odd").invoke(decoded));
+        assertArrayEquals(bytes, decoded.encode());
+    }
+
+    @Test
+    public void fieldsOverlappingArrayElementsAreErrors() {
+        final TestCompiler compiled = TestCompiler.compile("test.Clash", """
+                package test;
+
+                import org.example.BitStruct;
+                import org.example.BitVal;
+
+                public record Clash(
+                        @BitVal(first = 0, len = 8, count = 2, stride = 16) byte[] even,
+                        @BitVal(first = 8, len = 8, count = 2, stride = 16) byte[] odd,
+                        @BitVal(first = 12, len = 8) byte clash
+                ) implements BitStruct { }
+                """);
+
+        assertFalse(compiled.success());
+        assertTrue(compiled.errors().contains("@BitVal bits [12, 20) overlap odd[0] bits [8, 16)"), compiled.errors());
+        assertTrue(compiled.errors().contains("@BitVal bits [16, 24) overlap clash bits [12, 20)"), compiled.errors());
+    }
+
+    @Test
+    public void outOfRangeFieldsAreErrors() {
+        final TestCompiler compiled = TestCompiler.compile("test.OutOfRange", """
+                package test;
+
+                import org.example.BitDetails;
+                import org.example.BitStruct;
+                import org.example.BitVal;
+
+                @BitDetails(len = 2)
+                public record OutOfRange(
+                        @BitVal(first = 12, len = 8) short pastTheEnd,
+                        @BitVal(first = 0, len = 9) byte tooWide
+                ) implements BitStruct { }
+                """);
+
+        assertFalse(compiled.success());
+        assertTrue(compiled.errors().contains("bits [12, 20) are outside of the 2 byte struct"), compiled.errors());
+        assertTrue(compiled.messages(Diagnostic.Kind.WARNING).contains("len 9 is wider than the 8 bits of byte"));
+    }
+
+    @Test
+    public void missingUnknownConstantIsAnError() {
+        final TestCompiler compiled = TestCompiler.compile("test.Flags", """
+                package test;
+
+                import org.example.BitEnum;
+                import org.example.BitEnumDetails;
+                import org.example.BitStruct;
+                import org.example.BitVal;
+
+                public record Flags(@BitVal(first = 0, len = 2) Mode mode) implements BitStruct {
+                    @BitEnumDetails(onUnknown = BitEnumDetails.OnUnknown.CONSTANT, unknownConstant = "OTHER")
+                    public enum Mode implements BitEnum {
+                        ON, OFF;
+
+                        @Override
+                        public long val() {
+                            return ordinal();
+                        }
+                    }
+                }
+                """);
+
+        assertFalse(compiled.success());
+        assertTrue(compiled.errors().contains("Mode has no constant named OTHER"), compiled.errors());
+    }
+
+    @Test
+    public void inaccessibleStructsFallBackToReflection() {
+        final TestCompiler compiled = TestCompiler.compile("test.Hidden", """
+                package test;
+
+                import org.example.BitStruct;
+                import org.example.BitVal;
+
+                public class Hidden {
+                    private record Inner(@BitVal(first = 0, len = 8) byte value) implements BitStruct { }
+                }
+                """);
+
+        assertTrue(compiled.success(), compiled.errors());
+        assertFalse(compiled.generated("test.Hidden$$InnerCodec"));
+        assertTrue(compiled.messages(Diagnostic.Kind.NOTE).contains("No codec generated for Inner"));
+    }
+
+    @Test
+    public void lazyFieldsFallBackToReflection() {
+        final TestCompiler compiled = TestCompiler.compile("test.Outer", """
+                package test;
+
+                import org.example.BitStruct;
+                import org.example.BitVal;
+                import org.example.Lazy;
+
+                public record Outer(
+                        @BitVal(first = 0, len = 8) Inner inner,
+                        @BitVal(first = 8, len = 8) Lazy<Inner> lazy
+                ) implements BitStruct {
+                    public record Inner(@BitVal(first = 0, len = 8) byte value) implements BitStruct { }
+                }
+                """, "test.Raw", """
+                package test;
+
+                import org.example.BitStruct;
+                import org.example.BitVal;
+                import org.example.Lazy;
+
+                public record Raw(@BitVal(first = 0, len = 8) Lazy raw) implements BitStruct { }
+                """);
+
+        assertFalse(compiled.success());
+        assertTrue(compiled.errors().contains("Lazy @BitVal fields need a BitStruct type argument"), compiled.errors());
+        assertFalse(compiled.generated("test.OuterCodec"));
+        assertTrue(compiled.generated("test.Outer$$InnerCodec"));
+    }
+
+
+
+    private static Object field(Object owner, String name) throws ReflectiveOperationException {
+        final java.lang.reflect.Field field = owner.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(owner);
+    }
+
+}
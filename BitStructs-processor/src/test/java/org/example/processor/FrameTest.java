@@ -0,0 +1,75 @@
+package org.example.processor;
+
+import org.example.BitFrames;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FrameTest {
+
+    // The generated codecs and the reflective ones each map bits through their own frame, these have to agree on every
+    // shape or the two codecs would read different bytes.
+
+    @Test
+    public void topFramesAgree() {
+        for (int size = 1; size <= 9; size++) {
+            for (final boolean big : new boolean[] {true, false}) {
+                assertAgree(Frame.top(size, big), BitFrames.top(size, big), size * 8, "top " + size + " " + big);
+            }
+        }
+    }
+
+    @Test
+    public void nestedFramesAgree() {
+        for (final boolean big : new boolean[] {true, false}) {
+            final Frame frame = Frame.top(6, big);
+            final BitFrames bitFrame = BitFrames.top(6, big);
+
+            for (int childSize = 1; childSize <= 3; childSize++) {
+                for (int len = 1; len <= 24; len++) {
+                    for (int first = 0; first + len <= 48; first += 5) {
+                        for (final boolean sameOrder : new boolean[] {true, false}) {
+                            for (final boolean decode : new boolean[] {true, false}) {
+                                final String shape = "top 6 %s, nested %d bytes in [%d, +%d) %s %s"
+                                        .formatted(big, childSize, first, len, sameOrder, decode);
+                                final Frame nested = frame.nested(first, len, childSize, sameOrder, decode);
+                                final BitFrames bitNested = bitFrame.nested(first, len, childSize, sameOrder, decode);
+                                assertAgree(nested, bitNested, childSize * 8, shape);
+
+                                // One level deeper, a byte wide struct in the middle of the nested one.
+                                final int innerFirst = Math.min(3, childSize * 8 - 1);
+                                final int innerLen = Math.min(8, childSize * 8 - innerFirst);
+                                assertAgree(
+                                        nested.nested(innerFirst, innerLen, 1, !sameOrder, decode),
+                                        bitNested.nested(innerFirst, innerLen, 1, !sameOrder, decode),
+                                        8,
+                                        shape + ", inner in [" + innerFirst + ", +" + innerLen + ")"
+                                );
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+
+
+    private static void assertAgree(Frame frame, BitFrames bitFrame, int bits, String shape) {
+        for (int bit = -1; bit <= bits; bit++) {
+            assertEquals(bitFrame.physical(bit), frame.physical(bit), shape + ", bit " + bit);
+        }
+
+        for (int first = 0; first < bits; first++) {
+            for (int len = 1; first + len <= bits; len++) {
+                final List<List<Integer>> chunks = frame.chunks(first, len).stream()
+                        .map(chunk -> List.of(chunk.byteIndex(), chunk.shift(), chunk.valueBit(), chunk.width()))
+                        .toList();
+                assertEquals(bitFrame.chunks(first, len), chunks, shape + ", chunks of [" + first + ", +" + len + ")");
+            }
+        }
+    }
+
+}
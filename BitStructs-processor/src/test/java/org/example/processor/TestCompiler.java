@@ -0,0 +1,132 @@
+package org.example.processor;
+
+import lombok.AllArgsConstructor;
+import org.example.BitStruct;
+
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/** Compiles test sources in process with the {@link BitStructProcessor}, and Lombok, on the processor path. */
+public class TestCompiler {
+
+    private final Path output;
+
+    private final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    private final boolean success;
+
+
+
+    private TestCompiler(Path output, List<JavaFileObject> sources) throws IOException {
+        this.output = output;
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null)) {
+            files.setLocationFromPaths(StandardLocation.CLASS_OUTPUT, List.of(output));
+            files.setLocationFromPaths(StandardLocation.SOURCE_OUTPUT, List.of(output));
+            final List<Path> classPath = List.of(locationOf(BitStruct.class), locationOf(AllArgsConstructor.class));
+            files.setLocationFromPaths(StandardLocation.CLASS_PATH, classPath);
+
+            final JavaCompiler.CompilationTask task = compiler.getTask(
+                    null, files, diagnostics, List.of("-parameters"), null, sources
+            );
+            task.setProcessors(List.of(lombok(), new BitStructProcessor()));
+            this.success = task.call();
+        }
+    }
+
+    /** Sources are given as pairs of qualified class name and source code. */
+    public static TestCompiler compile(String... namesAndSources) {
+        final List<JavaFileObject> sources = new ArrayList<>();
+        for (int i = 0; i < namesAndSources.length; i += 2) {
+            sources.add(new Source(namesAndSources[i], namesAndSources[i + 1]));
+        }
+
+        try {
+            return new TestCompiler(Files.createTempDirectory("bitstructs-processor"), sources);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+
+    public boolean success() {
+        return success;
+    }
+
+    public String errors() {
+        return messages(Diagnostic.Kind.ERROR);
+    }
+
+    public String messages(Diagnostic.Kind kind) {
+        return diagnostics.getDiagnostics().stream()
+                .filter(diagnostic -> diagnostic.getKind() == kind)
+                .map(diagnostic -> diagnostic.getMessage(null))
+                .collect(Collectors.joining("\n"));
+    }
+
+    public boolean generated(String qualifiedName) {
+        return Files.exists(output.resolve(qualifiedName.replace('.', '/') + ".java"));
+    }
+
+    public ClassLoader classLoader() {
+        try {
+            return new URLClassLoader(new URL[] {output.toUri().toURL()}, BitStruct.class.getClassLoader());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+
+    private static Processor lombok() {
+        try {
+            final Class<?> processor = Class.forName("lombok.launch.AnnotationProcessorHider$AnnotationProcessor");
+            return (Processor) processor.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Lombok is not on the test classpath.", e);
+        }
+    }
+
+    private static Path locationOf(Class<?> clazz) {
+        try {
+            return Path.of(clazz.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Source extends SimpleJavaFileObject {
+        private final String code;
+
+        private Source(String qualifiedName, String code) {
+            super(URI.create("string:///" + qualifiedName.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+}
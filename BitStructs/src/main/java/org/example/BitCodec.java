@@ -0,0 +1,96 @@
+package org.example;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A serializer for a single {@link BitStruct} class. <br><br>
+ *
+ * Implementations are generated at compile time by the BitStructs annotation processor. When a generated codec is on
+ * the classpath {@link BitStruct#decode} and {@link BitStruct#encode} hand off to it instead of using reflection.
+ *
+ * @author Whimax07
+ */
+public interface BitCodec<T extends BitStruct> {
+
+    /** Deserialize an instance of the struct, see {@link BitStruct#decode(Class, byte[])}. */
+    T decode(byte[] bytes);
+
+    /**
+     * Deserialize an instance of the struct from the bytes {@code [offset, offset + size)} of the segment, see
+     * {@link BitStruct#decode(Class, MemorySegment, long)}.
+     */
+    T decode(MemorySegment segment, long offset);
+
+    /**
+     * Deserialize an instance of the struct starting at the position of the buffer, see
+     * {@link BitStruct#decode(Class, ByteBuffer)}.
+     */
+    default T decode(ByteBuffer buffer) {
+        return decode(MemorySegment.ofBuffer(buffer), 0);
+    }
+
+    /**
+     * Deserialize {@code out.length} structs stored back to back from the offset of the segment into out, see
+     * {@link BitStruct#decodeAll(Class, MemorySegment, long, BitStruct[])}.
+     */
+    default void decodeAll(MemorySegment segment, long offset, T[] out) {
+        BitCodecs.checkBatch(segment, offset, out.length, size());
+
+        final int size = size();
+        for (int i = 0; i < out.length; i++) {
+            out[i] = decode(segment, offset + (long) i * size);
+        }
+    }
+
+    /**
+     * Deserialize {@code count} structs stored back to back from the offset of the segment, see
+     * {@link BitStruct#decodeAll(Class, MemorySegment, long, int)}.
+     */
+    default List<T> decodeAll(MemorySegment segment, long offset, int count) {
+        BitCodecs.checkBatch(segment, offset, count, size());
+
+        final int size = size();
+        final List<T> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(decode(segment, offset + (long) i * size));
+        }
+        return result;
+    }
+
+    /**
+     * Overwrite the fields of a mutable struct with the struct in the bytes {@code [offset, offset + size)} of the
+     * segment, see {@link BitStruct#decodeInto(BitStruct, MemorySegment, long, BitStructPool)}. Decoding into an
+     * instance needs its setters, so this always goes through the reflective codec.
+     */
+    default T decodeInto(T target, MemorySegment segment, long offset, BitStructPool pool) {
+        return BitCodecs.reflective(target).decodeInto(target, segment, offset, pool);
+    }
+
+    /** Serialize an instance of the struct, see {@link BitStruct#encode()}. */
+    byte[] encode(T value);
+
+    /**
+     * Serialize an instance of the struct into the bytes {@code [offset, offset + size)} of the segment, see
+     * {@link BitStruct#encodeInto(MemorySegment, long)}.
+     *
+     * @return The number of bytes written, always {@link #size()}.
+     */
+    int encodeInto(T value, MemorySegment segment, long offset);
+
+    /** Serialize an instance of the struct into the array, see {@link BitStruct#encodeInto(byte[], int)}. */
+    default int encodeInto(T value, byte[] bytes, int offset) {
+        return encodeInto(value, MemorySegment.ofArray(bytes), offset);
+    }
+
+    /** Serialize an instance of the struct at the buffer position, see {@link BitStruct#encodeInto(ByteBuffer)}. */
+    default int encodeInto(T value, ByteBuffer buffer) {
+        return encodeInto(value, MemorySegment.ofBuffer(buffer), 0);
+    }
+
+    /** Size in bytes of the serialized form of the struct. */
+    int size();
+
+}
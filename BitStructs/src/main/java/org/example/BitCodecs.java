@@ -0,0 +1,106 @@
+package org.example;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Optional;
+
+/**
+ * Finds the {@link BitCodec} of a {@link BitStruct} class. The codec generated at compile time is used if there is one,
+ * otherwise a {@link HandleCodec} is built from the class's {@link BitLayout}. <br><br>
+ *
+ * A generated codec lives in the same package as its struct and is named after the struct's nesting path, with
+ * {@code $$} between each class name and a {@code Codec} suffix. For example the codec of {@code Outer.Inner} is
+ * {@code Outer$$InnerCodec}, which can't clash with the codec of a top level {@code Outer_Inner} or with a nested
+ * {@code Outer.InnerCodec}, whose binary name is {@code Outer$InnerCodec}.
+ *
+ * @author Whimax07
+ */
+final class BitCodecs {
+
+    static final String SUFFIX = "Codec";
+
+    /** Joins the class names of the nesting path in a codec name. */
+    static final String JOIN = "$$";
+
+    private static final ClassValue<BitCodec<?>> CODECS = new ClassValue<>() {
+        @Override
+        protected BitCodec<?> computeValue(Class<?> type) {
+            return findGenerated(type).orElseGet(() -> new HandleCodec<>(BitLayout.of(type)));
+        }
+    };
+
+    /** The reflective codec of each class, the one in {@link #CODECS} if there is no generated codec. */
+    private static final ClassValue<HandleCodec<?>> REFLECTIVE = new ClassValue<>() {
+        @Override
+        protected HandleCodec<?> computeValue(Class<?> type) {
+            return (CODECS.get(type) instanceof HandleCodec<?> codec) ? codec : new HandleCodec<>(BitLayout.of(type));
+        }
+    };
+
+
+
+    private BitCodecs() { }
+
+    /** The codec of the class, wrapped in a {@link MeteredCodec} while any {@link BitMetrics} are registered. */
+    static <T extends BitStruct> BitCodec<T> of(Class<T> clazz) {
+        return Metering.enabled() ? Metering.codec(clazz) : unmetered(clazz);
+    }
+
+    @SuppressWarnings("unchecked") // The codec is looked up with the runtime class of the struct.
+    static <T extends BitStruct> BitCodec<T> of(T struct) {
+        return of((Class<T>) struct.getClass());
+    }
+
+    /** The codec of the class without metrics, for nested structs which are timed as part of their parent. */
+    @SuppressWarnings("unchecked") // Codecs are only ever created for their own struct class.
+    static <T extends BitStruct> BitCodec<T> unmetered(Class<T> clazz) {
+        return (BitCodec<T>) CODECS.get(clazz);
+    }
+
+    /** The reflective codec of the struct's class, even if it has a generated codec. */
+    @SuppressWarnings("unchecked") // The codec is looked up with the runtime class of the struct.
+    static <T extends BitStruct> HandleCodec<T> reflective(T struct) {
+        return (HandleCodec<T>) REFLECTIVE.get(struct.getClass());
+    }
+
+    /** Check the segment holds {@code count} structs of {@code size} bytes from the offset. */
+    static void checkBatch(MemorySegment segment, long offset, int count, int size) {
+        if (count < 0) throw new RuntimeException("Can't decode a negative number of structs: " + count);
+
+        final long required = (long) count * size;
+        if (offset < 0 || segment.byteSize() - offset < required) {
+            throw new RuntimeException(
+                    "Passed in segment is to small. Required size: " + required + " bytes from offset " + offset
+            );
+        }
+    }
+
+    static String codecName(Class<?> clazz) {
+        final String packageName = clazz.getPackageName();
+        final String binaryName = clazz.getName();
+        final String nestedName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        final String prefix = packageName.isEmpty() ? "" : packageName + ".";
+        return prefix + nestedName.replace("$", JOIN) + SUFFIX;
+    }
+
+
+
+    private static Optional<BitCodec<?>> findGenerated(Class<?> clazz) {
+        final Class<?> codecClass;
+        try {
+            codecClass = Class.forName(codecName(clazz), true, clazz.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return Optional.empty();
+        }
+
+        if (!BitCodec.class.isAssignableFrom(codecClass)) return Optional.empty();
+
+        try {
+            return Optional.of((BitCodec<?>) codecClass.getConstructor().newInstance());
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException |
+                 NoSuchMethodException e) {
+            throw new RuntimeException("Failed to create the generated codec for " + clazz, e);
+        }
+    }
+
+}
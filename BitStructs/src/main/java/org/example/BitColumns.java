@@ -0,0 +1,316 @@
+package org.example;
+
+import org.example.BitLayout.FieldLayout;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A run of back to back structs decoded column by column, one primitive array per {@link BitVal} field, instead of
+ * one object per record. <br><br>
+ *
+ * Fields of nested structs, lazy ones included, are flattened into columns named by their dotted path, for example
+ * {@code "statusReg.status"}, and array fields into a column per element, {@code "gains[3]"}. {@code byte},
+ * {@code short}, {@code int} and {@code long} fields become arrays of the same type, {@code boolean} fields a
+ * {@link BitSet} and enum fields an {@code int[]} of ordinals, -1 for values decoded as null. Constant fields are
+ * skipped, as they are by decode. <br><br>
+ *
+ * The records are walked in blocks, filling every column for one block before moving on, so each record is read from
+ * memory once.
+ *
+ * @author Whimax07
+ */
+public final class BitColumns {
+
+    private static final int BLOCK = 1024;
+
+
+
+    private final int count;
+
+    private final Map<String, Column> columns;
+
+
+
+    private BitColumns(int count, Map<String, Column> columns) {
+        this.count = count;
+        this.columns = columns;
+    }
+
+    /** Decode {@code count} structs stored back to back from the start of the array. */
+    public static BitColumns decode(Class<? extends BitStruct> clazz, byte[] bytes, int count) {
+        return decode(clazz, MemorySegment.ofArray(bytes), 0, count);
+    }
+
+    /** Decode {@code count} structs stored back to back from the offset of the segment. */
+    public static BitColumns decode(Class<? extends BitStruct> clazz, MemorySegment segment, long offset, int count) {
+        if (clazz.isEnum()) throw new RuntimeException("Can't populate Enums classes.");
+
+        final BitLayout layout = BitLayout.of(clazz);
+        BitCodecs.checkBatch(segment, offset, count, layout.size);
+
+        final Map<String, Column> columns = new LinkedHashMap<>();
+        for (String path : leafPaths(layout)) {
+            columns.put(path, Column.of(FieldAccessor.of(clazz, path), count));
+        }
+
+        final Column[] toFill = columns.values().toArray(Column[]::new);
+        for (int from = 0; from < count; from += BLOCK) {
+            final int to = Math.min(count, from + BLOCK);
+            for (Column column : toFill) column.fill(segment, offset, layout.size, from, to);
+        }
+
+        return new BitColumns(count, columns);
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Columns.
+
+    /** Number of records decoded, the length of every column. */
+    public int count() {
+        return count;
+    }
+
+    /** The dotted paths of the columns, in field declaration order with nested fields in place of their struct. */
+    public List<String> paths() {
+        return List.copyOf(columns.keySet());
+    }
+
+    public byte[] bytes(String path) {
+        return column(path, byte[].class);
+    }
+
+    public short[] shorts(String path) {
+        return column(path, short[].class);
+    }
+
+    public int[] ints(String path) {
+        return column(path, int[].class);
+    }
+
+    public long[] longs(String path) {
+        return column(path, long[].class);
+    }
+
+    /** A {@code boolean} column, bit {@code i} is the value of record {@code i}. */
+    public BitSet booleans(String path) {
+        return column(path, BitSet.class);
+    }
+
+    /** An enum column as the ordinals of the constants, -1 for values decoded as null. */
+    public int[] ordinals(String path) {
+        final Column column = get(path);
+        if (!(column instanceof Column.Ordinals ordinals)) {
+            throw new RuntimeException("Column is not an enum. [Path=%s] ".formatted(path));
+        }
+        return ordinals.values;
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Private implementation.
+
+    private <A> A column(String path, Class<A> type) {
+        final Column column = get(path);
+        if (column instanceof Column.Ordinals || !type.isInstance(column.values())) {
+            throw new RuntimeException("Column is not of type %s. [Path=%s] ".formatted(type.getSimpleName(), path));
+        }
+        return type.cast(column.values());
+    }
+
+    private Column get(String path) {
+        final Column column = columns.get(path);
+        if (column == null) throw new RuntimeException("No column found. [Path=%s] ".formatted(path));
+        return column;
+    }
+
+    private static List<String> leafPaths(BitLayout layout) {
+        final List<String> paths = new ArrayList<>();
+        addLeafPaths(layout, "", paths);
+        return paths;
+    }
+
+    private static void addLeafPaths(BitLayout layout, String prefix, List<String> paths) {
+        for (FieldLayout field : layout.encodeFields) {
+            if (field.constant) continue;
+
+            final String name = prefix + field.field.getName();
+            if (!field.isArray()) {
+                addLeafPaths(field, name, paths);
+                continue;
+            }
+
+            for (int i = 0; i < field.count; i++) addLeafPaths(field, name + "[" + i + "]", paths);
+        }
+    }
+
+    private static void addLeafPaths(FieldLayout field, String path, List<String> paths) {
+        if (field.nested != null) {
+            addLeafPaths(field.nested, path + ".", paths);
+        } else {
+            paths.add(path);
+        }
+    }
+
+
+
+    /** A column being filled, one subclass per array type so the fill loops stay monomorphic. */
+    private abstract static sealed class Column {
+        final FieldAccessor accessor;
+
+        Column(FieldAccessor accessor) {
+            this.accessor = accessor;
+        }
+
+        static Column of(FieldAccessor accessor, int count) {
+            if (accessor.enumLookup() != null) return new Ordinals(accessor, count);
+
+            if (accessor.valueType() == null) {
+                throw new IllegalStateException("Unsupported type: " + accessor.type().getSimpleName());
+            }
+
+            return switch (accessor.valueType()) {
+                case BOOLEAN -> new Booleans(accessor, count);
+                case BYTE -> new Bytes(accessor, count);
+                case SHORT -> new Shorts(accessor, count);
+                case INT -> new Ints(accessor, count);
+                case LONG -> new Longs(accessor, count);
+            };
+        }
+
+        /** Fill records {@code [from, to)} of the run starting at offset. */
+        abstract void fill(MemorySegment segment, long offset, int size, int from, int to);
+
+        abstract Object values();
+
+        private static final class Booleans extends Column {
+            final BitSet values;
+
+            Booleans(FieldAccessor accessor, int count) {
+                super(accessor);
+                this.values = new BitSet(count);
+            }
+
+            @Override
+            void fill(MemorySegment segment, long offset, int size, int from, int to) {
+                for (int i = from; i < to; i++) {
+                    if (accessor.read(segment, offset + (long) i * size) != 0) values.set(i);
+                }
+            }
+
+            @Override
+            Object values() {
+                return values;
+            }
+        }
+
+        private static final class Bytes extends Column {
+            final byte[] values;
+
+            Bytes(FieldAccessor accessor, int count) {
+                super(accessor);
+                this.values = new byte[count];
+            }
+
+            @Override
+            void fill(MemorySegment segment, long offset, int size, int from, int to) {
+                for (int i = from; i < to; i++) values[i] = (byte) accessor.read(segment, offset + (long) i * size);
+            }
+
+            @Override
+            Object values() {
+                return values;
+            }
+        }
+
+        private static final class Shorts extends Column {
+            final short[] values;
+
+            Shorts(FieldAccessor accessor, int count) {
+                super(accessor);
+                this.values = new short[count];
+            }
+
+            @Override
+            void fill(MemorySegment segment, long offset, int size, int from, int to) {
+                for (int i = from; i < to; i++) values[i] = (short) accessor.read(segment, offset + (long) i * size);
+            }
+
+            @Override
+            Object values() {
+                return values;
+            }
+        }
+
+        private static final class Ints extends Column {
+            final int[] values;
+
+            Ints(FieldAccessor accessor, int count) {
+                super(accessor);
+                this.values = new int[count];
+            }
+
+            @Override
+            void fill(MemorySegment segment, long offset, int size, int from, int to) {
+                for (int i = from; i < to; i++) values[i] = (int) accessor.read(segment, offset + (long) i * size);
+            }
+
+            @Override
+            Object values() {
+                return values;
+            }
+        }
+
+        private static final class Longs extends Column {
+            final long[] values;
+
+            Longs(FieldAccessor accessor, int count) {
+                super(accessor);
+                this.values = new long[count];
+            }
+
+            @Override
+            void fill(MemorySegment segment, long offset, int size, int from, int to) {
+                for (int i = from; i < to; i++) values[i] = accessor.read(segment, offset + (long) i * size);
+            }
+
+            @Override
+            Object values() {
+                return values;
+            }
+        }
+
+        private static final class Ordinals extends Column {
+            final int[] values;
+
+            final BitEnumLookup<?> lookup;
+
+            Ordinals(FieldAccessor accessor, int count) {
+                super(accessor);
+                this.values = new int[count];
+                this.lookup = accessor.enumLookup();
+            }
+
+            @Override
+            void fill(MemorySegment segment, long offset, int size, int from, int to) {
+                for (int i = from; i < to; i++) {
+                    final Enum<?> constant = lookup.get(accessor.read(segment, offset + (long) i * size));
+                    values[i] = (constant == null) ? -1 : constant.ordinal();
+                }
+            }
+
+            @Override
+            Object values() {
+                return values;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,34 @@
+package org.example;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Use this annotation on a {@link BitEnum} to choose what decoding a value no constant has does.
+ *
+ * @author Whimax07
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface BitEnumDetails {
+
+    /** What to decode values that don't match any constant as. */
+    OnUnknown onUnknown() default OnUnknown.THROW;
+
+    /** Name of the constant unknown values decode as when {@link #onUnknown()} is {@link OnUnknown#CONSTANT}. */
+    String unknownConstant() default "UNKNOWN";
+
+
+
+    enum OnUnknown {
+        /** Throw an {@link IllegalStateException}. */
+        THROW,
+        /** Decode the field as null. */
+        NULL,
+        /** Decode the field as the constant named by {@link #unknownConstant()}. */
+        CONSTANT
+    }
+
+}
@@ -0,0 +1,190 @@
+package org.example;
+
+import org.example.BitEnumDetails.OnUnknown;
+
+import java.lang.reflect.Array;
+
+/**
+ * Finds the constant of a {@link BitEnum} with a given {@link BitEnum#val()}. <br><br>
+ *
+ * The lookup is built once per enum class and cached. Values in a small range are looked up in a dense array indexed
+ * by value, sparse values in an open addressing hash table, so neither boxes nor scans the constants. Two constants
+ * with the same value are rejected when the lookup is built. Values without a constant are handled as set by
+ * {@link BitEnumDetails}, and throw if the enum is not annotated. <br><br>
+ *
+ * Generated codecs use this class, it is public so they can reach it from any package.
+ *
+ * @author Whimax07
+ */
+public final class BitEnumLookup<E extends Enum<E> & BitEnum> {
+
+    /** Value ranges up to this wide always use the dense array. */
+    private static final int MIN_DENSE_SPAN = 256;
+
+    /** Wider ranges use the dense array while it has no more than this many slots per constant. */
+    private static final int DENSE_SLOTS_PER_CONSTANT = 4;
+
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private static final ClassValue<BitEnumLookup<?>> LOOKUPS = new ClassValue<>() {
+        @Override
+        protected BitEnumLookup<?> computeValue(Class<?> type) {
+            return create(type);
+        }
+    };
+
+
+
+    private final Class<E> type;
+
+    private final OnUnknown onUnknown;
+
+    /** The constant unknown values decode as, only set for {@link OnUnknown#CONSTANT}. */
+    private final E unknown;
+
+    /** Smallest value, the dense array is indexed by {@code val - min}. */
+    private final long min;
+
+    /** Constants indexed by value, or null if the values are sparse. */
+    private final E[] dense;
+
+    /** Hash table keys, unused if {@link #dense} is set. */
+    private final long[] keys;
+
+    /** Hash table constants, a null slot is empty. */
+    private final E[] values;
+
+    private final int hashShift;
+
+
+
+    private BitEnumLookup(Class<E> type) {
+        this.type = type;
+
+        final E[] constants = type.getEnumConstants();
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (E constant : constants) {
+            min = Math.min(min, constant.val());
+            max = Math.max(max, constant.val());
+        }
+
+        // An overflowing span is negative, those values are far too sparse for an array anyway.
+        final long span = max - min + 1;
+        final boolean isDense = constants.length > 0
+                && span > 0
+                && span <= Math.max(MIN_DENSE_SPAN, (long) DENSE_SLOTS_PER_CONSTANT * constants.length);
+
+        this.min = min;
+        if (isDense) {
+            this.dense = newArray(type, (int) span);
+            for (E constant : constants) {
+                final int index = (int) (constant.val() - min);
+                checkUnique(dense[index], constant);
+                dense[index] = constant;
+            }
+            this.keys = null;
+            this.values = null;
+            this.hashShift = 0;
+        } else {
+            // At most half full, so probes stay short.
+            final int capacity = Integer.highestOneBit(Math.max(1, constants.length) * 2 - 1) << 1;
+            this.dense = null;
+            this.keys = new long[capacity];
+            this.values = newArray(type, capacity);
+            this.hashShift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+            for (E constant : constants) {
+                final int slot = slot(constant.val());
+                checkUnique(values[slot], constant);
+                keys[slot] = constant.val();
+                values[slot] = constant;
+            }
+        }
+
+        final BitEnumDetails details = type.getDeclaredAnnotation(BitEnumDetails.class);
+        this.onUnknown = (details != null) ? details.onUnknown() : OnUnknown.THROW;
+        this.unknown = (onUnknown == OnUnknown.CONSTANT) ? unknownConstant(type, details.unknownConstant()) : null;
+    }
+
+    /** Returns the lookup of the enum class. */
+    @SuppressWarnings("unchecked") // Lookups are only ever created for their own enum class.
+    public static <E extends Enum<E> & BitEnum> BitEnumLookup<E> of(Class<E> type) {
+        return (BitEnumLookup<E>) LOOKUPS.get(type);
+    }
+
+    /** Returns the lookup of a class already known to be a {@link BitEnum} enum. */
+    static BitEnumLookup<?> forType(Class<?> type) {
+        return LOOKUPS.get(type);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"}) // Checked by create.
+    private static BitEnumLookup<?> create(Class<?> type) {
+        if (!type.isEnum() || !BitEnum.class.isAssignableFrom(type)) {
+            throw new IllegalStateException(type + " is not a BitEnum enum.");
+        }
+        return new BitEnumLookup(type);
+    }
+
+
+
+    /** Returns the constant with the value, or the {@link BitEnumDetails} fallback if there is none. */
+    public E get(long val) {
+        final E constant = find(val);
+        if (constant != null) return constant;
+
+        return switch (onUnknown) {
+            case NULL -> null;
+            case CONSTANT -> unknown;
+            case THROW -> throw new IllegalStateException(String.format(
+                    "No enum constant found. [Type=%s, Value=%s] ", type, val
+            ));
+        };
+    }
+
+    private E find(long val) {
+        if (dense != null) {
+            final long index = val - min;
+            return (index >= 0 && index < dense.length) ? dense[(int) index] : null;
+        }
+
+        for (int slot = hash(val); ; slot = (slot + 1) & (values.length - 1)) {
+            final E constant = values[slot];
+            if (constant == null || keys[slot] == val) return constant;
+        }
+    }
+
+    /** The slot of a value while building, the first empty slot or the slot already holding the value. */
+    private int slot(long val) {
+        int slot = hash(val);
+        while (values[slot] != null && keys[slot] != val) slot = (slot + 1) & (values.length - 1);
+        return slot;
+    }
+
+    private int hash(long val) {
+        return (int) ((val * HASH_MULTIPLIER) >>> hashShift);
+    }
+
+
+
+    private void checkUnique(E existing, E constant) {
+        if (existing == null) return;
+        throw new IllegalStateException(String.format(
+                "Duplicate BitEnum value. [Type=%s, Value=%s, Constants=%s, %s] ",
+                type, constant.val(), existing, constant
+        ));
+    }
+
+    private static <E extends Enum<E>> E unknownConstant(Class<E> type, String name) {
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException(type + " has no constant named " + name + " for unknown values.", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E[] newArray(Class<E> type, int length) {
+        return (E[]) Array.newInstance(type, length);
+    }
+
+}
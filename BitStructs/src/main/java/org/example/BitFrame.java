@@ -0,0 +1,123 @@
+package org.example;
+
+import org.example.BitDetails.ByteOrdering;
+import org.example.BitLayout.FieldLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the logical bits of a struct, bit 0 being the least significant bit, onto the bits of the bytes the outermost
+ * struct is stored in. A nested struct gets its own frame built on top of its parent's, so a field at any depth
+ * resolves to fixed byte indexes and shifts relative to the start of the outermost struct. <br><br>
+ *
+ * The annotation processor keeps its own copy of this frame, as it works on its compile time model of a struct rather
+ * than a {@link BitLayout}. The two agree through {@link #nested(int, int, int, boolean, boolean)}, which only takes
+ * plain numbers, and the processor's tests check them against each other.
+ *
+ * @author Whimax07
+ */
+interface BitFrame {
+
+    /** Returns the physical position of a logical bit as {@code byteIndex * 8 + bitInByte}, or -1 if not stored. */
+    int physical(int bit);
+
+
+
+    /** The frame of the outermost struct, occupying the bytes {@code [0, size)}. */
+    static BitFrame top(BitLayout layout) {
+        return top(layout.size, layout.ordering);
+    }
+
+    static BitFrame top(int size, ByteOrdering ordering) {
+        final boolean big = ordering == ByteOrdering.BIG;
+        return bit -> {
+            if (bit < 0 || bit >= size * 8) return -1;
+            final int logicalByte = bit >>> 3;
+            final int physicalByte = big ? size - 1 - logicalByte : logicalByte;
+            return physicalByte * 8 + (bit & 7);
+        };
+    }
+
+    /**
+     * The frame of the struct held in a field of this frame's struct, starting at bit {@code first}, as seen when
+     * decoding. The first bit is the field's own, or that of an element of an array field. The nested struct sees the
+     * field as a number written out in the parent's byte order, reversed over the width of the field if the orderings
+     * differ.
+     */
+    default BitFrame nested(FieldLayout field, int first, BitLayout parent) {
+        return nested(field, first, parent, true);
+    }
+
+    /**
+     * The frame of a nested struct as seen when decoding, or when encoding, where differing orderings reverse the
+     * bytes over the width of the nested struct instead of the field. The two only differ for fields wider than
+     * their struct.
+     */
+    default BitFrame nested(FieldLayout field, int first, BitLayout parent, boolean decode) {
+        return nested(first, field.len, field.nested.size, parent.ordering == field.nested.ordering, decode);
+    }
+
+    /**
+     * The frame of a struct of {@code childSize} bytes nested in the bits {@code [first, first + len)} of this frame.
+     */
+    default BitFrame nested(int first, int len, int childSize, boolean sameOrder, boolean decode) {
+        final int childBits = childSize * 8;
+        final int reverseWidth = decode ? (len + 7) / 8 : childSize;
+
+        return bit -> {
+            if (bit < 0 || bit >= childBits) return -1;
+            final int childByte = bit >>> 3;
+            final int valueByte = sameOrder ? childByte : reverseWidth - 1 - childByte;
+            if (valueByte < 0) return -1;
+
+            final int valueBit = valueByte * 8 + (bit & 7);
+            if (valueBit >= len) return -1;
+            return physical(first + valueBit);
+        };
+    }
+
+    /** Splits the bits {@code [first, first + len)} into runs that each sit in a single physical byte. */
+    default List<Chunk> chunks(int first, int len) {
+        final List<Chunk> chunks = new ArrayList<>();
+        Chunk current = null;
+
+        for (int valueBit = 0; valueBit < len; valueBit++) {
+            final int position = physical(first + valueBit);
+            if (position < 0) {
+                current = null;
+                continue;
+            }
+
+            final int byteIndex = position >>> 3;
+            final int shift = position & 7;
+            final boolean continuesRun = current != null
+                    && current.byteIndex == byteIndex
+                    && current.shift + current.width == shift
+                    && current.valueBit + current.width == valueBit;
+
+            if (continuesRun) {
+                current = new Chunk(byteIndex, current.shift, current.valueBit, current.width + 1);
+                chunks.set(chunks.size() - 1, current);
+            } else {
+                current = new Chunk(byteIndex, shift, valueBit, 1);
+                chunks.add(current);
+            }
+        }
+
+        return chunks;
+    }
+
+
+
+    /**
+     * A run of {@code width} bits of a field value, starting at {@code valueBit}, stored in the physical byte
+     * {@code byteIndex} starting at bit {@code shift}.
+     */
+    record Chunk(int byteIndex, int shift, int valueBit, int width) {
+        long mask() {
+            return (1L << width) - 1;
+        }
+    }
+
+}
@@ -0,0 +1,299 @@
+package org.example;
+
+import org.example.BitDetails.ByteOrdering;
+
+import java.lang.reflect.AccessFlag;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static java.util.function.Predicate.not;
+
+/**
+ * The compiled, immutable form of a {@link BitStruct} class. All the reflection needed by {@link BitStruct#decode}
+ * and {@link BitStruct#encode} is done once per class, the first time the class is used, and cached here. Nothing here
+ * is made accessible, {@link HandleCodec} binds the fields and constructor through a private lookup.
+ *
+ * @author Whimax07
+ */
+final class BitLayout {
+
+    private static final ClassValue<BitLayout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected BitLayout computeValue(Class<?> type) {
+            return new BitLayout(type);
+        }
+    };
+
+
+
+    final Class<?> clazz;
+
+    final ByteOrdering ordering;
+
+    /** Size in bytes of the serialized form. */
+    final int size;
+
+    /** All {@link BitVal} fields, in declaration order. */
+    final List<FieldLayout> encodeFields;
+
+    /** The non-constant {@link BitVal} fields, in the parameter order of {@link #constructor}. */
+    final List<FieldLayout> decodeFields;
+
+    /** The "all args" constructor, or null if the class does not have one. */
+    final Constructor<?> constructor;
+
+
+
+    private BitLayout(Class<?> clazz) {
+        this.clazz = clazz;
+
+        final List<Field> bitValFields = Arrays.stream(clazz.getDeclaredFields())
+                .filter(not(BitLayout::isStatic))
+                .filter(BitLayout::hasBitValAnnotation)
+                .toList();
+
+        this.ordering = getByteOrdering(clazz);
+        this.size = getByteArraySize(clazz, bitValFields);
+        this.encodeFields = bitValFields.stream().map(field -> new FieldLayout(field, size, ordering)).toList();
+
+        final ArrayList<FieldLayout> toDecode = encodeFields.stream()
+                .filter(not(FieldLayout::constant))
+                .collect(Collectors.toCollection(ArrayList::new));
+        final List<String> fieldNames = toDecode.stream().map(fieldLayout -> fieldLayout.field.getName()).toList();
+
+        this.constructor = Arrays.stream(clazz.getDeclaredConstructors())
+                .filter(allFieldConstructor(fieldNames))
+                .findAny()
+                .orElse(null);
+
+        if (constructor != null) toDecode.sort(constructorOrdering(constructor));
+        this.decodeFields = List.copyOf(toDecode);
+    }
+
+    static BitLayout of(Class<?> clazz) {
+        return LAYOUTS.get(clazz);
+    }
+
+
+
+    private static boolean isStatic(Field field) {
+        return field.accessFlags().contains(AccessFlag.STATIC);
+    }
+
+    private static boolean hasBitValAnnotation(Field field) {
+        return Arrays.stream(field.getAnnotations()).anyMatch(BitVal.class::isInstance);
+    }
+
+    private static ByteOrdering getByteOrdering(Class<?> clazz) {
+        final BitDetails bitDetails = clazz.getDeclaredAnnotation(BitDetails.class);
+        return (bitDetails != null) ? bitDetails.byteOrdering() : ByteOrdering.BIG;
+    }
+
+    private static int getByteArraySize(Class<?> clazz, List<Field> bitValFields) {
+        final BitDetails annotation = clazz.getDeclaredAnnotation(BitDetails.class);
+        if (annotation != null && annotation.len() != BitDetails.UNSET) {
+            return annotation.len();
+        }
+
+        // Deduce how bit the struct takes up by finding the largest BitVal field.
+        final int numBits = bitValFields.stream()
+                .map(field -> field.getDeclaredAnnotation(BitVal.class))
+                .mapToInt(BitLayout::end)
+                .max()
+                .orElseThrow(() -> new RuntimeException("No BitVal fields found."));
+
+        return (numBits + 7) / 8;
+    }
+
+    /** One past the last bit of the field, of the last element for arrays. */
+    private static int end(BitVal bitVal) {
+        final int stride = (bitVal.stride() > 0) ? bitVal.stride() : bitVal.len();
+        return (bitVal.count() > 0) ? bitVal.first() + (bitVal.count() - 1) * stride + bitVal.len()
+                : bitVal.first() + bitVal.len();
+    }
+
+    private static Predicate<Constructor<?>> allFieldConstructor(List<String> fieldNames) {
+        return constructor -> allFieldConstructor(constructor, fieldNames);
+    }
+
+    private static boolean allFieldConstructor(Constructor<?> constructor, List<String> fieldNames) {
+        final HashSet<String> constructParamNames = Arrays.stream(constructor.getParameters())
+                .map(Parameter::getName)
+                .collect(Collectors.toCollection(HashSet::new));
+
+        return constructParamNames.equals(new HashSet<>(fieldNames));
+    }
+
+    private static Comparator<FieldLayout> constructorOrdering(Constructor<?> constructor) {
+        final List<String> paramNames = Arrays.stream(constructor.getParameters())
+                .map(Parameter::getName)
+                .toList();
+        return Comparator.comparingInt(fieldLayout -> paramNames.indexOf(fieldLayout.field.getName()));
+    }
+
+
+
+    /** A single {@link BitVal} field of a {@link BitLayout}. */
+    static final class FieldLayout {
+        final Field field;
+
+        final int first;
+
+        final int len;
+
+        final boolean constant;
+
+        /** Number of elements of an array field, 0 for other fields. */
+        final int count;
+
+        /** Bits from the start of one array element to the start of the next. */
+        final int stride;
+
+        /**
+         * The declared type of the field, with primitives mapped to their boxed type. For a {@link Lazy} field this
+         * is the type of the nested struct, and for an array the type of its elements.
+         */
+        final Class<?> baseType;
+
+        /** True if the field is a {@link Lazy} nested struct. */
+        final boolean lazy;
+
+        /** The type of the field, or of its elements, if it holds an integer or boolean, otherwise null. */
+        final ValueType valueType;
+
+        /** The layout of the field's type if it is a {@link BitStruct}, otherwise null. */
+        final BitLayout nested;
+
+        /** The lookup of the field's type if it is a {@link BitEnum}, otherwise null. */
+        final BitEnumLookup<?> enumLookup;
+
+        /** Where the field is stored, the first element for arrays. */
+        final BitSpan span;
+
+        /** Where each element of an array field is stored, empty for other fields. */
+        final BitSpan[] elementSpans;
+
+        private FieldLayout(Field field, int size, ByteOrdering ordering) {
+            final BitVal bitVal = field.getDeclaredAnnotation(BitVal.class);
+            this.field = field;
+            this.first = bitVal.first();
+            this.len = bitVal.len();
+            this.constant = bitVal.constant();
+            this.count = bitVal.count();
+            this.stride = (bitVal.stride() > 0) ? bitVal.stride() : bitVal.len();
+            this.lazy = Lazy.class.equals(field.getType());
+            this.baseType = lazy ? getLazyType(field) : getBaseType(getElementType(field, bitVal));
+            this.valueType = lazy ? null : ValueType.of(baseType);
+            this.nested = BitStruct.class.isAssignableFrom(baseType) ? BitLayout.of(baseType) : null;
+            this.enumLookup = isBitEnum(baseType) ? BitEnumLookup.forType(baseType) : null;
+
+            this.span = BitSpan.of(first, len, size, ordering);
+            this.elementSpans = new BitSpan[count];
+            for (int i = 0; i < count; i++) elementSpans[i] = BitSpan.of(elementFirst(i), len, size, ordering);
+        }
+
+        boolean constant() {
+            return constant;
+        }
+
+        boolean isArray() {
+            return count > 0;
+        }
+
+        /** The first bit of an element of an array field. */
+        int elementFirst(int index) {
+            return first + index * stride;
+        }
+    }
+
+    private static Class<?> getElementType(Field field, BitVal bitVal) {
+        final Class<?> type = field.getType();
+        if (type.isArray() != (bitVal.count() > 0)) {
+            throw new IllegalStateException("Array fields, and only array fields, need a BitVal count. Field=" + field);
+        }
+        if (bitVal.count() > 0 && bitVal.stride() != 0 && bitVal.stride() < bitVal.len()) {
+            throw new IllegalStateException("BitVal stride is shorter than the elements. Field=" + field);
+        }
+
+        return type.isArray() ? type.getComponentType() : type;
+    }
+
+    private static Class<?> getBaseType(Class<?> type) {
+        final ValueType valueType = ValueType.of(type);
+        if (valueType != null) return valueType.boxed;
+
+        final boolean isGood = BitStruct.class.isAssignableFrom(type) || BitEnum.class.isAssignableFrom(type);
+        if (isGood) return type;
+
+        throw new IllegalStateException("Unsupported type: " + type.getSimpleName());
+    }
+
+    private static Class<?> getLazyType(Field field) {
+        final boolean hasStructArgument = field.getGenericType() instanceof ParameterizedType parameterized
+                && parameterized.getActualTypeArguments()[0] instanceof Class<?> argument
+                && BitStruct.class.isAssignableFrom(argument);
+        if (!hasStructArgument) {
+            throw new IllegalStateException("Lazy fields need a BitStruct type argument. Field=" + field);
+        }
+
+        return (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+    }
+
+    private static boolean isBitEnum(Class<?> type) {
+        return type.isEnum() && BitEnum.class.isAssignableFrom(type);
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Value types.
+
+    /** The integer types a field can hold, primitive or boxed, so decode never dispatches on the class itself. */
+    enum ValueType {
+        BOOLEAN(boolean.class, Boolean.class),
+        BYTE(byte.class, Byte.class),
+        SHORT(short.class, Short.class),
+        INT(int.class, Integer.class),
+        LONG(long.class, Long.class);
+
+        private static final ValueType[] VALUES = values();
+
+        final Class<?> primitive;
+
+        final Class<?> boxed;
+
+        ValueType(Class<?> primitive, Class<?> boxed) {
+            this.primitive = primitive;
+            this.boxed = boxed;
+        }
+
+        /** The value type of a primitive or boxed class, or null if it isn't one. */
+        static ValueType of(Class<?> type) {
+            for (ValueType valueType : VALUES) {
+                if (valueType.primitive == type || valueType.boxed == type) return valueType;
+            }
+            return null;
+        }
+
+        /** The bits read from a field narrowed to the type and boxed. */
+        Object box(long bits) {
+            return switch (this) {
+                case BOOLEAN -> bits != 0;
+                case BYTE -> (byte) bits;
+                case SHORT -> (short) bits;
+                case INT -> (int) bits;
+                case LONG -> bits;
+            };
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.example;
+
+/**
+ * Receives a measurement for every {@link BitStruct} decode and encode, see {@link #register(BitMetrics)}. <br><br>
+ *
+ * Metrics are off until the first one is registered, then the codecs handed out by {@link BitStruct#decode} and
+ * {@link BitStruct#encode}, and the calls built on them, are timed. While none is registered the only cost is a
+ * check of a field. Implementations are called on the thread doing the work and must be thread safe. <br><br>
+ *
+ * Implementations listed in {@code META-INF/services/org.example.BitMetrics} are registered when the first codec is
+ * looked up, and starting the JVM with {@code -Dbitstructs.metrics.jfr=true} registers {@link #flightRecorder()}.
+ * {@link BitMetricsRecorder} keeps counts and latency histograms per struct class in memory.
+ *
+ * @author Whimax07
+ */
+public interface BitMetrics {
+
+    enum Operation { DECODE, ENCODE }
+
+    /**
+     * A struct was decoded or encoded.
+     *
+     * @param bytes Size of the serialized struct.
+     * @param nanos Time taken, nested structs included.
+     */
+    void completed(Class<? extends BitStruct> type, Operation operation, int bytes, long nanos);
+
+    /** A decode or encode threw, for example because the source was too small or an enum value had no constant. */
+    void failed(Class<? extends BitStruct> type, Operation operation, RuntimeException error);
+
+
+
+    // =================================================================================================================
+    // ===> Registration.
+
+    /** Start sending measurements to metrics. Registering the same instance twice has no effect. */
+    static void register(BitMetrics metrics) {
+        Metering.register(metrics);
+    }
+
+    /** Stop sending measurements to metrics. Once none are left the codecs are no longer timed. */
+    static void unregister(BitMetrics metrics) {
+        Metering.unregister(metrics);
+    }
+
+    /**
+     * Metrics that commit a {@code org.example.Decode} or {@code org.example.Encode} Flight Recorder event per call,
+     * with the struct class, size, latency and the error if there was one. Register it and enable the events in a
+     * recording to see the hot struct types in JMC.
+     */
+    static BitMetrics flightRecorder() {
+        return CodecEvents.INSTANCE;
+    }
+
+}
@@ -0,0 +1,123 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * {@link BitMetrics} that keep, per struct class and operation, the call count, the bytes processed, the error count
+ * and a latency histogram. Register it to start counting.
+ *
+ * <pre>{@code
+ * final BitMetricsRecorder recorder = new BitMetricsRecorder();
+ * BitMetrics.register(recorder);
+ * ...
+ * recorder.stats(BitMetrics.Operation.DECODE)
+ *         .forEach((type, stats) -> log(type, stats.calls(), stats.percentile(0.99)));
+ * }</pre>
+ *
+ * @author Whimax07
+ */
+public final class BitMetricsRecorder implements BitMetrics {
+
+    /** Histogram bucket {@code i} counts the calls that took {@code [2^i, 2^(i + 1))} nanoseconds. */
+    public static final int BUCKETS = 64;
+
+    private final Map<Class<? extends BitStruct>, Counters[]> counters = new ConcurrentHashMap<>();
+
+
+
+    @Override
+    public void completed(Class<? extends BitStruct> type, Operation operation, int bytes, long nanos) {
+        final Counters counter = counters(type, operation);
+        counter.calls.increment();
+        counter.bytes.add(bytes);
+        counter.latencies.incrementAndGet(bucket(nanos));
+    }
+
+    @Override
+    public void failed(Class<? extends BitStruct> type, Operation operation, RuntimeException error) {
+        counters(type, operation).errors.increment();
+    }
+
+    /** What has been recorded for the class, all zeros if nothing has. */
+    public Stats stats(Class<? extends BitStruct> type, Operation operation) {
+        final Counters[] forType = counters.get(type);
+        return (forType == null) ? new Stats(0, 0, 0, new long[BUCKETS]) : forType[operation.ordinal()].stats();
+    }
+
+    /** What has been recorded for each class seen so far. */
+    public Map<Class<? extends BitStruct>, Stats> stats(Operation operation) {
+        return counters.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue()[operation.ordinal()].stats()));
+    }
+
+    public void reset() {
+        counters.clear();
+    }
+
+
+
+    private Counters counters(Class<? extends BitStruct> type, Operation operation) {
+        Counters[] forType = counters.get(type);
+        if (forType == null) {
+            forType = counters.computeIfAbsent(type, ignored -> new Counters[] {new Counters(), new Counters()});
+        }
+        return forType[operation.ordinal()];
+    }
+
+    private static int bucket(long nanos) {
+        return 63 - Long.numberOfLeadingZeros(Math.max(nanos, 1));
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Stats.
+
+    /**
+     * A snapshot of the counters of one struct class and operation.
+     *
+     * @param latencies The histogram, see {@link #BUCKETS}.
+     */
+    public record Stats(long calls, long bytes, long errors, long[] latencies) {
+
+        /**
+         * An upper bound in nanoseconds of the latency under which the fraction of calls fall, the top of the
+         * histogram bucket it lands in. Zero if there were no calls.
+         */
+        public long percentile(double fraction) {
+            final long total = Arrays.stream(latencies).sum();
+            if (total == 0) return 0;
+
+            final long rank = (long) Math.ceil(fraction * total);
+            long seen = 0;
+            for (int i = 0; i < latencies.length; i++) {
+                seen += latencies[i];
+                if (seen >= rank) return (i == BUCKETS - 1) ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+            return Long.MAX_VALUE;
+        }
+
+    }
+
+    private static final class Counters {
+        private final LongAdder calls = new LongAdder();
+
+        private final LongAdder bytes = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        private final AtomicLongArray latencies = new AtomicLongArray(BUCKETS);
+
+        private Stats stats() {
+            final long[] histogram = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) histogram[i] = latencies.get(i);
+            return new Stats(calls.sum(), bytes.sum(), errors.sum(), histogram);
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+package org.example;
+
+import org.example.BitDetails.ByteOrdering;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.List;
+
+/**
+ * The bytes a run of bits of a struct is stored in, worked out once when the {@link BitLayout} or codec is built. Each
+ * byte comes with its offset from the start of the outermost struct, already resolved for the byte ordering of every
+ * struct on the way down, its shifts into the value and the mask of the bits the run owns, so reading and writing is a
+ * loop of table lookups. <br><br>
+ *
+ * Values are unsigned, narrowing them to the field type is left to the caller. Bits the frame doesn't store, such as
+ * those past the end of the struct, read as zero and are dropped when written. Runs wider than 64 bits read their low
+ * 64 bits, and are written with the bits above those filled with the sign of the value, as the {@code BigInteger}
+ * encoder always did.
+ *
+ * @author Whimax07
+ */
+final class BitSpan {
+
+    private static final BitSpan EMPTY = new BitSpan(List.of(), List.of());
+
+    /** Offset from the start of the outermost struct of each byte the run touches. */
+    private final int[] offsets;
+
+    /** Where the bits of each byte start in the byte. */
+    private final int[] shifts;
+
+    /** Where the bits of each byte start in the value. */
+    private final int[] valueBits;
+
+    /** The bits of each byte that belong to the run. */
+    private final byte[] byteMasks;
+
+    /** Offset of each byte holding the bits past the low 64 of the run, empty for runs of 64 bits or fewer. */
+    private final int[] signOffsets;
+
+    /** The bits of each of {@link #signOffsets} that belong to the run. */
+    private final byte[] signMasks;
+
+
+
+    private BitSpan(List<BitFrame.Chunk> chunks, List<BitFrame.Chunk> signChunks) {
+        final int bytes = chunks.size();
+        this.offsets = new int[bytes];
+        this.shifts = new int[bytes];
+        this.valueBits = new int[bytes];
+        this.byteMasks = new byte[bytes];
+        for (int i = 0; i < bytes; i++) {
+            final BitFrame.Chunk chunk = chunks.get(i);
+            offsets[i] = chunk.byteIndex();
+            shifts[i] = chunk.shift();
+            valueBits[i] = chunk.valueBit();
+            byteMasks[i] = (byte) (chunk.mask() << chunk.shift());
+        }
+
+        this.signOffsets = signChunks.stream().mapToInt(BitFrame.Chunk::byteIndex).toArray();
+        this.signMasks = new byte[signOffsets.length];
+        for (int i = 0; i < signMasks.length; i++) {
+            final BitFrame.Chunk chunk = signChunks.get(i);
+            signMasks[i] = (byte) (chunk.mask() << chunk.shift());
+        }
+    }
+
+    /** The run of the bits {@code [first, first + len)} as stored by the frame. */
+    static BitSpan of(BitFrame frame, int first, int len) {
+        if (len == 0) return EMPTY;
+
+        final int low = Math.min(len, Long.SIZE);
+        return new BitSpan(frame.chunks(first, low), frame.chunks(first + low, len - low));
+    }
+
+    /** The run of the bits {@code [first, first + len)} in an outermost struct of size bytes. */
+    static BitSpan of(int first, int len, int size, ByteOrdering ordering) {
+        return of(BitFrame.top(size, ordering), first, len);
+    }
+
+
+
+    long read(MemorySegment segment, long base) {
+        long result = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            final long current = segment.get(ValueLayout.JAVA_BYTE, base + offsets[i]) & byteMasks[i] & 0xFFL;
+            result |= (current >>> shifts[i]) << valueBits[i];
+        }
+        return result;
+    }
+
+    /**
+     * Write the low bits of value, and the sign of value into any bits past the low 64, leaving the other bits of the
+     * bytes untouched.
+     */
+    void write(MemorySegment segment, long base, long value) {
+        for (int i = 0; i < offsets.length; i++) {
+            final long index = base + offsets[i];
+            final byte current = segment.get(ValueLayout.JAVA_BYTE, index);
+            final byte bits = (byte) ((value >>> valueBits[i]) << shifts[i]);
+            segment.set(ValueLayout.JAVA_BYTE, index, (byte) ((current & ~byteMasks[i]) | (bits & byteMasks[i])));
+        }
+
+        final byte sign = (byte) (value >> (Long.SIZE - 1));
+        for (int i = 0; i < signOffsets.length; i++) {
+            final long index = base + signOffsets[i];
+            final byte current = segment.get(ValueLayout.JAVA_BYTE, index);
+            segment.set(ValueLayout.JAVA_BYTE, index, (byte) ((current & ~signMasks[i]) | (sign & signMasks[i])));
+        }
+    }
+
+}
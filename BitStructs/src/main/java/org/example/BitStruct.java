@@ -0,0 +1,236 @@
+package org.example;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Implement this interface to add serialization and deserialization for fields marked with {@link BitVal}.
+ *
+ * @author Whimax07
+ */
+public interface BitStruct {
+
+    // =================================================================================================================
+    // ===> Public interface.
+
+    /**
+     * Serialize fields marked with {@link BitVal} according to the parameter defined by {@link BitDetails} recursively.
+     * Uses the generated {@link BitCodec} of the class if there is one.
+     */
+    default byte[] encode() {
+        return BitCodecs.of(this).encode(this);
+    }
+
+    /**
+     * Serialize into the bytes {@code [offset, offset + size)} of the array, writing the same bytes {@link #encode()}
+     * returns. Nested structs are written in place, no intermediate arrays are made.
+     *
+     * @return The number of bytes written.
+     */
+    default int encodeInto(byte[] bytes, int offset) {
+        return BitCodecs.of(this).encodeInto(this, bytes, offset);
+    }
+
+    /**
+     * Serialize at the position of the buffer, writing the same bytes {@link #encode()} returns. The position of the
+     * buffer is not changed, advance it by the returned count to append the next struct.
+     *
+     * @return The number of bytes written.
+     */
+    default int encodeInto(ByteBuffer buffer) {
+        return BitCodecs.of(this).encodeInto(this, buffer);
+    }
+
+    /**
+     * Serialize into the bytes {@code [offset, offset + size)} of the segment, writing the same bytes
+     * {@link #encode()} returns.
+     *
+     * @return The number of bytes written.
+     */
+    default int encodeInto(MemorySegment segment, long offset) {
+        return BitCodecs.of(this).encodeInto(this, segment, offset);
+    }
+
+    /**
+     * Deserialize fields marked with {@link BitVal} according to the parameter defined by {@link BitDetails}
+     * recursively. Uses the generated {@link BitCodec} of the class if there is one. <br><br>
+     *
+     * If the array is longer than the struct, a big endian struct is read from the end of the array and a little
+     * endian struct from the start.
+     */
+    static <T extends BitStruct> T decode(Class<T> clazz, byte[] bytes) {
+        checkNotEnum(clazz);
+        return BitCodecs.of(clazz).decode(bytes);
+    }
+
+    /**
+     * Deserialize a struct stored in the bytes {@code [offset, offset + size)} of the segment, whatever its byte
+     * ordering. The fields are read in place, nothing is copied out of the segment first.
+     */
+    static <T extends BitStruct> T decode(Class<T> clazz, MemorySegment segment, long offset) {
+        checkNotEnum(clazz);
+        return BitCodecs.of(clazz).decode(segment, offset);
+    }
+
+    /**
+     * Deserialize a struct stored at the position of the buffer, whatever its byte ordering. The fields are read in
+     * place and the position of the buffer is not changed. Works with heap and direct buffers.
+     */
+    static <T extends BitStruct> T decode(Class<T> clazz, ByteBuffer buffer) {
+        checkNotEnum(clazz);
+        return BitCodecs.of(clazz).decode(buffer);
+    }
+
+    /**
+     * Overwrite the fields of a mutable struct, one whose {@link BitVal} fields aren't final, with the struct in the
+     * array, read the same way {@link #decode(Class, byte[])} reads it. No new struct is made. Nested structs and
+     * arrays already in the target are decoded into, null nested structs are taken from
+     * {@link BitStructPool#perThread()}. {@link Lazy} fields already in the target are pointed at the new source and
+     * forget their old value, null ones get a new {@link Lazy}. Always uses the reflective codec. <br><br>
+     *
+     * The array is wrapped in a {@link MemorySegment} on each call, decode into a reused target from a segment with
+     * {@link #decodeInto(BitStruct, MemorySegment, long)} to not allocate at all.
+     *
+     * @return The target.
+     */
+    static <T extends BitStruct> T decodeInto(T target, byte[] bytes) {
+        final int size = BitCodecs.of(target).size();
+        if (bytes.length < size) throw new RuntimeException("Passed in byte array is to small. Required size: " + size);
+
+        // Big endian structs are read from the end of the array, little endian ones from the start.
+        final boolean big = BitLayout.of(target.getClass()).ordering == BitDetails.ByteOrdering.BIG;
+        return decodeInto(target, MemorySegment.ofArray(bytes), big ? bytes.length - size : 0);
+    }
+
+    /** Same as {@link #decodeInto(BitStruct, byte[])}, for the struct at the offset of the segment. */
+    static <T extends BitStruct> T decodeInto(T target, MemorySegment segment, long offset) {
+        return decodeInto(target, segment, offset, BitStructPool.perThread());
+    }
+
+    /** Same as {@link #decodeInto(BitStruct, byte[])}, taking missing nested structs from the given pool. */
+    static <T extends BitStruct> T decodeInto(T target, MemorySegment segment, long offset, BitStructPool pool) {
+        return BitCodecs.of(target).decodeInto(target, segment, offset, pool);
+    }
+
+    /**
+     * Read a single field without decoding the struct. The field is named by a dotted path through nested struct
+     * fields, for example {@code "statusReg.status"}, and the array is read the same way
+     * {@link #decode(Class, byte[])} reads it. No constructors are called and no other field is read. <br><br>
+     *
+     * Returns the boxed primitive or the enum constant. Use a {@link FieldAccessor} in loops, it skips the path lookup.
+     */
+    static Object readField(Class<? extends BitStruct> clazz, byte[] bytes, String path) {
+        checkNotEnum(clazz);
+        return FieldAccessor.of(clazz, path).get(bytes);
+    }
+
+    /** Same as {@link #readField(Class, byte[], String)}, for the struct at the offset of the segment. */
+    static Object readField(Class<? extends BitStruct> clazz, MemorySegment segment, long offset, String path) {
+        checkNotEnum(clazz);
+        return FieldAccessor.of(clazz, path).get(segment, offset);
+    }
+
+
+    /**
+     * Deserialize {@code count} structs stored back to back from the start of the array. Each struct takes
+     * {@link BitDetails#len()} bytes, or the size deduced from its fields, whatever its byte ordering.
+     */
+    static <T extends BitStruct> List<T> decodeAll(Class<T> clazz, byte[] bytes, int count) {
+        return decodeAll(clazz, MemorySegment.ofArray(bytes), 0, count);
+    }
+
+    /**
+     * Deserialize {@code count} structs stored back to back from the position of the buffer. The position of the
+     * buffer is not changed.
+     */
+    static <T extends BitStruct> List<T> decodeAll(Class<T> clazz, ByteBuffer buffer, int count) {
+        return decodeAll(clazz, MemorySegment.ofBuffer(buffer), 0, count);
+    }
+
+    /** Deserialize {@code count} structs stored back to back from the offset of the segment. */
+    static <T extends BitStruct> List<T> decodeAll(Class<T> clazz, MemorySegment segment, long offset, int count) {
+        checkNotEnum(clazz);
+        return BitCodecs.of(clazz).decodeAll(segment, offset, count);
+    }
+
+    /** Fill out with the structs stored back to back from the start of the array. */
+    static <T extends BitStruct> void decodeAll(Class<T> clazz, byte[] bytes, T[] out) {
+        decodeAll(clazz, MemorySegment.ofArray(bytes), 0, out);
+    }
+
+    /** Fill out with the structs stored back to back from the position of the buffer, leaving the position alone. */
+    static <T extends BitStruct> void decodeAll(Class<T> clazz, ByteBuffer buffer, T[] out) {
+        decodeAll(clazz, MemorySegment.ofBuffer(buffer), 0, out);
+    }
+
+    /** Fill out with the structs stored back to back from the offset of the segment. */
+    static <T extends BitStruct> void decodeAll(Class<T> clazz, MemorySegment segment, long offset, T[] out) {
+        checkNotEnum(clazz);
+        BitCodecs.of(clazz).decodeAll(segment, offset, out);
+    }
+
+
+    /**
+     * A stream of {@code count} structs stored back to back from the offset of the segment. Records are decoded as the
+     * stream reaches them, and the stream splits by record range, so {@link Stream#parallel()} decodes them across the
+     * common {@link java.util.concurrent.ForkJoinPool} and keeps their order. <br><br>
+     *
+     * A parallel stream reads the segment from several threads, so the segment must not be confined to one thread.
+     */
+    static <T extends BitStruct> Stream<T> stream(Class<T> clazz, MemorySegment segment, long offset, int count) {
+        checkNotEnum(clazz);
+        return StreamSupport.stream(RecordSpliterator.of(BitCodecs.of(clazz), segment, offset, count), false);
+    }
+
+    /**
+     * Same as {@link #decodeAll(Class, MemorySegment, long, int)}, but the records are decoded in parallel. The result
+     * is in record order and equal to the sequential decode. The segment must not be confined to one thread.
+     */
+    static <T extends BitStruct> List<T> decodeParallel(Class<T> clazz, MemorySegment segment, long offset, int count) {
+        return stream(clazz, segment, offset, count).parallel().toList();
+    }
+
+    /**
+     * Serialize the structs back to back from the offset of the segment, in parallel, writing the same bytes as calling
+     * {@link #encodeInto(MemorySegment, long)} on each in turn. The structs may be of different classes. The segment
+     * must not be confined to one thread.
+     *
+     * @return The number of bytes written.
+     */
+    static long encodeAllParallel(List<? extends BitStruct> structs, MemorySegment segment, long offset) {
+        final BitStruct[] toEncode = structs.toArray(BitStruct[]::new);
+
+        // Offsets are a running sum of the sizes, so each struct can be written independently.
+        final long[] offsets = new long[toEncode.length + 1];
+        offsets[0] = offset;
+        for (int i = 0; i < toEncode.length; i++) {
+            offsets[i + 1] = offsets[i] + BitCodecs.of(toEncode[i]).size();
+        }
+
+        final long written = offsets[toEncode.length] - offset;
+        if (offset < 0 || segment.byteSize() - offset < written) {
+            throw new RuntimeException(
+                    "Destination is to small. Required size: " + written + " bytes from offset " + offset
+            );
+        }
+
+        IntStream.range(0, toEncode.length)
+                .parallel()
+                .forEach(i -> toEncode[i].encodeInto(segment, offsets[i]));
+        return written;
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Private implementation.
+
+    private static void checkNotEnum(Class<?> clazz) {
+        if (clazz.isEnum()) throw new RuntimeException("Can't populate Enums classes.");
+    }
+
+}
@@ -0,0 +1,30 @@
+package org.example;
+
+/**
+ * Supplies the instances {@link BitStruct#decodeInto} fills when a nested struct field of the target, or an element
+ * of a nested struct array, is null. Give structs back once nothing reads them and a steady stream of frames decoded
+ * from a segment into the same target doesn't allocate. <br><br>
+ *
+ * Implement it to pool instances another way, {@link #perThread()} is the one used by default.
+ *
+ * @author Whimax07
+ */
+public interface BitStructPool {
+
+    /** An instance of the class to be overwritten, taken from the pool or made if the pool has none. */
+    <S extends BitStruct> S take(Class<S> type);
+
+    /** Hand an instance back to be reused, once nothing reads it any more. */
+    void give(BitStruct struct);
+
+
+
+    /**
+     * A pool with a free list per thread and class, so a struct must be given back on the thread that takes it to be
+     * reused there. New instances are made with the class's no args constructor.
+     */
+    static BitStructPool perThread() {
+        return PerThreadPool.INSTANCE;
+    }
+
+}
@@ -0,0 +1,257 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Decodes a continuous stream of back to back structs read from a {@link ReadableByteChannel} or an
+ * {@link InputStream}. <br><br>
+ *
+ * A single read buffer is reused for the life of the reader and structs are decoded in place from it. When a frame
+ * crosses the end of the buffer only its partial tail is moved to the front before the next read, so there is no copy
+ * per frame. The structs can be pulled with {@link #hasNext()} and {@link #next()}, as a {@link #stream()}, or pushed
+ * with demand driven back pressure through a {@link #publisher(Executor)}. <br><br>
+ *
+ * The source should be blocking. A reader is not thread safe, use it from one thread or through its publisher.
+ *
+ * @author Whimax07
+ */
+public final class BitStructReader<T extends BitStruct> implements Iterator<T>, AutoCloseable {
+
+    /** Default size of the read buffer, rounded up to hold at least one frame. */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final BitCodec<T> codec;
+
+    private final ReadableByteChannel channel;
+
+    /** Unread bytes are {@code [position, limit)}. */
+    private final ByteBuffer buffer;
+
+    /** A view of the whole buffer, frames are decoded from it at the buffer's position. */
+    private final MemorySegment segment;
+
+    private boolean endOfStream = false;
+
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+
+
+    private BitStructReader(Class<T> clazz, ReadableByteChannel channel, int bufferSize) {
+        if (clazz.isEnum()) throw new RuntimeException("Can't populate Enums classes.");
+
+        this.codec = BitCodecs.of(clazz);
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, codec.size())).flip();
+        this.segment = MemorySegment.ofArray(buffer.array());
+    }
+
+    public static <T extends BitStruct> BitStructReader<T> of(Class<T> clazz, ReadableByteChannel channel) {
+        return of(clazz, channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public static <T extends BitStruct> BitStructReader<T> of(Class<T> clazz, ReadableByteChannel channel,
+                                                              int bufferSize) {
+        return new BitStructReader<>(clazz, channel, bufferSize);
+    }
+
+    public static <T extends BitStruct> BitStructReader<T> of(Class<T> clazz, InputStream in) {
+        return of(clazz, Channels.newChannel(in), DEFAULT_BUFFER_SIZE);
+    }
+
+    public static <T extends BitStruct> BitStructReader<T> of(Class<T> clazz, InputStream in, int bufferSize) {
+        return of(clazz, Channels.newChannel(in), bufferSize);
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Pull.
+
+    /**
+     * Blocks until a whole frame is buffered or the source ends. Throws if the source ends part way through a frame.
+     */
+    @Override
+    public boolean hasNext() {
+        final int size = codec.size();
+        while (buffer.remaining() < size && !endOfStream) fill();
+
+        if (buffer.remaining() >= size) return true;
+        if (buffer.hasRemaining()) {
+            throw new RuntimeException(String.format(
+                    "Stream ended part way through a frame. [Read=%d, Required size=%d] ", buffer.remaining(), size
+            ));
+        }
+        return false;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+
+        final int position = buffer.position();
+        final T decoded = codec.decode(segment, position);
+        buffer.position(position + codec.size());
+        return decoded;
+    }
+
+    /** The remaining structs, closing the stream closes the reader. */
+    public Stream<T> stream() {
+        final Spliterator<T> spliterator =
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Move the unread bytes to the front of the buffer and read more after them. */
+    private void fill() {
+        buffer.compact();
+        try {
+            if (channel.read(buffer) < 0) endOfStream = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.flip();
+        }
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Push.
+
+    /**
+     * A publisher of the remaining structs. Frames are only decoded while the subscriber has outstanding demand, but
+     * the source is read up to the next frame without it, so the end of the source is signalled with
+     * {@code onComplete} even if nothing was requested. Reading and delivery run on the executor, one task at a time.
+     * The publisher accepts a single subscriber.
+     */
+    public Flow.Publisher<T> publisher(Executor executor) {
+        return subscriber -> {
+            if (!subscribed.compareAndSet(false, true)) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) { }
+
+                    @Override
+                    public void cancel() { }
+                });
+                subscriber.onError(new IllegalStateException("A BitStructReader can only be subscribed to once."));
+                return;
+            }
+
+            final ReaderSubscription subscription = new ReaderSubscription(subscriber, executor);
+            subscriber.onSubscribe(subscription);
+            subscription.schedule();
+        };
+    }
+
+    private final class ReaderSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super T> subscriber;
+
+        private final Executor executor;
+
+        private final AtomicLong demand = new AtomicLong();
+
+        /** Number of times the drain loop was asked to run, it only runs while this is positive. */
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private volatile boolean cancelled = false;
+
+        /** An error to signal from the drain loop, so it never overlaps {@code onNext} or follows completion. */
+        private volatile Throwable error;
+
+        /** Only touched by the drain loop. */
+        private boolean done = false;
+
+        private ReaderSubscription(Flow.Subscriber<? super T> subscriber, Executor executor) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                if (error == null) error = new IllegalArgumentException("Demand must be positive: " + n);
+                cancelled = true;
+                schedule();
+                return;
+            }
+
+            demand.accumulateAndGet(n, (current, added) -> (current + added < 0) ? Long.MAX_VALUE : current + added);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) executor.execute(this);
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (error != null && !done) {
+                done = true;
+                subscriber.onError(error);
+                return;
+            }
+
+            // The end is checked before the demand, completion doesn't need to be requested.
+            while (!cancelled && !done) {
+                final T next;
+                try {
+                    if (!hasNext()) {
+                        done = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    if (demand.get() <= 0) return;
+                    next = next();
+                } catch (RuntimeException e) {
+                    done = true;
+                    subscriber.onError(e);
+                    return;
+                }
+
+                demand.decrementAndGet();
+                subscriber.onNext(next);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+package org.example;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.BitSet;
+
+/**
+ * Finds the records in a run of back to back structs whose field matches a {@link ScanPredicate}, without decoding
+ * them. <br><br>
+ *
+ * The field is resolved once by its {@link FieldAccessor}. The scan reads the field of 64 records at a time into a
+ * {@code long[]}, one record after another as the records are strided, then tests the 64 values and stores the result
+ * as one word of the bitset. <br><br>
+ *
+ * The test runs across {@code LongVector} lanes when the library was built with the {@code vector} profile and the JVM
+ * is started with {@code --add-modules jdk.incubator.vector}, and one value at a time otherwise, with the same result.
+ * Only the comparison uses the Vector API, reading the field is the same scalar loop either way.
+ *
+ * <pre>{@code
+ * final BitSet bad = BitStructScanner.filter(BankLittle.class, capture, "statusReg.status", equalTo(BAD));
+ * bad.stream().forEach(i -> handle(BitStruct.decode(BankLittle.class, capture, i * 12L)));
+ * }</pre>
+ *
+ * @author Whimax07
+ */
+public final class BitStructScanner {
+
+    /**
+     * {@code VectorScan.test} typed {@code (ScanPredicate, long[])long}, or null if the module or the class is missing.
+     * The class is only compiled by the {@code vector} profile, so it is looked up by name.
+     */
+    private static final MethodHandle VECTOR_TEST = vectorTest();
+
+    /** True if the comparisons run on the Vector API, the field is read by the scalar loop either way. */
+    static final boolean VECTORIZED = VECTOR_TEST != null;
+
+
+
+    private BitStructScanner() { }
+
+    /**
+     * The indexes of the records whose field matches, over all the whole records in the segment. The field is named
+     * by a dotted path through nested struct fields, the same as {@link FieldAccessor#of(Class, String)}.
+     */
+    public static BitSet filter(Class<? extends BitStruct> clazz, MemorySegment segment, String path,
+                                ScanPredicate predicate) {
+        final FieldAccessor accessor = FieldAccessor.of(clazz, path);
+        final int count = Math.toIntExact(segment.byteSize() / accessor.structSize());
+        return filter(accessor, segment, 0, count, predicate);
+    }
+
+    /** The indexes of the records whose field matches, over {@code count} records from the offset of the segment. */
+    public static BitSet filter(Class<? extends BitStruct> clazz, MemorySegment segment, long offset, int count,
+                                String path, ScanPredicate predicate) {
+        return filter(FieldAccessor.of(clazz, path), segment, offset, count, predicate);
+    }
+
+    /** Same as {@link #filter(Class, MemorySegment, long, int, String, ScanPredicate)}, with a resolved field. */
+    public static BitSet filter(FieldAccessor accessor, MemorySegment segment, long offset, int count,
+                                ScanPredicate predicate) {
+        return filter(accessor, segment, offset, count, predicate, VECTORIZED);
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Private implementation.
+
+    static BitSet filter(FieldAccessor accessor, MemorySegment segment, long offset, int count,
+                         ScanPredicate predicate, boolean vectorized) {
+        final int size = accessor.structSize();
+        BitCodecs.checkBatch(segment, offset, count, size);
+
+        final long[] words = new long[(count + Long.SIZE - 1) / Long.SIZE];
+        final long[] values = new long[Long.SIZE];
+
+        for (int word = 0; word < words.length; word++) {
+            final int first = word * Long.SIZE;
+            final int inWord = Math.min(Long.SIZE, count - first);
+
+            long record = offset + (long) first * size;
+            for (int i = 0; i < inWord; i++, record += size) {
+                values[i] = accessor.read(segment, record);
+            }
+
+            words[word] = (vectorized && inWord == Long.SIZE)
+                    ? vectorTest(predicate, values)
+                    : test(predicate, values, inWord);
+        }
+
+        return BitSet.valueOf(words);
+    }
+
+    private static MethodHandle vectorTest() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+
+        try {
+            final ClassLoader loader = BitStructScanner.class.getClassLoader();
+            final Class<?> vectorScan = Class.forName("org.example.VectorScan", true, loader);
+            return MethodHandles.lookup().findStatic(vectorScan, "test",
+                    MethodType.methodType(long.class, ScanPredicate.class, long[].class));
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static long vectorTest(ScanPredicate predicate, long[] values) {
+        try {
+            return (long) VECTOR_TEST.invokeExact(predicate, values);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static long test(ScanPredicate predicate, long[] values, int count) {
+        long word = 0;
+        for (int i = 0; i < count; i++) {
+            if (predicate.test(values[i])) word |= 1L << i;
+        }
+        return word;
+    }
+
+}
@@ -0,0 +1,185 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes structs straight into reusable direct buffers and writes them to a {@link WritableByteChannel} or an
+ * {@link OutputStream} in batches. <br><br>
+ *
+ * Structs are written back to back, and may be of different classes. The buffered structs are flushed once
+ * {@code flushBytes} bytes or {@code flushCount} structs are buffered, on {@link #flush()}, and on {@link #close()}.
+ * A flush to a {@link GatheringByteChannel} writes every filled buffer with one gathering write, so a batch costs a
+ * single system call when the channel takes it all at once. <br><br>
+ *
+ * A writer is not thread safe.
+ *
+ * @author Whimax07
+ */
+public final class BitStructWriter implements AutoCloseable {
+
+    public static final int DEFAULT_FLUSH_BYTES = 64 * 1024;
+
+    /** Size of each direct buffer, a struct bigger than this gets a buffer of its own size. */
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    private final WritableByteChannel channel;
+
+    private final int flushBytes;
+
+    private final int flushCount;
+
+    /** Every buffer made so far, the ones before {@link #current} hold data. They are reused after a flush. */
+    private final List<Chunk> chunks = new ArrayList<>();
+
+    private int current = 0;
+
+    private long bufferedBytes = 0;
+
+    private int bufferedCount = 0;
+
+
+
+    private BitStructWriter(WritableByteChannel channel, int flushBytes, int flushCount) {
+        if (flushBytes < 1 || flushCount < 1) {
+            throw new RuntimeException("Flush thresholds must be positive. [Bytes=" + flushBytes
+                    + ", Count=" + flushCount + "] ");
+        }
+
+        this.channel = channel;
+        this.flushBytes = flushBytes;
+        this.flushCount = flushCount;
+    }
+
+    public static BitStructWriter of(WritableByteChannel channel) {
+        return of(channel, DEFAULT_FLUSH_BYTES, Integer.MAX_VALUE);
+    }
+
+    /** A writer that flushes once flushBytes bytes or flushCount structs are buffered, whichever comes first. */
+    public static BitStructWriter of(WritableByteChannel channel, int flushBytes, int flushCount) {
+        return new BitStructWriter(channel, flushBytes, flushCount);
+    }
+
+    public static BitStructWriter of(OutputStream out) {
+        return of(Channels.newChannel(out));
+    }
+
+    public static BitStructWriter of(OutputStream out, int flushBytes, int flushCount) {
+        return of(Channels.newChannel(out), flushBytes, flushCount);
+    }
+
+
+
+    /** Encode the struct after the ones already buffered, flushing if a threshold is reached. */
+    public void write(BitStruct struct) {
+        final int size = encode(BitCodecs.of(struct), struct);
+
+        bufferedBytes += size;
+        bufferedCount++;
+        if (bufferedBytes >= flushBytes || bufferedCount >= flushCount) flush();
+    }
+
+    /**
+     * Write every buffered struct to the channel. If the write fails the bytes the channel didn't take stay buffered,
+     * and the next flush writes them before anything buffered after.
+     */
+    public void flush() {
+        if (bufferedCount == 0) return;
+
+        final int used = Math.min(current + 1, chunks.size());
+        final ByteBuffer[] toWrite = new ByteBuffer[used];
+        for (int i = 0; i < used; i++) toWrite[i] = chunks.get(i).buffer.flip();
+
+        try {
+            if (channel instanceof GatheringByteChannel gathering) {
+                long remaining = bufferedBytes;
+                while (remaining > 0) remaining -= gathering.write(toWrite);
+            } else {
+                for (ByteBuffer buffer : toWrite) {
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                }
+            }
+        } catch (IOException e) {
+            // Keep only what wasn't written, back in the buffers ready for more structs.
+            long unwritten = 0;
+            for (ByteBuffer buffer : toWrite) {
+                unwritten += buffer.remaining();
+                buffer.compact();
+            }
+            bufferedBytes = unwritten;
+            if (unwritten == 0) bufferedCount = 0;
+            throw new UncheckedIOException(e);
+        }
+
+        for (ByteBuffer buffer : toWrite) buffer.clear();
+        current = 0;
+        bufferedBytes = 0;
+        bufferedCount = 0;
+    }
+
+    /** Flush and close the channel. */
+    @Override
+    public void close() {
+        try {
+            flush();
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                //noinspection ThrowFromFinallyBlock
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+
+
+    @SuppressWarnings("unchecked") // The codec was looked up with the runtime class of the struct.
+    private <T extends BitStruct> int encode(BitCodec<T> codec, BitStruct struct) {
+        final Chunk chunk = chunkFor(codec.size());
+        final int position = chunk.buffer.position();
+        final int size = codec.encodeInto((T) struct, chunk.segment, position);
+        chunk.buffer.position(position + size);
+        return size;
+    }
+
+    /** The buffer to encode the next struct into, moving on to the next buffer when the current one is full. */
+    private Chunk chunkFor(int size) {
+        while (current < chunks.size()) {
+            final Chunk chunk = chunks.get(current);
+            if (chunk.buffer.remaining() >= size) return chunk;
+            // Leave a buffer that has data for the flush, an empty one too small is replaced.
+            if (chunk.buffer.position() > 0) {
+                current++;
+            } else {
+                chunks.set(current, new Chunk(size));
+                return chunks.get(current);
+            }
+        }
+
+        final Chunk chunk = new Chunk(Math.max(CHUNK_SIZE, size));
+        chunks.add(chunk);
+        return chunk;
+    }
+
+    private static final class Chunk {
+        private final ByteBuffer buffer;
+
+        /** A view of the whole buffer, whatever its position. */
+        private final MemorySegment segment;
+
+        private Chunk(int size) {
+            this.buffer = ByteBuffer.allocateDirect(size);
+            this.segment = MemorySegment.ofBuffer(buffer);
+        }
+    }
+
+}
@@ -23,4 +23,13 @@ public @interface BitVal {
     /** True if the value should NOT be set via deserialization. */
     boolean constant() default false;
 
+    /**
+     * Number of elements of an array field, which must be set for arrays and left unset otherwise. {@link #len()} is
+     * then the length of each element, and element {@code i} starts at bit {@code first + i * stride}.
+     */
+    int count() default 0;
+
+    /** Bits from the start of one array element to the start of the next. Defaults to {@link #len()}, packed. */
+    int stride() default 0;
+
 }
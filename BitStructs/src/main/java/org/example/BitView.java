@@ -0,0 +1,144 @@
+package org.example;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+/**
+ * A mutable flyweight over a struct that sits in a {@code byte[]}, {@link ByteBuffer} or {@link MemorySegment}.
+ * Fields are read and written in place, in the byte ordering of the struct, without decoding the struct. <br><br>
+ *
+ * A view is bound to a source once and then moved along it with {@link #offset(long)}, which doesn't allocate, so one
+ * view can walk a whole run of records. Views are not thread safe, use one per thread.
+ *
+ * <pre>{@code
+ * final BitView<StatusReg> view = BitView.of(StatusReg.class).bind(segment, 0);
+ * for (int i = 0; i < count; i++) {
+ *     view.offset((long) i * view.size());
+ *     view.setLong("date", view.getLong("date") + 1);
+ * }
+ * }</pre>
+ *
+ * @author Whimax07
+ */
+public final class BitView<T extends BitStruct> {
+
+    private final Class<T> clazz;
+
+    private final int size;
+
+    private MemorySegment segment = MemorySegment.NULL;
+
+    private long offset;
+
+
+
+    private BitView(Class<T> clazz) {
+        this.clazz = clazz;
+        this.size = BitLayout.of(clazz).size;
+    }
+
+    /** An unbound view of the struct. Bind it before reading or writing. */
+    public static <T extends BitStruct> BitView<T> of(Class<T> clazz) {
+        return new BitView<>(clazz);
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Position.
+
+    /** Point the view at the struct starting at offset. */
+    public BitView<T> bind(MemorySegment segment, long offset) {
+        this.segment = segment;
+        return offset(offset);
+    }
+
+    /** Point the view at the struct starting at offset. Writes go straight to the array. */
+    public BitView<T> bind(byte[] bytes, int offset) {
+        return bind(MemorySegment.ofArray(bytes), offset);
+    }
+
+    /** Point the view at the struct starting at the position of the buffer. The position is left alone. */
+    public BitView<T> bind(ByteBuffer buffer) {
+        return bind(MemorySegment.ofBuffer(buffer), 0);
+    }
+
+    /** Move the view to the struct starting at offset in the source it is bound to. */
+    public BitView<T> offset(long offset) {
+        if (offset < 0 || segment.byteSize() - offset < size) {
+            throw new RuntimeException(
+                    "Passed in segment is to small. Required size: " + size + " bytes from offset " + offset
+            );
+        }
+
+        this.offset = offset;
+        return this;
+    }
+
+    public long offset() {
+        return offset;
+    }
+
+    /** Size in bytes of the struct, the stride of a run of back to back structs. */
+    public int size() {
+        return size;
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Fields.
+
+    /**
+     * The accessor of a field of this struct, or of a nested struct through a dotted path such as
+     * {@code "statusReg.status"}. For use with the accessor overloads in loops.
+     */
+    public FieldAccessor field(String path) {
+        return FieldAccessor.of(clazz, path);
+    }
+
+    /** The low 64 bits of the field, unsigned. */
+    public long getLong(String path) {
+        return getLong(field(path));
+    }
+
+    public long getLong(FieldAccessor accessor) {
+        return accessor.getLong(segment, offset);
+    }
+
+    public void setLong(String path, long value) {
+        setLong(field(path), value);
+    }
+
+    public void setLong(FieldAccessor accessor, long value) {
+        accessor.setLong(segment, offset, value);
+    }
+
+    public boolean getBoolean(String path) {
+        return getLong(path) != 0;
+    }
+
+    public void setBoolean(String path, boolean value) {
+        setLong(path, value ? 1 : 0);
+    }
+
+    /** The field as its declared type, boxed. Enums are looked up the same way decode does. */
+    public Object get(String path) {
+        return field(path).get(segment, offset);
+    }
+
+    public void set(String path, Object value) {
+        field(path).set(segment, offset, value);
+    }
+
+    /** Decode the whole struct the view points at. */
+    public T decode() {
+        return BitCodecs.of(clazz).decode(segment, offset);
+    }
+
+    /** Overwrite the struct the view points at. */
+    public void encode(T value) {
+        BitCodecs.of(clazz).encodeInto(value, segment, offset);
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.example;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The {@link BitMetrics#flightRecorder()} metrics, one Flight Recorder event per decode or encode. Events are only
+ * made while their type is enabled in a running recording, which is checked on the {@link EventType} first. <br><br>
+ *
+ * {@link Metering} doesn't call this through {@link BitMetrics}, it {@link #begin begins} an event before each call and
+ * ends and commits it after, so the events have the call's duration. {@link #completed} and {@link #failed}, for
+ * anyone calling them directly, make the event once the call is over, so its duration is zero and only the latency
+ * field has the time taken.
+ *
+ * @author Whimax07
+ */
+final class CodecEvents implements BitMetrics {
+
+    static final CodecEvents INSTANCE = new CodecEvents();
+
+    private static final EventType DECODE = EventType.getEventType(DecodeEvent.class);
+
+    private static final EventType ENCODE = EventType.getEventType(EncodeEvent.class);
+
+
+
+    private CodecEvents() { }
+
+    @Override
+    public void completed(Class<? extends BitStruct> type, Operation operation, int bytes, long nanos) {
+        final CodecEvent event = newEvent(operation);
+        if (event == null) return;
+
+        event.struct = type;
+        event.bytes = bytes;
+        event.latency = nanos;
+        event.commit();
+    }
+
+    @Override
+    public void failed(Class<? extends BitStruct> type, Operation operation, RuntimeException error) {
+        final CodecEvent event = newEvent(operation);
+        if (event == null) return;
+
+        event.struct = type;
+        event.error = String.valueOf(error.getMessage());
+        event.commit();
+    }
+
+    /** A new event for the operation begun now, or null without allocating if no recording has its type enabled. */
+    static CodecEvent begin(Operation operation) {
+        final CodecEvent event = newEvent(operation);
+        if (event != null) event.begin();
+        return event;
+    }
+
+    /** End and commit an event from {@link #begin(Operation)} for a call that returned. */
+    static void completed(CodecEvent event, Class<? extends BitStruct> type, int bytes, long nanos) {
+        event.end();
+        event.struct = type;
+        event.bytes = bytes;
+        event.latency = nanos;
+        event.commit();
+    }
+
+    /** End and commit an event from {@link #begin(Operation)} for a call that threw. */
+    static void failed(CodecEvent event, Class<? extends BitStruct> type, RuntimeException error) {
+        event.end();
+        event.struct = type;
+        event.error = String.valueOf(error.getMessage());
+        event.commit();
+    }
+
+    /** A new event for the operation, or null without allocating if no recording has its type enabled. */
+    private static CodecEvent newEvent(Operation operation) {
+        if (operation == Operation.DECODE) return DECODE.isEnabled() ? new DecodeEvent() : null;
+        return ENCODE.isEnabled() ? new EncodeEvent() : null;
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Events.
+
+    @Category("BitStructs")
+    abstract static class CodecEvent extends Event {
+        @Label("Struct")
+        Class<?> struct;
+
+        @Label("Bytes")
+        @DataAmount(DataAmount.BYTES)
+        int bytes;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+
+        @Label("Error")
+        @Description("Message of the exception thrown, null if the call succeeded.")
+        String error;
+    }
+
+    @Name("org.example.Decode")
+    @Label("BitStruct Decode")
+    static final class DecodeEvent extends CodecEvent { }
+
+    @Name("org.example.Encode")
+    @Label("BitStruct Encode")
+    static final class EncodeEvent extends CodecEvent { }
+
+}
@@ -0,0 +1,597 @@
+package org.example;
+
+import org.example.BitDetails.ByteOrdering;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * A private helper class for the provided implementation of {@link BitStruct#decode}.
+ *
+ * @author Whimax07
+ */
+public class Endian {
+
+    /**
+     * A zeroed array of bits as wide as a struct of the given size, a {@link BitLong} for structs of 8 bytes or less
+     * and a {@link BitArray} otherwise.
+     */
+    public static Ray forStruct(int sizeBytes, ByteOrdering ordering) {
+        return (sizeBytes <= 8) ? new BitLong(sizeBytes * 8, ordering) : new BitArray(sizeBytes * 8, ordering);
+    }
+
+
+
+    /** An endian agnostic array of bits. */
+    public interface Ray {
+        Ray not();
+
+        Ray leftShift(int by);
+
+        Ray rightShift(int by);
+
+        Ray and(Ray other, int resultSizeBytes);
+
+        Ray or(Ray other, int resultSizeBytes);
+
+        byte[] asByteArray();
+
+        byte[] leastSignificant(int length);
+    }
+
+
+
+    /** A little endian array of bits. */
+    public static class LBI implements Ray {
+        public static final LBI ZERO = new LBI(BigInteger.ZERO);
+        public static final LBI ONE = new LBI(BigInteger.ONE);
+
+        private final BigInteger value;
+
+
+
+        private LBI(BigInteger value) {
+            this.value = value;
+        }
+
+        public LBI(byte[] bytes) {
+            this(new BigInteger(bytes));
+        }
+
+        public LBI(long val) {
+            this(BigInteger.valueOf(val));
+        }
+
+
+
+        public LBI and(LBI other) {
+            return new LBI(value.and(other.value));
+        }
+
+        public LBI or(LBI other) {
+            return new LBI(value.or(other.value));
+        }
+
+        public LBI add(LBI other) {
+            return new LBI(value.add(other.value));
+        }
+
+        public LBI subtract(LBI other) {
+            return new LBI(value.subtract(other.value));
+        }
+
+        public BBI swapView() {
+            return new BBI(asByteArray());
+        }
+
+        @Override
+        public LBI not() {
+            return new LBI(value.not());
+        }
+
+        @Override
+        public LBI leftShift(int by) {
+            return new LBI(value.shiftLeft(by));
+        }
+
+        @Override
+        public LBI rightShift(int by) {
+            return new LBI(value.shiftRight(by));
+        }
+
+        @Override
+        public Ray and(Ray other, int resultSizeBytes) {
+            if (other instanceof LBI otherLbi) {
+                final LBI mask = ONE.leftShift(resultSizeBytes * 8).subtract(ONE);
+                return and(otherLbi).and(mask);
+            }
+
+            final byte[] littleBytes = Arrays.copyOf(asByteArray(), resultSizeBytes);
+
+            final byte[] bigBytes = other.asByteArray();
+            for (int i = 0; i < Math.min(bigBytes.length, resultSizeBytes); i++) {
+                littleBytes[littleBytes.length - 1 - i] &= bigBytes[i];
+            }
+
+            return new LBI(littleBytes);
+        }
+
+        @Override
+        public Ray or(Ray other, int resultSizeBytes) {
+            if (other instanceof LBI otherLbi) {
+                final LBI mask = ONE.leftShift(resultSizeBytes * 8).subtract(ONE);
+                return or(otherLbi).and(mask);
+            }
+
+            final byte[] littleBytes = Arrays.copyOf(asByteArray(), resultSizeBytes);
+
+            final byte[] bigBytes = other.asByteArray();
+            for (int i = 0; i < Math.min(bigBytes.length, resultSizeBytes); i++) {
+                littleBytes[littleBytes.length - 1 - i] |= bigBytes[i];
+            }
+
+            return new LBI(littleBytes);
+        }
+
+        @Override
+        public byte[] asByteArray() {
+            return flip(value.toByteArray());
+        }
+
+        @Override
+        public byte[] leastSignificant(int length) {
+            final byte[] bytes = asByteArray();
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+
+
+
+    /** A big endian array of bits. */
+    public static class BBI implements Ray {
+        public static final BBI ZERO = new BBI(BigInteger.ZERO);
+        public static final BBI ONE = new BBI(BigInteger.ONE);
+
+        private final BigInteger value;
+
+
+
+        private BBI(BigInteger value) {
+            this.value = value;
+        }
+
+        public BBI(byte[] bytes) {
+            this(new BigInteger(bytes));
+        }
+
+        public BBI(long val) {
+            this(BigInteger.valueOf(val));
+        }
+
+
+
+        public BBI and(BBI other) {
+            return new BBI(value.and(other.value));
+        }
+
+        public BBI or(BBI other) {
+            return new BBI(value.or(other.value));
+        }
+
+        public BBI add(BBI other) {
+            return new BBI(value.add(other.value));
+        }
+
+        public BBI subtract(BBI other) {
+            return new BBI(value.subtract(other.value));
+        }
+
+        public LBI swapView() {
+            return new LBI(asByteArray());
+        }
+
+        @Override
+        public BBI not() {
+            return new BBI(value.not());
+        }
+
+        @Override
+        public BBI leftShift(int by) {
+            return new BBI(value.shiftLeft(by));
+        }
+
+        @Override
+        public BBI rightShift(int by) {
+            return new BBI(value.shiftRight(by));
+        }
+
+        @Override
+        public Ray and(Ray other, int resultSizeBytes) {
+            if (other instanceof BBI otherBbi) {
+                final BBI mask = ONE.leftShift(resultSizeBytes * 8).subtract(ONE);
+                return and(otherBbi).and(mask);
+            }
+
+            final Ray anded = other.and(this, resultSizeBytes);
+            if (anded instanceof LBI andedLbi) return andedLbi.swapView();
+
+            throw new IllegalStateException("other should only be either an LBI or a BBI.");
+        }
+
+        @Override
+        public Ray or(Ray other, int resultSizeBytes) {
+            if (other instanceof BBI otherBbi) {
+                final BBI mask = ONE.leftShift(resultSizeBytes * 8).subtract(ONE);
+                return or(otherBbi).and(mask);
+            }
+
+            final Ray ored = other.or(this, resultSizeBytes);
+            if (ored instanceof LBI oredLbi) return oredLbi.swapView();
+
+            throw new IllegalStateException("other should only be either an LBI or a BBI.");
+        }
+
+        @Override
+        public byte[] asByteArray() {
+            return value.toByteArray();
+        }
+
+        @Override
+        public byte[] leastSignificant(int length) {
+            final byte[] bytes = asByteArray();
+
+            if (bytes.length == length) return bytes;
+            if (bytes.length > length) return Arrays.copyOfRange(bytes, bytes.length - length, bytes.length);
+
+            final byte[] out = new byte[length];
+            System.arraycopy(bytes, 0, out, length - bytes.length, bytes.length);
+            return out;
+        }
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Primitive backed.
+
+    /**
+     * A fixed width array of bits in a {@code long[]}, least significant word first. Unlike {@link LBI} and
+     * {@link BBI} the width never changes. Bits shifted past it are dropped, and {@link #not()} only flips the bits
+     * inside it, so the mask of the top word is made once. <br><br>
+     *
+     * The {@code InPlace} operations change the array and return it, the {@link Ray} operations return a copy. The
+     * byte ordering only sets which end of {@link #asByteArray()} the least significant byte is at.
+     */
+    public static final class BitArray implements Ray {
+        private final long[] words;
+
+        private final int width;
+
+        private final long topMask;
+
+        private final ByteOrdering ordering;
+
+
+
+        public BitArray(int width, ByteOrdering ordering) {
+            checkWidth(width, Integer.MAX_VALUE);
+            this.words = new long[(width + 63) >>> 6];
+            this.width = width;
+            this.topMask = mask(width - ((words.length - 1) << 6));
+            this.ordering = ordering;
+        }
+
+        /** The bits of the bytes, as wide as the array, in the given ordering. */
+        public BitArray(byte[] bytes, ByteOrdering ordering) {
+            this(bytes.length * 8, ordering);
+            for (int i = 0; i < bytes.length; i++) {
+                final int logical = (ordering == ByteOrdering.LITTLE) ? i : bytes.length - 1 - i;
+                words[logical >>> 3] |= (bytes[i] & 0xffL) << ((logical & 7) << 3);
+            }
+        }
+
+
+
+        public int width() {
+            return width;
+        }
+
+        /** Word index of the array, zero past the end. */
+        public long word(int index) {
+            return (index < words.length) ? words[index] : 0;
+        }
+
+        /** The {@code len <= 64} bits from first, bits past the width read as zero. */
+        public long getLong(int first, int len) {
+            final int index = first >>> 6;
+            final int shift = first & 63;
+            long value = word(index) >>> shift;
+            if (shift != 0 && shift + len > 64) value |= word(index + 1) << (64 - shift);
+            return value & mask(len);
+        }
+
+        /** Overwrite the {@code len <= 64} bits from first, bits past the width are dropped. */
+        public BitArray setLongInPlace(int first, int len, long value) {
+            final long bits = value & mask(len);
+            final int index = first >>> 6;
+            final int shift = first & 63;
+            words[index] = (words[index] & ~(mask(len) << shift)) | (bits << shift);
+            if (shift != 0 && shift + len > 64 && index + 1 < words.length) {
+                final long highMask = mask(shift + len - 64);
+                words[index + 1] = (words[index + 1] & ~highMask) | (bits >>> (64 - shift));
+            }
+            words[words.length - 1] &= topMask;
+            return this;
+        }
+
+        public BitArray notInPlace() {
+            for (int i = 0; i < words.length; i++) words[i] = ~words[i];
+            words[words.length - 1] &= topMask;
+            return this;
+        }
+
+        public BitArray leftShiftInPlace(int by) {
+            if (by < 0) return rightShiftInPlace(-by);
+
+            final int wordShift = by >>> 6;
+            final int bitShift = by & 63;
+            for (int i = words.length - 1; i >= 0; i--) {
+                final int from = i - wordShift;
+                long value = (from >= 0) ? words[from] << bitShift : 0;
+                if (bitShift != 0 && from - 1 >= 0) value |= words[from - 1] >>> (64 - bitShift);
+                words[i] = value;
+            }
+            words[words.length - 1] &= topMask;
+            return this;
+        }
+
+        public BitArray rightShiftInPlace(int by) {
+            if (by < 0) return leftShiftInPlace(-by);
+
+            final int wordShift = by >>> 6;
+            final int bitShift = by & 63;
+            for (int i = 0; i < words.length; i++) {
+                final int from = i + wordShift;
+                long value = (from < words.length) ? words[from] >>> bitShift : 0;
+                if (bitShift != 0 && from + 1 < words.length) value |= words[from + 1] << (64 - bitShift);
+                words[i] = value;
+            }
+            return this;
+        }
+
+        public BitArray andInPlace(Ray other) {
+            final Ray bits = primitive(other, width);
+            for (int i = 0; i < words.length; i++) words[i] &= wordOf(bits, i);
+            return this;
+        }
+
+        public BitArray orInPlace(Ray other) {
+            final Ray bits = primitive(other, width);
+            for (int i = 0; i < words.length; i++) words[i] |= wordOf(bits, i);
+            words[words.length - 1] &= topMask;
+            return this;
+        }
+
+        /** A copy with a new width, cut or zero extended. */
+        public BitArray resized(int width) {
+            final BitArray copy = new BitArray(width, ordering);
+            System.arraycopy(words, 0, copy.words, 0, Math.min(words.length, copy.words.length));
+            copy.words[copy.words.length - 1] &= copy.topMask;
+            return copy;
+        }
+
+        @Override
+        public BitArray not() {
+            return resized(width).notInPlace();
+        }
+
+        @Override
+        public BitArray leftShift(int by) {
+            return resized(width).leftShiftInPlace(by);
+        }
+
+        @Override
+        public BitArray rightShift(int by) {
+            return resized(width).rightShiftInPlace(by);
+        }
+
+        @Override
+        public BitArray and(Ray other, int resultSizeBytes) {
+            return resized(resultSizeBytes * 8).andInPlace(other);
+        }
+
+        @Override
+        public BitArray or(Ray other, int resultSizeBytes) {
+            return resized(resultSizeBytes * 8).orInPlace(other);
+        }
+
+        /** All the bytes of the width in the byte ordering of the array. */
+        @Override
+        public byte[] asByteArray() {
+            return leastSignificant((width + 7) >>> 3);
+        }
+
+        @Override
+        public byte[] leastSignificant(int length) {
+            final byte[] bytes = new byte[length];
+            for (int logical = 0; logical < length; logical++) {
+                final byte value = (byte) (word(logical >>> 3) >>> ((logical & 7) << 3));
+                bytes[(ordering == ByteOrdering.LITTLE) ? logical : length - 1 - logical] = value;
+            }
+            return bytes;
+        }
+    }
+
+
+
+    /** A {@link BitArray} of at most 64 bits held in a single {@code long}, the width of most registers. */
+    public static final class BitLong implements Ray {
+        private long value;
+
+        private final int width;
+
+        private final long mask;
+
+        private final ByteOrdering ordering;
+
+
+
+        public BitLong(int width, ByteOrdering ordering) {
+            checkWidth(width, 64);
+            this.width = width;
+            this.mask = mask(width);
+            this.ordering = ordering;
+        }
+
+        public BitLong(int width, long value, ByteOrdering ordering) {
+            this(width, ordering);
+            this.value = value & mask;
+        }
+
+
+
+        public int width() {
+            return width;
+        }
+
+        public long value() {
+            return value;
+        }
+
+        /** The {@code len} bits from first. */
+        public long getLong(int first, int len) {
+            return (first >= 64) ? 0 : (value >>> first) & mask(len);
+        }
+
+        /** Overwrite the {@code len} bits from first, bits past the width are dropped. */
+        public BitLong setLongInPlace(int first, int len, long bits) {
+            final long fieldMask = mask(len) << first;
+            value = ((value & ~fieldMask) | ((bits << first) & fieldMask)) & mask;
+            return this;
+        }
+
+        public BitLong notInPlace() {
+            value = ~value & mask;
+            return this;
+        }
+
+        public BitLong leftShiftInPlace(int by) {
+            if (by < 0) return rightShiftInPlace(-by);
+            value = (by >= 64) ? 0 : (value << by) & mask;
+            return this;
+        }
+
+        public BitLong rightShiftInPlace(int by) {
+            if (by < 0) return leftShiftInPlace(-by);
+            value = (by >= 64) ? 0 : value >>> by;
+            return this;
+        }
+
+        public BitLong andInPlace(Ray other) {
+            value &= wordOf(primitive(other, width), 0);
+            return this;
+        }
+
+        public BitLong orInPlace(Ray other) {
+            value = (value | wordOf(primitive(other, width), 0)) & mask;
+            return this;
+        }
+
+        @Override
+        public BitLong not() {
+            return new BitLong(width, value, ordering).notInPlace();
+        }
+
+        @Override
+        public BitLong leftShift(int by) {
+            return new BitLong(width, value, ordering).leftShiftInPlace(by);
+        }
+
+        @Override
+        public BitLong rightShift(int by) {
+            return new BitLong(width, value, ordering).rightShiftInPlace(by);
+        }
+
+        /** Results of more than 8 bytes are a {@link BitArray}. */
+        @Override
+        public Ray and(Ray other, int resultSizeBytes) {
+            if (resultSizeBytes > 8) return widened(resultSizeBytes * 8).andInPlace(other);
+            return new BitLong(resultSizeBytes * 8, value, ordering).andInPlace(other);
+        }
+
+        /** Results of more than 8 bytes are a {@link BitArray}. */
+        @Override
+        public Ray or(Ray other, int resultSizeBytes) {
+            if (resultSizeBytes > 8) return widened(resultSizeBytes * 8).orInPlace(other);
+            return new BitLong(resultSizeBytes * 8, value, ordering).orInPlace(other);
+        }
+
+        /** All the bytes of the width in the byte ordering of the array. */
+        @Override
+        public byte[] asByteArray() {
+            return leastSignificant((width + 7) >>> 3);
+        }
+
+        @Override
+        public byte[] leastSignificant(int length) {
+            final byte[] bytes = new byte[length];
+            for (int logical = 0; logical < Math.min(length, 8); logical++) {
+                final byte value = (byte) (this.value >>> (logical << 3));
+                bytes[(ordering == ByteOrdering.LITTLE) ? logical : length - 1 - logical] = value;
+            }
+            return bytes;
+        }
+
+        private BitArray widened(int width) {
+            return new BitArray(width, ordering).setLongInPlace(0, 64, value);
+        }
+    }
+
+
+
+    private static void checkWidth(int width, int max) {
+        if (width <= 0 || width > max) {
+            throw new IllegalStateException("Bit array width out of range. [Width=" + width + ", Max=" + max + "] ");
+        }
+    }
+
+    /** The low len bits set, len of 64 or more sets them all. */
+    private static long mask(int len) {
+        return (len >= 64) ? -1L : (1L << len) - 1;
+    }
+
+    /** Word index of a primitive backed ray. */
+    private static long wordOf(Ray ray, int index) {
+        if (ray instanceof BitLong bitLong) return (index == 0) ? bitLong.value : 0;
+        return ((BitArray) ray).word(index);
+    }
+
+    /**
+     * The ray as a primitive backed ray, a copy of width bits sign extended from the bytes for an {@link LBI} or
+     * {@link BBI}, which have no width of their own.
+     */
+    private static Ray primitive(Ray ray, int width) {
+        if (ray instanceof BitArray || ray instanceof BitLong) return ray;
+
+        final boolean little = ray instanceof LBI;
+        final byte[] bytes = ray.asByteArray();
+        final byte sign = (bytes.length == 0 || bytes[little ? bytes.length - 1 : 0] >= 0) ? 0 : (byte) 0xff;
+
+        final byte[] extended = new byte[(width + 7) >>> 3];
+        for (int logical = 0; logical < extended.length; logical++) {
+            extended[logical] = (logical < bytes.length) ? bytes[little ? logical : bytes.length - 1 - logical] : sign;
+        }
+        return new BitArray(extended, ByteOrdering.LITTLE);
+    }
+
+
+
+    private static byte[] flip(byte[] in) {
+        final byte[] result = new byte[in.length];
+        for (int i = 0; i < in.length; i++) {
+            result[i] = in[in.length - 1 - i];
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,264 @@
+package org.example;
+
+import org.example.BitDetails.ByteOrdering;
+import org.example.BitLayout.FieldLayout;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads and writes a single field of a {@link BitStruct} in place, without decoding the rest of the struct. <br><br>
+ *
+ * The field is named by a dotted path through nested struct fields, for example {@code "statusReg.status"}, with
+ * elements of array fields picked by index, {@code "pwrUps[2].source"}. The path is resolved once to the
+ * {@link BitSpan} it occupies relative to the start of the outermost struct. An access is then a handful of byte reads
+ * or read-modify-writes, no constructors are called and no other field is touched. Accessors are cached per class and
+ * path and are safe to share between threads. {@link BitView} wraps them with a re-pointable position.
+ *
+ * @author Whimax07
+ */
+public final class FieldAccessor {
+
+    private static final ClassValue<Map<String, FieldAccessor>> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Map<String, FieldAccessor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+
+
+    private final Class<?> owner;
+
+    private final String path;
+
+    /** The field at the end of the path. */
+    private final FieldLayout field;
+
+    /** Size in bytes of the outermost struct, which the offsets passed in point at. */
+    private final int size;
+
+    private final boolean big;
+
+    /** Where the field is stored, relative to the start of the outermost struct. */
+    private final BitSpan span;
+
+
+
+    private FieldAccessor(Class<?> owner, String path) {
+        final BitLayout top = BitLayout.of(owner);
+        this.owner = owner;
+        this.path = path;
+        this.size = top.size;
+        this.big = top.ordering == ByteOrdering.BIG;
+
+        // Walk down the nested structs, each step maps the nested struct's bits onto the outermost struct's bytes.
+        final String[] steps = path.split("\\.", -1);
+        BitLayout layout = top;
+        BitFrame frame = BitFrame.top(top);
+        for (int i = 0; i < steps.length - 1; i++) {
+            final FieldLayout step = findField(layout, steps[i]);
+            if (step.nested == null) {
+                throw new RuntimeException(
+                        "Field is not a nested struct. [Type=%s, Path=%s] ".formatted(owner.getSimpleName(), path)
+                );
+            }
+
+            frame = frame.nested(step, firstBit(step, steps[i], path), layout);
+            layout = step.nested;
+        }
+
+        final String last = steps[steps.length - 1];
+        this.field = findField(layout, last);
+        if (field.nested != null) {
+            throw new RuntimeException(
+                    "Field is a nested struct, only single value fields can be accessed. [Type=%s, Path=%s] "
+                            .formatted(owner.getSimpleName(), path)
+            );
+        }
+
+        // A field of the outermost struct already has its span in the layout.
+        final int first = firstBit(field, last, path);
+        this.span = (steps.length == 1 && !field.isArray()) ? field.span : BitSpan.of(frame, first, field.len);
+    }
+
+    /**
+     * The accessor of a field of the struct, named by a dotted path through nested struct fields. The field at the end
+     * of the path must hold a single value rather than a struct.
+     */
+    public static FieldAccessor of(Class<? extends BitStruct> clazz, String path) {
+        final Map<String, FieldAccessor> accessors = ACCESSORS.get(clazz);
+        // Look up before computing, so a cached accessor doesn't cost a capturing lambda.
+        final FieldAccessor cached = accessors.get(path);
+        if (cached != null) return cached;
+        return accessors.computeIfAbsent(path, key -> new FieldAccessor(clazz, key));
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Raw bits.
+
+    /** The low 64 bits of the field, unsigned, of the struct starting at offset. */
+    public long getLong(MemorySegment segment, long offset) {
+        checkBounds(segment, offset);
+        return read(segment, offset);
+    }
+
+    /** Same as {@link #getLong(MemorySegment, long)} without the bounds check, for callers that check a batch once. */
+    long read(MemorySegment segment, long offset) {
+        return span.read(segment, offset);
+    }
+
+    /**
+     * Write the low bits of value into the field of the struct starting at offset, leaving the other bits alone.
+     * Fields wider than 64 bits get the sign of value in the bits past the low 64, as encode does.
+     */
+    public void setLong(MemorySegment segment, long offset, long value) {
+        checkBounds(segment, offset);
+        span.write(segment, offset, value);
+    }
+
+
+
+    /** Same as {@link #getLong(MemorySegment, long)}, with the struct placed in the array the way decode does. */
+    public long getLong(byte[] bytes) {
+        return getLong(MemorySegment.ofArray(bytes), arrayBase(bytes));
+    }
+
+    /** Same as {@link #setLong(MemorySegment, long, long)}, with the struct placed in the array the way decode does. */
+    public void setLong(byte[] bytes, long value) {
+        setLong(MemorySegment.ofArray(bytes), arrayBase(bytes), value);
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Typed values.
+
+    /** The field as its declared type, boxed. Enums are looked up the same way decode does. */
+    public Object get(MemorySegment segment, long offset) {
+        final long bits = getLong(segment, offset);
+        if (field.enumLookup != null) return field.enumLookup.get(bits);
+
+        if (field.valueType == null) {
+            throw new IllegalStateException("Unsupported type: " + field.baseType.getSimpleName());
+        }
+        return field.valueType.box(bits);
+    }
+
+    /** Same as {@link #get(MemorySegment, long)}, with the struct placed in the array the way decode does. */
+    public Object get(byte[] bytes) {
+        return get(MemorySegment.ofArray(bytes), arrayBase(bytes));
+    }
+
+    /** Write a value of the field's declared type. */
+    public void set(MemorySegment segment, long offset, Object value) {
+        if (!field.baseType.isInstance(value)) {
+            throw new RuntimeException(
+                    "Value does not match the type of the field. [Field=%s, Value=%s] ".formatted(this, value)
+            );
+        }
+
+        final long bits = switch (value) {
+            case BitEnum bitEnum -> bitEnum.val();
+            case Boolean bool -> bool ? 1 : 0;
+            case Number number -> number.longValue();
+            default -> throw new IllegalStateException("Unsupported type: " + field.baseType.getSimpleName());
+        };
+        setLong(segment, offset, bits);
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Details.
+
+    /** The outermost struct of the path. */
+    public Class<?> owner() {
+        return owner;
+    }
+
+    /** The dotted path of the field from {@link #owner()}. */
+    public String path() {
+        return path;
+    }
+
+    /** The declared type of the field, with primitives mapped to their boxed type. */
+    public Class<?> type() {
+        return field.baseType;
+    }
+
+    /** The lookup of the field's type if it is a {@link BitEnum}, otherwise null. */
+    BitEnumLookup<?> enumLookup() {
+        return field.enumLookup;
+    }
+
+    /** The type of the field if it is an integer or boolean, otherwise null. */
+    BitLayout.ValueType valueType() {
+        return field.valueType;
+    }
+
+    public int len() {
+        return field.len;
+    }
+
+    /** Size in bytes of the struct that offsets passed to this accessor point at. */
+    public int structSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return owner.getSimpleName() + "." + path;
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Private implementation.
+
+    /** A step of a path is a field name, followed by an element index for array fields, {@code "gains[3]"}. */
+    private static FieldLayout findField(BitLayout layout, String step) {
+        final int bracket = step.indexOf('[');
+        final String name = (bracket < 0) ? step : step.substring(0, bracket);
+        return layout.encodeFields.stream()
+                .filter(fieldLayout -> fieldLayout.field.getName().equals(name))
+                .findAny()
+                .orElseThrow(() -> new RuntimeException(
+                        "No BitVal field found. [Type=%s, Field=%s] ".formatted(layout.clazz.getSimpleName(), name)
+                ));
+    }
+
+    /** The first bit of the field named by the step, or of the element it indexes. */
+    private int firstBit(FieldLayout field, String step, String path) {
+        final int bracket = step.indexOf('[');
+        if (!field.isArray() && bracket < 0) return field.first;
+
+        final boolean wellFormed = field.isArray() && bracket > 0 && step.endsWith("]");
+        final String index = wellFormed ? step.substring(bracket + 1, step.length() - 1) : "";
+        if (!index.matches("\\d{1,9}") || Integer.parseInt(index) >= field.count) {
+            throw new RuntimeException(
+                    "Array fields need an element index in range, other fields none. [Type=%s, Path=%s] "
+                            .formatted(owner.getSimpleName(), path)
+            );
+        }
+        return field.elementFirst(Integer.parseInt(index));
+    }
+
+    /** Big endian structs are read from the end of the array, little endian ones from the start. */
+    private long arrayBase(byte[] bytes) {
+        if (bytes.length < size) throw new RuntimeException("Passed in byte array is to small. Required size: " + size);
+        return big ? bytes.length - size : 0;
+    }
+
+    private void checkBounds(MemorySegment segment, long offset) {
+        if (offset < 0 || segment.byteSize() - offset < size) {
+            throw new RuntimeException(
+                    "Passed in segment is to small. Required size: " + size + " bytes from offset " + offset
+            );
+        }
+    }
+
+}
@@ -0,0 +1,840 @@
+package org.example;
+
+import org.example.BitDetails.ByteOrdering;
+import org.example.BitLayout.FieldLayout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessFlag;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link BitCodec} used for structs without a generated codec. <br><br>
+ *
+ * The codec is built from the {@link BitLayout} of the class the first time the class is used. Field getters, setters
+ * and the "all args" constructor are bound as {@link MethodHandle}s and combined into one handle each for decode,
+ * encode and decode into, so none of them touch the reflection API. The three handles are held as constants of a hidden
+ * class defined for the struct from the {@link HandleConstants} template, which lets the JIT inline through them down
+ * to the span reads and writes. <br><br>
+ *
+ * Nested structs without a generated codec get a codec of their own that reads and writes their fields through the
+ * {@link BitFrame} of the field they sit in, so a nested struct at any depth, alignment or byte ordering is read in
+ * place with no reversed or copied bytes. Nested structs with a generated codec are decoded in place when their bytes
+ * sit unchanged in the outer struct, and copied out a byte at a time otherwise.
+ *
+ * @author Whimax07
+ */
+final class HandleCodec<T extends BitStruct> implements BitCodec<T> {
+
+    /** {@link #isSet(long)}, to set boolean fields from the bits read. */
+    private static final MethodHandle IS_SET;
+
+    /** {@link BitSpan#read(MemorySegment, long)}, to read integer and boolean constructor arguments. */
+    private static final MethodHandle READ;
+
+    /** {@link BitEnumLookup#get(long)}, to read enum fields. */
+    private static final MethodHandle ENUM_GET;
+
+    /** The constructor of {@link Lazy} from where the field is, to read lazy nested struct fields. */
+    private static final MethodHandle NEW_LAZY;
+
+    /** {@link Nested#decode(MemorySegment, long)}, to read nested struct fields. */
+    private static final MethodHandle DECODE_NESTED;
+
+    /** {@link #extractArray(int, MemorySegment, long)}, to read array fields. */
+    private static final MethodHandle EXTRACT_ARRAY;
+
+    /** {@link BitSpan#write(MemorySegment, long, long)}, to write integer, boolean and enum fields. */
+    private static final MethodHandle WRITE;
+
+    /** {@link #bits(boolean)}, to write boolean fields. */
+    private static final MethodHandle BITS;
+
+    /** {@link BitEnum#val()}, to write enum fields. */
+    private static final MethodHandle VAL;
+
+    /** {@link Lazy#get()}, to write lazy nested struct fields. */
+    private static final MethodHandle LAZY_GET;
+
+    /** {@link Nested#encode(Object, MemorySegment, long)}, to write nested struct fields. */
+    private static final MethodHandle ENCODE_NESTED;
+
+    /** {@link #insertArray(int, Object, MemorySegment, long)}, to write array fields. */
+    private static final MethodHandle INSERT_ARRAY;
+
+    /** {@link #repointLazy(int, Object, MemorySegment, long)}, to decode into lazy nested struct fields. */
+    private static final MethodHandle REPOINT_LAZY;
+
+    /** {@link #fillArray(int, Object, MemorySegment, long, BitStructPool)}, to decode into array fields. */
+    private static final MethodHandle FILL_ARRAY;
+
+    /** {@link Nested#decodeInto(Object, MemorySegment, long, BitStructPool)}, to decode into nested struct fields. */
+    private static final MethodHandle DECODE_NESTED_INTO;
+
+    /** The type of {@link #constructor} and of the reader of a field, with {@code Object} for the field's type. */
+    private static final MethodType READER = MethodType.methodType(Object.class, MemorySegment.class, long.class);
+
+    /** The type of {@link #encoder} and of the writer of each field. */
+    private static final MethodType WRITER = MethodType.methodType(void.class, Object.class, MemorySegment.class,
+            long.class);
+
+    /** The type of {@link #filler} and of the filler of each field. */
+    private static final MethodType FILLER = WRITER.appendParameterTypes(BitStructPool.class);
+
+    /** The bytes of {@link HandleConstants}, defined again as a hidden class for each struct. */
+    private static final byte[] CONSTANTS;
+
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            IS_SET = lookup.findStatic(HandleCodec.class, "isSet", MethodType.methodType(boolean.class, long.class));
+            READ = lookup.findVirtual(BitSpan.class, "read",
+                    MethodType.methodType(long.class, MemorySegment.class, long.class));
+            ENUM_GET = lookup.findVirtual(BitEnumLookup.class, "get", MethodType.methodType(Enum.class, long.class));
+            NEW_LAZY = lookup.findConstructor(Lazy.class, MethodType.methodType(void.class, HandleCodec.class,
+                    int.class, MemorySegment.class, long.class));
+            DECODE_NESTED = lookup.findVirtual(Nested.class, "decode", READER);
+            EXTRACT_ARRAY = lookup.findVirtual(HandleCodec.class, "extractArray",
+                    READER.insertParameterTypes(0, int.class));
+            WRITE = lookup.findVirtual(BitSpan.class, "write",
+                    MethodType.methodType(void.class, MemorySegment.class, long.class, long.class));
+            BITS = lookup.findStatic(HandleCodec.class, "bits", MethodType.methodType(long.class, boolean.class));
+            VAL = lookup.findVirtual(BitEnum.class, "val", MethodType.methodType(long.class));
+            LAZY_GET = lookup.findVirtual(Lazy.class, "get", MethodType.methodType(BitStruct.class));
+            ENCODE_NESTED = lookup.findVirtual(Nested.class, "encode", WRITER);
+            INSERT_ARRAY = lookup.findVirtual(HandleCodec.class, "insertArray",
+                    WRITER.insertParameterTypes(0, int.class));
+            REPOINT_LAZY = lookup.findVirtual(HandleCodec.class, "repointLazy",
+                    MethodType.methodType(Object.class, int.class, Object.class, MemorySegment.class, long.class));
+            FILL_ARRAY = lookup.findVirtual(HandleCodec.class, "fillArray", MethodType.methodType(Object.class,
+                    int.class, Object.class, MemorySegment.class, long.class, BitStructPool.class));
+            DECODE_NESTED_INTO = lookup.findVirtual(Nested.class, "decodeInto",
+                    FILLER.changeReturnType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+
+        try (InputStream template = HandleCodec.class.getResourceAsStream("HandleConstants.class")) {
+            if (template == null) throw new ExceptionInInitializerError("HandleConstants.class not found.");
+            CONSTANTS = template.readAllBytes();
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final BitLayout layout;
+
+    private final FieldLayout[] encodeFields;
+
+    /** Where each of {@link #encodeFields} is written, one span per element for arrays. */
+    private final BitSpan[][] encodeSpans;
+
+    /** How the nested structs of {@link #encodeFields} are written, one per element for arrays, else null. */
+    private final Nested[][] encodeNested;
+
+    private final FieldLayout[] decodeFields;
+
+    /** Where each of {@link #decodeFields} is read from, one span per element for arrays. */
+    private final BitSpan[][] decodeSpans;
+
+    /** How the nested structs of {@link #decodeFields} are read, one per element for arrays, else null. */
+    private final Nested[][] decodeNested;
+
+    /** Every field written in declaration order, typed {@code (Object, MemorySegment, long)void}. */
+    private final MethodHandle encoder;
+
+    /**
+     * The "all args" constructor with its arguments read from the struct, typed {@code (MemorySegment, long)Object},
+     * or null if the class does not have one.
+     */
+    private final MethodHandle constructor;
+
+    /**
+     * Every field of a target overwritten in constructor order, typed
+     * {@code (Object, MemorySegment, long, BitStructPool)void}, or null if a field is final.
+     */
+    private final MethodHandle filler;
+
+    /** Why structs can't be decoded into, or null if they can. */
+    private final String notFillable;
+
+    /** The three handles, as constants of a hidden class for an outermost struct. */
+    private final Handles handles;
+
+
+
+    HandleCodec(BitLayout layout) {
+        this(layout, null, null);
+    }
+
+    /**
+     * The codec of a struct stored through the frames of the field it is nested in, as seen when decoding and when
+     * encoding. Its fields are read and written relative to the start of the outermost struct. Null frames are the
+     * outermost struct itself, whose spans the layout already holds.
+     */
+    private HandleCodec(BitLayout layout, BitFrame decodeFrame, BitFrame encodeFrame) {
+        this.layout = layout;
+        this.encodeFields = layout.encodeFields.toArray(FieldLayout[]::new);
+        this.decodeFields = layout.decodeFields.toArray(FieldLayout[]::new);
+        this.encodeSpans = spans(encodeFields, encodeFrame);
+        this.decodeSpans = spans(decodeFields, decodeFrame);
+
+        final BitFrame decodeIn = (decodeFrame == null) ? BitFrame.top(layout) : decodeFrame;
+        final BitFrame encodeIn = (encodeFrame == null) ? BitFrame.top(layout) : encodeFrame;
+        final Map<FieldLayout, Nested[]> nested = new IdentityHashMap<>();
+        for (FieldLayout field : encodeFields) {
+            if (field.nested != null) nested.put(field, nested(field, decodeIn, encodeIn));
+        }
+        this.encodeNested = Arrays.stream(encodeFields).map(nested::get).toArray(Nested[][]::new);
+        this.decodeNested = Arrays.stream(decodeFields).map(nested::get).toArray(Nested[][]::new);
+
+        final MethodHandles.Lookup lookup = lookup(layout.clazz);
+        try {
+            // Folded in from the last field, so the first field's writer runs first.
+            MethodHandle encoder = MethodHandles.empty(WRITER);
+            for (int i = encodeFields.length - 1; i >= 0; i--) {
+                final MethodHandle getter = lookup.unreflectGetter(encodeFields[i].field);
+                encoder = MethodHandles.foldArguments(encoder, writer(i, getter));
+            }
+            this.encoder = encoder;
+
+            this.constructor = (layout.constructor == null)
+                    ? null
+                    : decoder(lookup.unreflectConstructor(layout.constructor));
+
+            final FieldLayout fixed = Arrays.stream(decodeFields)
+                    .filter(field -> field.field.accessFlags().contains(AccessFlag.FINAL))
+                    .findFirst()
+                    .orElse(null);
+            this.notFillable = (fixed == null)
+                    ? null
+                    : "decodeInto needs fields that aren't final. [Type=%s, Field=%s] "
+                            .formatted(layout.clazz.getSimpleName(), fixed.field.getName());
+            this.filler = (fixed == null) ? filler(lookup) : null;
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Failed to bind the fields of " + layout.clazz, e);
+        }
+
+        // Nested codecs are reached through the handles of their outermost struct, or from loops over arrays.
+        this.handles = (decodeFrame == null) ? constants() : new Unfolded(constructor, encoder, filler);
+    }
+
+    /**
+     * Overwrite each field of a target, typed {@code (Object, MemorySegment, long, BitStructPool)void}. Nested structs,
+     * arrays and lazy fields are decoded into what the field held before.
+     */
+    private MethodHandle filler(MethodHandles.Lookup lookup) throws IllegalAccessException {
+        MethodHandle filler = MethodHandles.empty(FILLER);
+        for (int i = decodeFields.length - 1; i >= 0; i--) {
+            filler = MethodHandles.foldArguments(filler, filler(i, lookup));
+        }
+        return filler;
+    }
+
+    /** A filler of a decode field typed {@code (Object, MemorySegment, long, BitStructPool)void}. */
+    private MethodHandle filler(int index, MethodHandles.Lookup lookup) throws IllegalAccessException {
+        final FieldLayout bitVal = decodeFields[index];
+        final MethodHandle setter = lookup.unreflectSetter(bitVal.field);
+        final MethodType set = MethodType.methodType(void.class, Object.class, Object.class);
+
+        // Reads the new value from what the field holds, (Object, MemorySegment, long, BitStructPool)Object.
+        final MethodHandle next;
+        if (bitVal.lazy) {
+            next = MethodHandles.dropArguments(MethodHandles.insertArguments(REPOINT_LAZY, 0, this, index), 3,
+                    BitStructPool.class);
+        } else if (bitVal.isArray()) {
+            next = MethodHandles.insertArguments(FILL_ARRAY, 0, this, index);
+        } else if (bitVal.nested != null) {
+            next = DECODE_NESTED_INTO.bindTo(decodeNested[index][0]);
+        } else {
+            return MethodHandles.dropArguments(valueFiller(index, setter), 3, BitStructPool.class);
+        }
+
+        // (target, target, MemorySegment, long, BitStructPool)void, then the target fed to both.
+        final MethodHandle getter = lookup.unreflectGetter(bitVal.field).asType(MethodType.methodType(Object.class,
+                Object.class));
+        final MethodHandle filler = MethodHandles.collectArguments(setter.asType(set), 1,
+                MethodHandles.filterArguments(next, 0, getter));
+        return MethodHandles.permuteArguments(filler, FILLER, 0, 0, 1, 2, 3);
+    }
+
+    /** A filler of an enum, integer or boolean field typed {@code (Object, MemorySegment, long)void}. */
+    private MethodHandle valueFiller(int index, MethodHandle setter) {
+        final FieldLayout bitVal = decodeFields[index];
+        final MethodHandle bits = READ.bindTo(decodeSpans[index][0]);
+        if (bitVal.enumLookup != null) {
+            final MethodHandle constant = MethodHandles.filterReturnValue(bits, ENUM_GET.bindTo(bitVal.enumLookup));
+            return MethodHandles.collectArguments(setter.asType(MethodType.methodType(void.class, Object.class,
+                    Object.class)), 1, constant.asType(READER));
+        }
+        if (bitVal.valueType == null) {
+            throw new IllegalStateException("Unsupported type at extract phase: " + bitVal.baseType.getSimpleName());
+        }
+
+        // Boxed fields are set through their primitive, so each value field takes the span's long.
+        final Class<?> primitive = bitVal.valueType.primitive;
+        final MethodHandle exact = setter.asType(MethodType.methodType(void.class, Object.class, primitive));
+        final MethodHandle fromBits = (primitive == boolean.class)
+                ? MethodHandles.filterArguments(exact, 1, IS_SET)
+                : MethodHandles.explicitCastArguments(exact, MethodType.methodType(void.class, Object.class,
+                        long.class));
+        return MethodHandles.collectArguments(fromBits, 1, bits);
+    }
+
+    /** An instance of a hidden class defined for this struct, with the handles as its constants. */
+    private Handles constants() {
+        final MethodHandle unused = MethodHandles.empty(FILLER);
+        final List<MethodHandle> data = List.of(
+                (constructor != null) ? constructor : MethodHandles.empty(READER),
+                encoder,
+                (filler != null) ? filler : unused
+        );
+        try {
+            final MethodHandles.Lookup hidden = MethodHandles.lookup().defineHiddenClassWithClassData(
+                    CONSTANTS, data, true
+            );
+            return (Handles) hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException("Failed to define the handles of " + layout.clazz, e);
+        }
+    }
+
+    /**
+     * Feed each argument of the constructor from a reader of the struct, so the handle takes the segment and base and
+     * returns the struct. Integer and boolean arguments are read as the declared type, so primitives are never boxed.
+     */
+    private MethodHandle decoder(MethodHandle constructor) {
+        final MethodType args = constructor.type();
+        MethodHandle decoder = MethodHandles.dropArguments(
+                constructor.asType(args.changeReturnType(Object.class)), 0, MemorySegment.class, long.class
+        );
+
+        // Positions of the handle's parameters while the arguments are swapped for readers. The struct's segment and
+        // base always lead, the argument being swapped follows them. Its reader takes a segment and base of its own,
+        // which are then pointed back at the leading pair.
+        final int segment = 0;
+        final int base = 1;
+        final int readerSegment = 2;
+        final int readerBase = 3;
+
+        // The decode fields are in constructor order, so argument i is always the one just after the base.
+        for (int i = 0; i < decodeFields.length; i++) {
+            // (segment, base, arg i, rest...) becomes (segment, base, readerSegment, readerBase, rest...).
+            decoder = MethodHandles.collectArguments(decoder, readerSegment, argument(i, args.parameterType(i)));
+
+            // Back to (segment, base, rest...), each parameter of the collected handle says which new one feeds it.
+            final MethodType type = decoder.type().dropParameterTypes(readerSegment, readerBase + 1);
+            final int[] reorder = new int[decoder.type().parameterCount()];
+            reorder[segment] = segment;
+            reorder[base] = base;
+            reorder[readerSegment] = segment;
+            reorder[readerBase] = base;
+            for (int rest = readerBase + 1; rest < reorder.length; rest++) reorder[rest] = rest - 2;
+            decoder = MethodHandles.permuteArguments(decoder, type, reorder);
+        }
+        return decoder;
+    }
+
+    /** A reader of a decode field typed {@code (MemorySegment, long)type}, picked once by the kind of the field. */
+    private MethodHandle argument(int index, Class<?> type) {
+        final FieldLayout bitVal = decodeFields[index];
+        final MethodType reader = MethodType.methodType(type, MemorySegment.class, long.class);
+        if (bitVal.lazy) return MethodHandles.insertArguments(NEW_LAZY, 0, this, index).asType(reader);
+        if (bitVal.isArray()) return MethodHandles.insertArguments(EXTRACT_ARRAY, 0, this, index).asType(reader);
+        if (bitVal.nested != null) return decodeNested[index][0].decoder().asType(reader);
+
+        final MethodHandle bits = READ.bindTo(decodeSpans[index][0]);
+        if (bitVal.enumLookup != null) {
+            return MethodHandles.filterReturnValue(bits, ENUM_GET.bindTo(bitVal.enumLookup)).asType(reader);
+        }
+        if (bitVal.valueType == null) {
+            throw new IllegalStateException("Unsupported type at extract phase: " + bitVal.baseType.getSimpleName());
+        }
+
+        final MethodHandle value = (bitVal.valueType == BitLayout.ValueType.BOOLEAN)
+                ? MethodHandles.filterReturnValue(bits, IS_SET)
+                : MethodHandles.explicitCastArguments(bits, reader.changeReturnType(bitVal.valueType.primitive));
+        return value.asType(reader);
+    }
+
+    /**
+     * A writer of an encode field typed {@code (Object, MemorySegment, long)void}, picked once by the kind of the
+     * field. Integer and boolean fields are read through their declared type, so primitives are never boxed.
+     */
+    private MethodHandle writer(int index, MethodHandle getter) {
+        final FieldLayout bitVal = encodeFields[index];
+        final MethodType struct = MethodType.methodType(Object.class, Object.class);
+        if (bitVal.isArray()) {
+            final MethodHandle write = MethodHandles.insertArguments(INSERT_ARRAY, 0, this, index);
+            return MethodHandles.filterArguments(write, 0, getter.asType(struct));
+        }
+
+        if (bitVal.nested != null) {
+            final MethodHandle value = bitVal.lazy ? MethodHandles.filterReturnValue(getter, LAZY_GET) : getter;
+            return MethodHandles.filterArguments(encodeNested[index][0].encoder(), 0, value.asType(struct));
+        }
+
+        final MethodHandle bits;
+        if (bitVal.enumLookup != null) {
+            bits = MethodHandles.filterReturnValue(getter.asType(struct.changeReturnType(BitEnum.class)), VAL);
+        } else if (bitVal.valueType == BitLayout.ValueType.BOOLEAN) {
+            bits = MethodHandles.filterReturnValue(getter.asType(struct.changeReturnType(boolean.class)), BITS);
+        } else if (bitVal.valueType != null) {
+            // Unboxes boxed fields, and widens with the sign as the spans expect.
+            bits = getter.asType(struct.changeReturnType(long.class));
+        } else {
+            throw new IllegalStateException("Can't extract a value from type. Field=" + bitVal.field);
+        }
+
+        // (MemorySegment, long, long)void with the value moved to the front, then fed from the getter.
+        final MethodHandle write = MethodHandles.permuteArguments(WRITE.bindTo(encodeSpans[index][0]),
+                MethodType.methodType(void.class, long.class, MemorySegment.class, long.class), 1, 2, 0);
+        return MethodHandles.filterArguments(write, 0, bits);
+    }
+
+    private static MethodHandles.Lookup lookup(Class<?> clazz) {
+        try {
+            return MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Failed to access " + clazz, e);
+        }
+    }
+
+    private static BitSpan[][] spans(FieldLayout[] fields, BitFrame frame) {
+        final BitSpan[][] spans = new BitSpan[fields.length][];
+        for (int i = 0; i < fields.length; i++) {
+            final FieldLayout field = fields[i];
+            if (frame == null) {
+                spans[i] = field.isArray() ? field.elementSpans : new BitSpan[] {field.span};
+                continue;
+            }
+
+            spans[i] = new BitSpan[Math.max(field.count, 1)];
+            for (int element = 0; element < spans[i].length; element++) {
+                spans[i][element] = BitSpan.of(frame, field.isArray() ? field.elementFirst(element) : field.first,
+                        field.len);
+            }
+        }
+        return spans;
+    }
+
+    /** How each element of a nested struct field, or the field itself, is reached from the outermost struct. */
+    private Nested[] nested(FieldLayout field, BitFrame decodeFrame, BitFrame encodeFrame) {
+        final BitCodec<?> codec = BitCodecs.unmetered(field.nested.clazz.asSubclass(BitStruct.class));
+        final Nested[] nested = new Nested[Math.max(field.count, 1)];
+        for (int element = 0; element < nested.length; element++) {
+            final int first = field.isArray() ? field.elementFirst(element) : field.first;
+            nested[element] = new Nested(
+                    field.nested, codec,
+                    decodeFrame.nested(field, first, layout, true),
+                    encodeFrame.nested(field, first, layout, false)
+            );
+        }
+        return nested;
+    }
+
+
+
+    @Override
+    public T decode(byte[] bytes) {
+        final int size = layout.size;
+        if (bytes.length < size) throw new RuntimeException("Passed in byte array is to small. Required size: " + size);
+
+        // Big endian structs are read from the end of the array, little endian ones from the start.
+        final int base = (layout.ordering == ByteOrdering.BIG) ? bytes.length - size : 0;
+        return decodeAt(MemorySegment.ofArray(bytes), base);
+    }
+
+    @Override
+    public T decode(MemorySegment segment, long offset) {
+        final int size = layout.size;
+        if (offset < 0 || segment.byteSize() - offset < size) {
+            throw new RuntimeException(
+                    "Passed in segment is to small. Required size: " + size + " bytes from offset " + offset
+            );
+        }
+
+        return decodeAt(segment, offset);
+    }
+
+    private T decodeAt(MemorySegment segment, long base) {
+        if (constructor == null) {
+            throw new RuntimeException(
+                    "No \"all args\" constructor for BitVals found. " +
+                            "Note constructor parameter names and BitVal annotated field names must match."
+            );
+        }
+
+        try {
+            //noinspection unchecked
+            return (T) handles.decode(segment, base);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public T decodeInto(T target, MemorySegment segment, long offset, BitStructPool pool) {
+        final int size = layout.size;
+        if (offset < 0 || segment.byteSize() - offset < size) {
+            throw new RuntimeException(
+                    "Passed in segment is to small. Required size: " + size + " bytes from offset " + offset
+            );
+        }
+
+        decodeIntoAt(target, segment, offset, pool);
+        return target;
+    }
+
+    /** Overwrite each field of the target, decoding into the nested structs and arrays it already holds. */
+    private void decodeIntoAt(Object target, MemorySegment segment, long base, BitStructPool pool) {
+        if (notFillable != null) throw new RuntimeException(notFillable);
+
+        try {
+            handles.decodeInto(target, segment, base, pool);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** The lazy field the target holds pointed at the new source, or a new one if it holds none from this codec. */
+    private Object repointLazy(int index, Object current, MemorySegment segment, long base) {
+        final boolean repointed = current instanceof Lazy<?> lazy && lazy.repoint(this, index, segment, base);
+        return repointed ? current : new Lazy<>(this, index, segment, base);
+    }
+
+    private static boolean isSet(long bits) {
+        return bits != 0;
+    }
+
+    private static long bits(boolean value) {
+        return value ? 1 : 0;
+    }
+
+    @Override
+    public byte[] encode(T value) {
+        final byte[] out = new byte[layout.size];
+        encodeAt(value, MemorySegment.ofArray(out), 0);
+        return out;
+    }
+
+    @Override
+    public int encodeInto(T value, MemorySegment segment, long offset) {
+        final int size = layout.size;
+        if (offset < 0 || segment.byteSize() - offset < size) {
+            throw new RuntimeException(
+                    "Destination is to small. Required size: " + size + " bytes from offset " + offset
+            );
+        }
+
+        // Fields only set their own bits, so clear the bits no field covers.
+        segment.asSlice(offset, size).fill((byte) 0);
+        encodeAt(value, segment, offset);
+        return size;
+    }
+
+    @Override
+    public int size() {
+        return layout.size;
+    }
+
+    /** What calls the decode, encode and decode into handles. */
+    Handles handles() {
+        return handles;
+    }
+
+    /** Write the fields into the zeroed bytes {@code [base, base + size)} of the segment. */
+    private void encodeAt(T value, MemorySegment segment, long base) {
+        final ByteOrdering ordering = layout.ordering;
+
+        if (ordering != ByteOrdering.BIG && ordering != ByteOrdering.LITTLE) {
+            throw new IllegalStateException("Unknown byte ordering: " + ordering);
+        }
+
+        try {
+            handles.encode(value, segment, base);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+
+    /** Write each element of an array field, primitive arrays in a loop of their own type. */
+    private void insertArray(int index, Object array, MemorySegment segment, long base) {
+        final FieldLayout field = encodeFields[index];
+        final int length = java.lang.reflect.Array.getLength(array);
+        if (length != field.count) {
+            throw new RuntimeException(
+                    "Array field has the wrong number of elements. [Field=%s, Expected=%d, Actual=%d] "
+                            .formatted(field.field.getName(), field.count, length)
+            );
+        }
+
+        final BitSpan[] spans = encodeSpans[index];
+        switch (array) {
+            case byte[] values -> {
+                for (int i = 0; i < length; i++) spans[i].write(segment, base, values[i]);
+            }
+            case short[] values -> {
+                for (int i = 0; i < length; i++) spans[i].write(segment, base, values[i]);
+            }
+            case int[] values -> {
+                for (int i = 0; i < length; i++) spans[i].write(segment, base, values[i]);
+            }
+            case long[] values -> {
+                for (int i = 0; i < length; i++) spans[i].write(segment, base, values[i]);
+            }
+            case boolean[] values -> {
+                for (int i = 0; i < length; i++) {
+                    spans[i].write(segment, base, values[i] ? 1 : 0);
+                }
+            }
+            case BitEnum[] values -> {
+                for (int i = 0; i < length; i++) spans[i].write(segment, base, values[i].val());
+            }
+            case Object[] values -> {
+                for (int i = 0; i < length; i++) {
+                    encodeNested[index][i].encode(values[i], segment, base);
+                }
+            }
+            default -> throw new IllegalStateException("Can't extract a value from type. Field=" + field.field);
+        }
+    }
+
+    private Object extractArray(int index, MemorySegment segment, long base) {
+        final FieldLayout bitVal = decodeFields[index];
+        final Class<?> component = bitVal.field.getType().getComponentType();
+        final Object values = java.lang.reflect.Array.newInstance(component, bitVal.count);
+        readArray(index, values, segment, base, null);
+        return values;
+    }
+
+    /** The array the target holds if it has the right length, else a new one, with the elements read into it. */
+    private Object fillArray(int index, Object current, MemorySegment segment, long base, BitStructPool pool) {
+        final FieldLayout bitVal = decodeFields[index];
+        final Object values = (current != null && java.lang.reflect.Array.getLength(current) == bitVal.count)
+                ? current
+                : java.lang.reflect.Array.newInstance(bitVal.field.getType().getComponentType(), bitVal.count);
+        readArray(index, values, segment, base, pool);
+        return values;
+    }
+
+    /**
+     * Read each element of an array field into the array, primitive arrays in a loop of their own type. Nested
+     * structs are decoded into the elements already there when there is a pool, and decoded anew when there isn't.
+     */
+    private void readArray(int index, Object array, MemorySegment segment, long base, BitStructPool pool) {
+        final FieldLayout bitVal = decodeFields[index];
+        final BitSpan[] spans = decodeSpans[index];
+        final int count = bitVal.count;
+
+        switch (array) {
+            case byte[] values -> {
+                for (int i = 0; i < count; i++) values[i] = (byte) spans[i].read(segment, base);
+            }
+            case short[] values -> {
+                for (int i = 0; i < count; i++) values[i] = (short) spans[i].read(segment, base);
+            }
+            case int[] values -> {
+                for (int i = 0; i < count; i++) values[i] = (int) spans[i].read(segment, base);
+            }
+            case long[] values -> {
+                for (int i = 0; i < count; i++) values[i] = spans[i].read(segment, base);
+            }
+            case boolean[] values -> {
+                for (int i = 0; i < count; i++) values[i] = spans[i].read(segment, base) != 0;
+            }
+            case Object[] values when bitVal.enumLookup != null -> {
+                for (int i = 0; i < count; i++) values[i] = bitVal.enumLookup.get(spans[i].read(segment, base));
+            }
+            case Object[] values when bitVal.nested != null -> {
+                final Nested[] nested = decodeNested[index];
+                for (int i = 0; i < count; i++) {
+                    values[i] = (pool == null)
+                            ? nested[i].decode(segment, base)
+                            : nested[i].decodeInto(values[i], segment, base, pool);
+                }
+            }
+            default -> throw new IllegalStateException(
+                    "Unsupported array type: " + bitVal.field.getType().getSimpleName()
+            );
+        }
+    }
+
+    /** Decode a nested struct field. {@link Lazy} fields call this when they are first read. */
+    Object extractNested(int index, MemorySegment segment, long base) {
+        return decodeNested[index][0].decode(segment, base);
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Nested structs.
+
+    /** A nested struct field, or an element of a nested struct array, as reached from the outermost struct. */
+    private static final class Nested {
+        private final BitLayout layout;
+
+        /** The struct's own codec read through its frames, used to decode into instances even if it is generated. */
+        private final HandleCodec<?> framed;
+
+        private final BitCodec<?> codec;
+
+        /** Whether the struct has a generated codec, which is used rather than {@link #framed} to make instances. */
+        private final boolean generated;
+
+        /** Where the generated codec's bytes sit unchanged from the outermost base, or -1 if they are scattered. */
+        private final int decodeOffset;
+
+        private final int encodeOffset;
+
+        /** Each logical byte of the struct, lowest first, for when the bytes are scattered. */
+        private final BitSpan[] decodeBytes;
+
+        private final BitSpan[] encodeBytes;
+
+        private Nested(BitLayout layout, BitCodec<?> codec, BitFrame decodeFrame, BitFrame encodeFrame) {
+            this.layout = layout;
+            this.codec = codec;
+            this.framed = new HandleCodec<>(layout, decodeFrame, encodeFrame);
+            this.generated = !(codec instanceof HandleCodec<?>);
+            this.decodeOffset = inPlaceOffset(decodeFrame, layout);
+            this.encodeOffset = inPlaceOffset(encodeFrame, layout);
+            this.decodeBytes = byteSpans(decodeFrame, layout);
+            this.encodeBytes = byteSpans(encodeFrame, layout);
+        }
+
+        /** Decodes the struct, typed {@code (MemorySegment, long)Object}, through its own handle unless generated. */
+        MethodHandle decoder() {
+            return (!generated && framed.constructor != null) ? framed.constructor : DECODE_NESTED.bindTo(this);
+        }
+
+        /** Encodes the struct, typed {@code (Object, MemorySegment, long)void}, through its own handle if it can. */
+        MethodHandle encoder() {
+            return generated ? ENCODE_NESTED.bindTo(this) : framed.encoder;
+        }
+
+        Object decode(MemorySegment segment, long base) {
+            if (!generated) return framed.decodeAt(segment, base);
+            if (decodeOffset >= 0) return codec.decode(segment, base + decodeOffset);
+
+            final int size = layout.size;
+            final boolean big = layout.ordering == ByteOrdering.BIG;
+            final byte[] bytes = new byte[size];
+            for (int i = 0; i < size; i++) bytes[big ? size - 1 - i : i] = (byte) decodeBytes[i].read(segment, base);
+            return codec.decode(bytes);
+        }
+
+        /** Decode into the instance, or into one taken from the pool if it is null, and return it. */
+        Object decodeInto(Object current, MemorySegment segment, long base, BitStructPool pool) {
+            final Object target = (current != null) ? current : pool.take(layout.clazz.asSubclass(BitStruct.class));
+            framed.decodeIntoAt(target, segment, base, pool);
+            return target;
+        }
+
+        /** Write the struct into zeroed bytes of the outermost struct. */
+        void encode(Object value, MemorySegment segment, long base) {
+            if (!generated) {
+                encodeFramed(framed, value, segment, base);
+                return;
+            }
+            if (encodeOffset >= 0) {
+                encodeInto(codec, value, segment, base + encodeOffset);
+                return;
+            }
+
+            final int size = layout.size;
+            final boolean big = layout.ordering == ByteOrdering.BIG;
+            final byte[] bytes = encode(codec, value);
+            for (int i = 0; i < size; i++) encodeBytes[i].write(segment, base, bytes[big ? size - 1 - i : i]);
+        }
+
+        /**
+         * The offset from the outermost base at which the frame holds every byte of the struct, in the struct's own
+         * order, or -1 if it doesn't.
+         */
+        private static int inPlaceOffset(BitFrame frame, BitLayout layout) {
+            final BitFrame own = BitFrame.top(layout);
+            final int start = frame.physical(0) - own.physical(0);
+            if (frame.physical(0) < 0 || start < 0 || (start & 7) != 0) return -1;
+
+            for (int bit = 1; bit < layout.size * 8; bit++) {
+                if (frame.physical(bit) != start + own.physical(bit)) return -1;
+            }
+            return start >>> 3;
+        }
+
+        private static BitSpan[] byteSpans(BitFrame frame, BitLayout layout) {
+            final BitSpan[] spans = new BitSpan[layout.size];
+            for (int i = 0; i < spans.length; i++) spans[i] = BitSpan.of(frame, i * 8, 8);
+            return spans;
+        }
+
+        @SuppressWarnings("unchecked") // Nested codecs are looked up with the declared type of the field.
+        private static <S extends BitStruct> void encodeFramed(HandleCodec<S> codec, Object value,
+                                                               MemorySegment segment, long base) {
+            codec.encodeAt((S) value, segment, base);
+        }
+
+        @SuppressWarnings("unchecked") // Nested codecs are looked up with the declared type of the field.
+        private static <S extends BitStruct> void encodeInto(BitCodec<S> codec, Object value,
+                                                             MemorySegment segment, long offset) {
+            codec.encodeInto((S) value, segment, offset);
+        }
+
+        @SuppressWarnings("unchecked") // Nested codecs are looked up with the declared type of the field.
+        private static <S extends BitStruct> byte[] encode(BitCodec<S> codec, Object value) {
+            return codec.encode((S) value);
+        }
+    }
+
+
+
+    // =================================================================================================================
+    // ===> Handles.
+
+    /** Calls the decode, encode and decode into handles of a codec. */
+    interface Handles {
+        Object decode(MemorySegment segment, long base) throws Throwable;
+
+        void encode(Object value, MemorySegment segment, long base) throws Throwable;
+
+        void decodeInto(Object target, MemorySegment segment, long base, BitStructPool pool) throws Throwable;
+    }
+
+    /** The handles of a nested struct's codec, held in fields as they are inlined into the outer struct's handles. */
+    private record Unfolded(MethodHandle decoder, MethodHandle encoder, MethodHandle filler) implements Handles {
+        @Override
+        public Object decode(MemorySegment segment, long base) throws Throwable {
+            return (Object) decoder.invokeExact(segment, base);
+        }
+
+        @Override
+        public void encode(Object value, MemorySegment segment, long base) throws Throwable {
+            encoder.invokeExact(value, segment, base);
+        }
+
+        @Override
+        public void decodeInto(Object target, MemorySegment segment, long base, BitStructPool pool) throws Throwable {
+            filler.invokeExact(target, segment, base, pool);
+        }
+    }
+
+}
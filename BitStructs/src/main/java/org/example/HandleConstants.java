@@ -0,0 +1,57 @@
+package org.example;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.foreign.MemorySegment;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * The template of the hidden class {@link HandleCodec} defines for each struct. The bytes of this class are defined
+ * again per struct, with the struct's decode, encode and decode into handles as class data, and the static initializer
+ * reads them into constants. The JIT folds static final handles and inlines through them, which it can't do for
+ * handles held in the fields of a codec. <br><br>
+ *
+ * The class is never loaded under its own name.
+ *
+ * @author Whimax07
+ */
+final class HandleConstants implements HandleCodec.Handles {
+
+    /** {@code (MemorySegment, long)Object} */
+    private static final MethodHandle DECODE;
+
+    /** {@code (Object, MemorySegment, long)void} */
+    private static final MethodHandle ENCODE;
+
+    /** {@code (Object, MemorySegment, long, BitStructPool)void} */
+    private static final MethodHandle DECODE_INTO;
+
+    static {
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            DECODE = MethodHandles.classDataAt(lookup, ConstantDescs.DEFAULT_NAME, MethodHandle.class, 0);
+            ENCODE = MethodHandles.classDataAt(lookup, ConstantDescs.DEFAULT_NAME, MethodHandle.class, 1);
+            DECODE_INTO = MethodHandles.classDataAt(lookup, ConstantDescs.DEFAULT_NAME, MethodHandle.class, 2);
+        } catch (IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+
+
+    @Override
+    public Object decode(MemorySegment segment, long base) throws Throwable {
+        return (Object) DECODE.invokeExact(segment, base);
+    }
+
+    @Override
+    public void encode(Object value, MemorySegment segment, long base) throws Throwable {
+        ENCODE.invokeExact(value, segment, base);
+    }
+
+    @Override
+    public void decodeInto(Object target, MemorySegment segment, long base, BitStructPool pool) throws Throwable {
+        DECODE_INTO.invokeExact(target, segment, base, pool);
+    }
+
+}
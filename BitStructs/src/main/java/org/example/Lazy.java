@@ -0,0 +1,104 @@
+package org.example;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Objects;
+
+/**
+ * A nested struct that is only decoded when it is first read. Declare a {@link BitVal} field as {@code Lazy<S>}
+ * instead of {@code S} and decoding the outer struct keeps a reference to the source and the position of the field,
+ * nothing else. Nested structs that are never read cost one small object. <br><br>
+ *
+ * The source is read on the first {@link #get()}, so it must not change until then. Don't decode lazy fields out of a
+ * buffer that is reused, such as the read buffer of {@link BitStructReader}, unless they are read straight away.
+ * Structs with lazy fields always use the reflective codec. {@link BitStruct#decodeInto} points the lazy fields the
+ * target already holds at the new source rather than making new ones, anyone holding on to them sees the new struct.
+ *
+ * @author Whimax07
+ */
+public final class Lazy<T extends BitStruct> {
+
+    /** The codec of the outer struct, which knows where the field is. Null once decoded up front. */
+    private final HandleCodec<?> owner;
+
+    /** Index of the field in the decode fields of {@link #owner}. */
+    private final int index;
+
+    private MemorySegment segment;
+
+    /** Where the outermost struct starts in {@link #segment}, the codec knows the way down from there. */
+    private long base;
+
+    private volatile T value;
+
+
+
+    Lazy(HandleCodec<?> owner, int index, MemorySegment segment, long base) {
+        this.owner = owner;
+        this.index = index;
+        this.segment = segment;
+        this.base = base;
+    }
+
+    private Lazy(T value) {
+        this(null, -1, null, 0);
+        this.value = Objects.requireNonNull(value);
+    }
+
+    /** A lazy field that already holds its value, for building structs to encode. */
+    public static <T extends BitStruct> Lazy<T> of(T value) {
+        return new Lazy<>(value);
+    }
+
+
+
+    /**
+     * Point this at the field in a new source, forgetting any value decoded from the old one. Returns false, changing
+     * nothing, if this isn't the given field of a struct decoded by the codec.
+     */
+    boolean repoint(HandleCodec<?> owner, int index, MemorySegment segment, long base) {
+        if (this.owner != owner || this.index != index) return false;
+
+        this.segment = segment;
+        this.base = base;
+        // The volatile write publishes the new source to the next get().
+        value = null;
+        return true;
+    }
+
+
+
+    /** The nested struct, decoded on the first call. */
+    @SuppressWarnings("unchecked")
+    public T get() {
+        T result = value;
+        if (result == null) {
+            // Decoding twice on a race is harmless, both threads get equal structs.
+            result = (T) owner.extractNested(index, segment, base);
+            value = result;
+        }
+        return result;
+    }
+
+    /** True if the nested struct has been decoded. */
+    public boolean isDecoded() {
+        return value != null;
+    }
+
+
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Lazy<?> lazy && get().equals(lazy.get());
+    }
+
+    @Override
+    public int hashCode() {
+        return get().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Lazy(" + get() + ")";
+    }
+
+}
@@ -0,0 +1,104 @@
+package org.example;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Wraps the codec of a struct class, timing each decode and encode and reporting it, or the error it threw, to the
+ * registered {@link BitMetrics}. Runs of structs are reported one struct at a time.
+ *
+ * @author Whimax07
+ */
+final class MeteredCodec<T extends BitStruct> implements BitCodec<T> {
+
+    private final BitCodec<T> codec;
+
+    private final Class<T> type;
+
+    private final int size;
+
+
+
+    MeteredCodec(Class<T> type, BitCodec<T> codec) {
+        this.codec = codec;
+        this.type = type;
+        this.size = codec.size();
+    }
+
+
+
+    @Override
+    public T decode(byte[] bytes) {
+        final CodecEvents.CodecEvent event = Metering.begin(BitMetrics.Operation.DECODE);
+        final long start = System.nanoTime();
+        try {
+            final T value = codec.decode(bytes);
+            Metering.completed(type, BitMetrics.Operation.DECODE, size, System.nanoTime() - start, event);
+            return value;
+        } catch (RuntimeException e) {
+            Metering.failed(type, BitMetrics.Operation.DECODE, e, event);
+            throw e;
+        }
+    }
+
+    @Override
+    public T decode(MemorySegment segment, long offset) {
+        final CodecEvents.CodecEvent event = Metering.begin(BitMetrics.Operation.DECODE);
+        final long start = System.nanoTime();
+        try {
+            final T value = codec.decode(segment, offset);
+            Metering.completed(type, BitMetrics.Operation.DECODE, size, System.nanoTime() - start, event);
+            return value;
+        } catch (RuntimeException e) {
+            Metering.failed(type, BitMetrics.Operation.DECODE, e, event);
+            throw e;
+        }
+    }
+
+    @Override
+    public T decodeInto(T target, MemorySegment segment, long offset, BitStructPool pool) {
+        final CodecEvents.CodecEvent event = Metering.begin(BitMetrics.Operation.DECODE);
+        final long start = System.nanoTime();
+        try {
+            final T value = codec.decodeInto(target, segment, offset, pool);
+            Metering.completed(type, BitMetrics.Operation.DECODE, size, System.nanoTime() - start, event);
+            return value;
+        } catch (RuntimeException e) {
+            Metering.failed(type, BitMetrics.Operation.DECODE, e, event);
+            throw e;
+        }
+    }
+
+    @Override
+    public byte[] encode(T value) {
+        final CodecEvents.CodecEvent event = Metering.begin(BitMetrics.Operation.ENCODE);
+        final long start = System.nanoTime();
+        try {
+            final byte[] bytes = codec.encode(value);
+            Metering.completed(type, BitMetrics.Operation.ENCODE, size, System.nanoTime() - start, event);
+            return bytes;
+        } catch (RuntimeException e) {
+            Metering.failed(type, BitMetrics.Operation.ENCODE, e, event);
+            throw e;
+        }
+    }
+
+    @Override
+    public int encodeInto(T value, MemorySegment segment, long offset) {
+        final CodecEvents.CodecEvent event = Metering.begin(BitMetrics.Operation.ENCODE);
+        final long start = System.nanoTime();
+        try {
+            final int written = codec.encodeInto(value, segment, offset);
+            Metering.completed(type, BitMetrics.Operation.ENCODE, size, System.nanoTime() - start, event);
+            return written;
+        } catch (RuntimeException e) {
+            Metering.failed(type, BitMetrics.Operation.ENCODE, e, event);
+            throw e;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+}
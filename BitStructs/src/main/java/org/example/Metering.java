@@ -0,0 +1,112 @@
+package org.example;
+
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Holds the registered {@link BitMetrics}, and the {@link MeteredCodec} of each struct class handed out while there
+ * are any.
+ *
+ * @author Whimax07
+ */
+final class Metering {
+
+    static final String JFR_PROPERTY = "bitstructs.metrics.jfr";
+
+    private static final List<BitMetrics> REGISTERED = new CopyOnWriteArrayList<>();
+
+    /** All the registered metrics as one, except {@link CodecEvents}, null while there are none. */
+    private static volatile BitMetrics active;
+
+    /** Whether {@link CodecEvents#INSTANCE} is registered, its events are begun before each call. */
+    private static volatile boolean flightRecorder;
+
+    private static final ClassValue<BitCodec<?>> METERED = new ClassValue<>() {
+        @Override
+        protected BitCodec<?> computeValue(Class<?> type) {
+            return meter(type.asSubclass(BitStruct.class));
+        }
+    };
+
+    static {
+        ServiceLoader.load(BitMetrics.class).forEach(Metering::register);
+        if (Boolean.getBoolean(JFR_PROPERTY)) register(CodecEvents.INSTANCE);
+    }
+
+
+
+    private Metering() { }
+
+    static boolean enabled() {
+        return active != null || flightRecorder;
+    }
+
+    /** The metered codec of the class, only used while metrics are enabled. */
+    @SuppressWarnings("unchecked") // Codecs are only ever created for their own struct class.
+    static <T extends BitStruct> BitCodec<T> codec(Class<T> clazz) {
+        return (BitCodec<T>) METERED.get(clazz);
+    }
+
+    static void register(BitMetrics metrics) {
+        synchronized (REGISTERED) {
+            if (!REGISTERED.contains(metrics)) REGISTERED.add(metrics);
+            update();
+        }
+    }
+
+    static void unregister(BitMetrics metrics) {
+        synchronized (REGISTERED) {
+            REGISTERED.remove(metrics);
+            update();
+        }
+    }
+
+    /** A Flight Recorder event begun for a call about to be made, or null if none is being recorded. */
+    static CodecEvents.CodecEvent begin(BitMetrics.Operation operation) {
+        return flightRecorder ? CodecEvents.begin(operation) : null;
+    }
+
+    static void completed(Class<? extends BitStruct> type, BitMetrics.Operation operation, int bytes, long nanos,
+                          CodecEvents.CodecEvent event) {
+        if (event != null) CodecEvents.completed(event, type, bytes, nanos);
+        final BitMetrics metrics = active;
+        if (metrics != null) metrics.completed(type, operation, bytes, nanos);
+    }
+
+    static void failed(Class<? extends BitStruct> type, BitMetrics.Operation operation, RuntimeException error,
+                       CodecEvents.CodecEvent event) {
+        if (event != null) CodecEvents.failed(event, type, error);
+        final BitMetrics metrics = active;
+        if (metrics != null) metrics.failed(type, operation, error);
+    }
+
+
+
+    private static <T extends BitStruct> BitCodec<T> meter(Class<T> clazz) {
+        return new MeteredCodec<>(clazz, BitCodecs.unmetered(clazz));
+    }
+
+    private static void update() {
+        flightRecorder = REGISTERED.contains(CodecEvents.INSTANCE);
+        final BitMetrics[] all = REGISTERED.stream()
+                .filter(metrics -> metrics != CodecEvents.INSTANCE)
+                .toArray(BitMetrics[]::new);
+        active = switch (all.length) {
+            case 0 -> null;
+            case 1 -> all[0];
+            default -> new BitMetrics() {
+                @Override
+                public void completed(Class<? extends BitStruct> type, Operation operation, int bytes, long nanos) {
+                    for (BitMetrics metrics : all) metrics.completed(type, operation, bytes, nanos);
+                }
+
+                @Override
+                public void failed(Class<? extends BitStruct> type, Operation operation, RuntimeException error) {
+                    for (BitMetrics metrics : all) metrics.failed(type, operation, error);
+                }
+            };
+        };
+    }
+
+}
@@ -0,0 +1,70 @@
+package org.example;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The {@link BitStructPool#perThread()} pool. Each thread keeps a stack of free instances per class, so taking and
+ * giving back neither locks nor allocates once the stacks have grown.
+ *
+ * @author Whimax07
+ */
+final class PerThreadPool implements BitStructPool {
+
+    static final PerThreadPool INSTANCE = new PerThreadPool();
+
+    /** Most free instances kept per class and thread, any more given back are left to the garbage collector. */
+    static final int LIMIT = 1024;
+
+    /** The no args constructor of each class, typed {@code ()Object}. */
+    private static final ClassValue<MethodHandle> CONSTRUCTORS = new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            try {
+                return MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+                        .findConstructor(type, MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new RuntimeException(
+                        "Pooled structs need a no args constructor. [Type=%s] ".formatted(type.getSimpleName()), e
+                );
+            }
+        }
+    };
+
+    private final ThreadLocal<Map<Class<?>, ArrayDeque<BitStruct>>> free = ThreadLocal.withInitial(HashMap::new);
+
+
+
+    private PerThreadPool() { }
+
+    @Override
+    public <S extends BitStruct> S take(Class<S> type) {
+        final ArrayDeque<BitStruct> structs = free.get().get(type);
+        final BitStruct pooled = (structs == null) ? null : structs.pollLast();
+        return (pooled != null) ? type.cast(pooled) : make(type);
+    }
+
+    @Override
+    public void give(BitStruct struct) {
+        final ArrayDeque<BitStruct> structs = free.get().computeIfAbsent(struct.getClass(), type -> new ArrayDeque<>());
+        if (structs.size() < LIMIT) structs.addLast(struct);
+    }
+
+
+
+    private static <S extends BitStruct> S make(Class<S> type) {
+        try {
+            return type.cast((Object) CONSTRUCTORS.get(type).invokeExact());
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+}
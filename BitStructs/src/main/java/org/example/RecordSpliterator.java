@@ -0,0 +1,90 @@
+package org.example;
+
+import java.lang.foreign.MemorySegment;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Spliterator} over structs stored back to back in a {@link MemorySegment}. Splitting halves the range of
+ * records without reading them, so parallel streams decode every record exactly once, in place, and keep their order.
+ *
+ * @author Whimax07
+ */
+final class RecordSpliterator<T extends BitStruct> implements Spliterator<T> {
+
+    /** Ranges smaller than this are not split further, decoding a handful of records is cheaper than a task. */
+    private static final int MIN_SPLIT = 64;
+
+    private final BitCodec<T> codec;
+
+    private final MemorySegment segment;
+
+    private final long offset;
+
+    private final int size;
+
+    /** Index of the next record. */
+    private int index;
+
+    /** Index one past the last record. */
+    private final int end;
+
+
+
+    private RecordSpliterator(BitCodec<T> codec, MemorySegment segment, long offset, int index, int end) {
+        this.codec = codec;
+        this.segment = segment;
+        this.offset = offset;
+        this.size = codec.size();
+        this.index = index;
+        this.end = end;
+    }
+
+    static <T extends BitStruct> RecordSpliterator<T> of(BitCodec<T> codec, MemorySegment segment, long offset,
+                                                         int count) {
+        BitCodecs.checkBatch(segment, offset, count, codec.size());
+        return new RecordSpliterator<>(codec, segment, offset, 0, count);
+    }
+
+
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (index >= end) return false;
+        action.accept(decode(index++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (index < end) action.accept(decode(index++));
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        final int remaining = end - index;
+        if (remaining < MIN_SPLIT) return null;
+
+        final int middle = index + remaining / 2;
+        final RecordSpliterator<T> prefix = new RecordSpliterator<>(codec, segment, offset, index, middle);
+        index = middle;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return end - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | NONNULL;
+    }
+
+
+
+    private T decode(int record) {
+        return codec.decode(segment, offset + (long) record * size);
+    }
+
+}
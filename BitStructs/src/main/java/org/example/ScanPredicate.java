@@ -0,0 +1,114 @@
+package org.example;
+
+/**
+ * A simple comparison on the raw bits of a field, for {@link BitStructScanner}. Values are compared unsigned, as the
+ * field is stored, so a signed field is matched on its bit pattern, {@code equalTo(0xFF)} for a {@code byte} of -1 in
+ * an 8 bit field.
+ *
+ * @author Whimax07
+ */
+public final class ScanPredicate {
+
+    enum Op {
+        EQUAL,
+        NOT_EQUAL,
+        LESS,
+        LESS_OR_EQUAL,
+        GREATER,
+        GREATER_OR_EQUAL,
+        BETWEEN,
+        ANY_BITS,
+        ALL_BITS,
+        NO_BITS
+    }
+
+
+
+    final Op op;
+
+    final long first;
+
+    /** The upper bound of {@link Op#BETWEEN}, unused otherwise. */
+    final long second;
+
+
+
+    private ScanPredicate(Op op, long first, long second) {
+        this.op = op;
+        this.first = first;
+        this.second = second;
+    }
+
+    public static ScanPredicate equalTo(long value) {
+        return new ScanPredicate(Op.EQUAL, value, 0);
+    }
+
+    /** Matches the fields holding the value of the constant. */
+    public static ScanPredicate equalTo(BitEnum constant) {
+        return equalTo(constant.val());
+    }
+
+    public static ScanPredicate notEqualTo(long value) {
+        return new ScanPredicate(Op.NOT_EQUAL, value, 0);
+    }
+
+    public static ScanPredicate lessThan(long value) {
+        return new ScanPredicate(Op.LESS, value, 0);
+    }
+
+    public static ScanPredicate atMost(long value) {
+        return new ScanPredicate(Op.LESS_OR_EQUAL, value, 0);
+    }
+
+    public static ScanPredicate greaterThan(long value) {
+        return new ScanPredicate(Op.GREATER, value, 0);
+    }
+
+    public static ScanPredicate atLeast(long value) {
+        return new ScanPredicate(Op.GREATER_OR_EQUAL, value, 0);
+    }
+
+    /** Matches values in {@code [low, high]}, both ends included. */
+    public static ScanPredicate between(long low, long high) {
+        return new ScanPredicate(Op.BETWEEN, low, high);
+    }
+
+    /** Matches values with at least one of the bits of the mask set. */
+    public static ScanPredicate anyBits(long mask) {
+        return new ScanPredicate(Op.ANY_BITS, mask, 0);
+    }
+
+    /** Matches values with all the bits of the mask set. */
+    public static ScanPredicate allBits(long mask) {
+        return new ScanPredicate(Op.ALL_BITS, mask, 0);
+    }
+
+    /** Matches values with none of the bits of the mask set. */
+    public static ScanPredicate noBits(long mask) {
+        return new ScanPredicate(Op.NO_BITS, mask, 0);
+    }
+
+
+
+    /** Test a single value, the scalar version of what {@code VectorScan} does across lanes. */
+    boolean test(long value) {
+        return switch (op) {
+            case EQUAL -> value == first;
+            case NOT_EQUAL -> value != first;
+            case LESS -> Long.compareUnsigned(value, first) < 0;
+            case LESS_OR_EQUAL -> Long.compareUnsigned(value, first) <= 0;
+            case GREATER -> Long.compareUnsigned(value, first) > 0;
+            case GREATER_OR_EQUAL -> Long.compareUnsigned(value, first) >= 0;
+            case BETWEEN -> Long.compareUnsigned(value, first) >= 0 && Long.compareUnsigned(value, second) <= 0;
+            case ANY_BITS -> (value & first) != 0;
+            case ALL_BITS -> (value & first) == first;
+            case NO_BITS -> (value & first) == 0;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return (op == Op.BETWEEN) ? op + "[" + first + ", " + second + "]" : op + "[" + first + "]";
+    }
+
+}
@@ -0,0 +1,64 @@
+package org.example;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The Vector API comparisons of {@link BitStructScanner}. Only compiled by the {@code vector} profile and only loaded,
+ * by name, when the {@code jdk.incubator.vector} module is present, so the rest of the library doesn't depend on it.
+ * <br><br>
+ *
+ * Only the comparison is done here. The values arrive already read into a {@code long[]} by the scanner's scalar loop,
+ * the Vector API has no strided gather from a {@code MemorySegment} to read the field of each record with.
+ *
+ * @author Whimax07
+ */
+final class VectorScan {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+
+
+    private VectorScan() { }
+
+    /** Test 64 values, bit {@code i} of the result is set if {@code values[i]} matches. */
+    static long test(ScanPredicate predicate, long[] values) {
+        long word = 0;
+        for (int i = 0; i < Long.SIZE; i += SPECIES.length()) {
+            final LongVector lanes = LongVector.fromArray(SPECIES, values, i);
+            word |= test(predicate, lanes).toLong() << i;
+        }
+        return word;
+    }
+
+    /**
+     * Unsigned comparisons flip the sign bit of both sides and compare signed, the unsigned operators have changed
+     * name between releases of the incubator module.
+     */
+    private static VectorMask<Long> test(ScanPredicate predicate, LongVector lanes) {
+        final long first = predicate.first;
+        return switch (predicate.op) {
+            case EQUAL -> lanes.compare(VectorOperators.EQ, first);
+            case NOT_EQUAL -> lanes.compare(VectorOperators.NE, first);
+            case LESS -> flip(lanes).compare(VectorOperators.LT, first ^ Long.MIN_VALUE);
+            case LESS_OR_EQUAL -> flip(lanes).compare(VectorOperators.LE, first ^ Long.MIN_VALUE);
+            case GREATER -> flip(lanes).compare(VectorOperators.GT, first ^ Long.MIN_VALUE);
+            case GREATER_OR_EQUAL -> flip(lanes).compare(VectorOperators.GE, first ^ Long.MIN_VALUE);
+            case BETWEEN -> {
+                final LongVector flipped = flip(lanes);
+                yield flipped.compare(VectorOperators.GE, first ^ Long.MIN_VALUE)
+                        .and(flipped.compare(VectorOperators.LE, predicate.second ^ Long.MIN_VALUE));
+            }
+            case ANY_BITS -> lanes.and(first).compare(VectorOperators.NE, 0);
+            case ALL_BITS -> lanes.and(first).compare(VectorOperators.EQ, first);
+            case NO_BITS -> lanes.and(first).compare(VectorOperators.EQ, 0);
+        };
+    }
+
+    private static LongVector flip(LongVector lanes) {
+        return lanes.lanewise(VectorOperators.XOR, Long.MIN_VALUE);
+    }
+
+}
@@ -0,0 +1,44 @@
+package org.example;
+
+import org.example.lombok.NestedOrderingTest.BankLittle;
+import org.example.lombok.NestedOrderingTest.PwrUp0;
+import org.junit.jupiter.api.Test;
+
+import static org.example.Utils.bs;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BitCodecsTest {
+
+    @Test
+    public void fallsBackToHandleCodec() {
+        assertInstanceOf(HandleCodec.class, BitCodecs.of(BankLittle.class));
+        assertSame(BitCodecs.of(BankLittle.class), BitCodecs.of(BankLittle.class));
+    }
+
+    @Test
+    public void handlesAreConstantsOfAHiddenClassPerStruct() {
+        final Class<?> bank = ((HandleCodec<?>) BitCodecs.of(BankLittle.class)).handles().getClass();
+        final Class<?> pwrUp0 = BitCodecs.reflective(new PwrUp0((byte) 0, (byte) 0, (byte) 0)).handles().getClass();
+
+        assertTrue(bank.isHidden());
+        assertTrue(pwrUp0.isHidden());
+        assertNotSame(bank, pwrUp0);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation") // isAccessible reports the setAccessible flag, which is what is being checked.
+    public void fieldsAreNotMadeAccessible() {
+        final BankLittle decoded = BitStruct.decode(BankLittle.class, bs(0xcf, 0, 0, 0, 0x12, 0, 0, 0, 0x1e, 0, 0, 2));
+        decoded.encode();
+
+        final BitLayout layout = BitLayout.of(BankLittle.class);
+        assertFalse(layout.constructor.isAccessible());
+        assertFalse(layout.encodeFields.getFirst().field.isAccessible());
+        assertFalse(BitLayout.of(PwrUp0.class).encodeFields.getFirst().field.isAccessible());
+    }
+
+}
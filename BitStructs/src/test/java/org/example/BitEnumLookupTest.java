@@ -0,0 +1,105 @@
+package org.example;
+
+import lombok.AllArgsConstructor;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BitEnumLookupTest {
+
+    @Test
+    public void dense() {
+        final BitEnumLookup<Dense> lookup = BitEnumLookup.of(Dense.class);
+        for (Dense constant : Dense.values()) assertSame(constant, lookup.get(constant.val()));
+        assertSame(lookup, BitEnumLookup.of(Dense.class));
+
+        final IllegalStateException e = assertThrows(IllegalStateException.class, () -> lookup.get(4));
+        assertTrue(e.getMessage().startsWith("No enum constant found."), e.getMessage());
+        assertThrows(IllegalStateException.class, () -> lookup.get(-1));
+        assertThrows(IllegalStateException.class, () -> lookup.get(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void sparse() {
+        final BitEnumLookup<Sparse> lookup = BitEnumLookup.of(Sparse.class);
+        for (Sparse constant : Sparse.values()) assertSame(constant, lookup.get(constant.val()));
+
+        assertNull(lookup.get(0));
+        assertNull(lookup.get(1L << 41));
+        assertNull(lookup.get(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void unknownConstant() {
+        final BitEnumLookup<WithUnknown> lookup = BitEnumLookup.of(WithUnknown.class);
+        assertSame(WithUnknown.ON, lookup.get(1));
+        assertSame(WithUnknown.UNKNOWN, lookup.get(7));
+    }
+
+    @Test
+    public void duplicateValues() {
+        final IllegalStateException e =
+                assertThrows(IllegalStateException.class, () -> BitEnumLookup.of(Duplicate.class));
+        assertTrue(e.getMessage().contains("Duplicate BitEnum value."), e.getMessage());
+    }
+
+
+
+    @AllArgsConstructor
+    public enum Dense implements BitEnum {
+        ZERO(0), ONE(1), THREE(3), FIVE(5);
+
+        private final long value;
+
+        @Override
+        public long val() {
+            return value;
+        }
+    }
+
+    @BitEnumDetails(onUnknown = BitEnumDetails.OnUnknown.NULL)
+    @AllArgsConstructor
+    public enum Sparse implements BitEnum {
+        SMALL(3),
+        NEGATIVE(-5),
+        LARGE(1L << 40),
+        MAX(Long.MAX_VALUE);
+
+        private final long value;
+
+        @Override
+        public long val() {
+            return value;
+        }
+    }
+
+    @BitEnumDetails(onUnknown = BitEnumDetails.OnUnknown.CONSTANT)
+    @AllArgsConstructor
+    public enum WithUnknown implements BitEnum {
+        OFF(0), ON(1), UNKNOWN(0xff);
+
+        private final long value;
+
+        @Override
+        public long val() {
+            return value;
+        }
+    }
+
+    @AllArgsConstructor
+    public enum Duplicate implements BitEnum {
+        FIRST(1), SECOND(1);
+
+        private final long value;
+
+        @Override
+        public long val() {
+            return value;
+        }
+    }
+
+}
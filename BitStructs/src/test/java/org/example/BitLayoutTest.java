@@ -0,0 +1,86 @@
+package org.example;
+
+import org.example.lombok.NestedOrderingTest.BankLittle;
+import org.example.lombok.NestedOrderingTest.CurrentPowerUpReg;
+import org.example.manual.NestedBitStructTest.ParentStruct;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class BitLayoutTest {
+
+    @Test
+    public void layoutIsCachedPerClass() {
+        assertSame(BitLayout.of(BankLittle.class), BitLayout.of(BankLittle.class));
+    }
+
+    @Test
+    public void nestedLayoutsAreShared() {
+        final BitLayout bank = BitLayout.of(BankLittle.class);
+        assertSame(BitLayout.of(CurrentPowerUpReg.class), bank.decodeFields.get(1).nested);
+    }
+
+    @Test
+    public void sizeAndOrderingAreResolved() {
+        final BitLayout bank = BitLayout.of(BankLittle.class);
+        assertEquals(12, bank.size);
+        assertEquals(BitDetails.ByteOrdering.LITTLE, bank.ordering);
+
+        final BitLayout parent = BitLayout.of(ParentStruct.class);
+        assertEquals(5, parent.size);
+        assertEquals(
+                List.of("delta1", "delta2", "nested", "lastBit"),
+                parent.decodeFields.stream().map(field -> field.field.getName()).toList()
+        );
+    }
+
+    @Test
+    public void spansMatchBitByBitAccess() {
+        final Random random = new Random(22);
+        for (int round = 0; round < 500; round++) {
+            final int size = 1 + random.nextInt(16);
+            final int first = random.nextInt(size * 8);
+            final int len = 1 + random.nextInt(64);
+            final BitDetails.ByteOrdering ordering = random.nextBoolean()
+                    ? BitDetails.ByteOrdering.BIG : BitDetails.ByteOrdering.LITTLE;
+            final BitSpan span = BitSpan.of(first, len, size, ordering);
+
+            final byte[] bytes = new byte[size + 2];
+            random.nextBytes(bytes);
+            final MemorySegment segment = MemorySegment.ofArray(bytes);
+            assertEquals(bitByBit(segment, first, len, size, ordering), span.read(segment, 1));
+
+            final byte[] before = bytes.clone();
+            final long value = random.nextLong();
+            span.write(segment, 1, value);
+            for (int bit = 0; bit < size * 8; bit++) {
+                final boolean inField = bit >= first && bit < first + len;
+                final int index = 1 + ((ordering == BitDetails.ByteOrdering.BIG) ? size - 1 - bit / 8 : bit / 8);
+                final int expected = inField ? (int) (value >>> (bit - first)) & 1 : (before[index] >>> (bit & 7)) & 1;
+                assertEquals(expected, (bytes[index] >>> (bit & 7)) & 1);
+            }
+            assertEquals(before[0], bytes[0]);
+            assertEquals(before[size + 1], bytes[size + 1]);
+        }
+    }
+
+
+
+    private static long bitByBit(MemorySegment segment, int first, int len, int size,
+                                 BitDetails.ByteOrdering ordering) {
+        long value = 0;
+        for (int i = 0; i < len && first + i < size * 8; i++) {
+            final int bit = first + i;
+            final int index = 1 + ((ordering == BitDetails.ByteOrdering.BIG) ? size - 1 - bit / 8 : bit / 8);
+            value |= (long) ((segment.get(ValueLayout.JAVA_BYTE, index) >>> (bit & 7)) & 1) << i;
+        }
+        return value;
+    }
+
+}
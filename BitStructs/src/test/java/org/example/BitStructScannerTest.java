@@ -0,0 +1,152 @@
+package org.example;
+
+import org.example.lombok.EnumParamsTest;
+import org.example.lombok.FieldAccessorTest;
+import org.example.lombok.InPlaceDecodeTest;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class BitStructScannerTest {
+
+    private static final int COUNT = 1000;
+
+    private static final int OFFSET = 3;
+
+    @Test
+    public void everyComparisonMatchesDecode() {
+        final MemorySegment records = MemorySegment.ofArray(random(OFFSET + COUNT * 3));
+        final FieldAccessor low = FieldAccessor.of(InPlaceDecodeTest.Shifted.class, "pair.low");
+
+        final List<InPlaceDecodeTest.Shifted> decoded =
+                BitStruct.decodeAll(InPlaceDecodeTest.Shifted.class, records, OFFSET, COUNT);
+        final long[] values = decoded.stream()
+                .mapToLong(shifted -> Byte.toUnsignedLong(shifted.pair().low()))
+                .toArray();
+
+        checkAll(low, records, values, List.of(0x10L, 0x80L, 0xf0L));
+    }
+
+    @Test
+    public void unsignedWideFields() {
+        final MemorySegment records = MemorySegment.ofArray(random(OFFSET + COUNT * 9));
+        final FieldAccessor value = FieldAccessor.of(Wide64.class, "value");
+
+        final long[] values = BitStruct.decodeAll(Wide64.class, records, OFFSET, COUNT).stream()
+                .mapToLong(Wide64::value)
+                .toArray();
+
+        checkAll(value, records, values, List.of(values[7], -1L, Long.MIN_VALUE, Long.MAX_VALUE, 1L << 40));
+    }
+
+    @Test
+    public void enumFieldsByPath() {
+        final byte[] bytes = new byte[COUNT * 3];
+        final EnumParamsTest.TestEnum[] constants = EnumParamsTest.TestEnum.values();
+        for (int i = 0; i < COUNT; i++) {
+            final EnumParamsTest.SimpleCheck check = new EnumParamsTest.SimpleCheck(i & 0xf, constants[i % 3]);
+            new FieldAccessorTest.Tagged((byte) i, check).encodeInto(bytes, i * 3);
+        }
+
+        final BitSet matches = BitStructScanner.filter(FieldAccessorTest.Tagged.class, MemorySegment.ofArray(bytes),
+                "check.delta2", ScanPredicate.equalTo(EnumParamsTest.TestEnum.B));
+
+        assertEquals(COUNT / 3, matches.cardinality());
+        matches.stream().forEach(i -> assertEquals(1, i % 3));
+    }
+
+    @Test
+    public void vectorAndScalarPathsAgree() {
+        // Builds with the vector profile set this, and must then have loaded VectorScan.
+        if (Boolean.getBoolean("bitstructs.test.vector")) assertTrue(BitStructScanner.VECTORIZED);
+        assumeTrue(BitStructScanner.VECTORIZED, "VectorScan is not compiled or jdk.incubator.vector is not present");
+
+        final MemorySegment records = MemorySegment.ofArray(random(OFFSET + COUNT * 9));
+        final FieldAccessor value = FieldAccessor.of(Wide64.class, "value");
+        final FieldAccessor tag = FieldAccessor.of(Wide64.class, "tag");
+        final List<ScanPredicate> predicates = List.of(
+                ScanPredicate.equalTo(0x7f), ScanPredicate.notEqualTo(0x7f), ScanPredicate.lessThan(0x40),
+                ScanPredicate.atMost(0x40), ScanPredicate.greaterThan(0x40), ScanPredicate.atLeast(1L << 62),
+                ScanPredicate.between(0x20, 0x60), ScanPredicate.anyBits(0x81), ScanPredicate.allBits(0x81),
+                ScanPredicate.noBits(0x81)
+        );
+
+        for (FieldAccessor accessor : List.of(value, tag)) {
+            for (ScanPredicate predicate : predicates) {
+                final BitSet scalar = BitStructScanner.filter(accessor, records, OFFSET, COUNT, predicate, false);
+                final BitSet vector = BitStructScanner.filter(accessor, records, OFFSET, COUNT, predicate, true);
+                assertEquals(scalar, vector, predicate.toString());
+            }
+        }
+    }
+
+    @Test
+    public void tooSmall() {
+        final FieldAccessor value = FieldAccessor.of(Wide64.class, "value");
+        final MemorySegment records = MemorySegment.ofArray(new byte[9 * 10]);
+        assertThrows(RuntimeException.class,
+                () -> BitStructScanner.filter(value, records, 1, 10, ScanPredicate.equalTo(0)));
+        assertEquals(10, BitStructScanner.filter(value, records, 0, 10, ScanPredicate.equalTo(0)).cardinality());
+    }
+
+
+
+    /** Each predicate, vectorised and not, against the same test on the decoded values. */
+    private static void checkAll(FieldAccessor accessor, MemorySegment records, long[] values, List<Long> operands) {
+        for (long operand : operands) {
+            check(accessor, records, values, ScanPredicate.equalTo(operand), value -> value == operand);
+            check(accessor, records, values, ScanPredicate.notEqualTo(operand), value -> value != operand);
+            check(accessor, records, values, ScanPredicate.lessThan(operand),
+                    value -> Long.compareUnsigned(value, operand) < 0);
+            check(accessor, records, values, ScanPredicate.atMost(operand),
+                    value -> Long.compareUnsigned(value, operand) <= 0);
+            check(accessor, records, values, ScanPredicate.greaterThan(operand),
+                    value -> Long.compareUnsigned(value, operand) > 0);
+            check(accessor, records, values, ScanPredicate.atLeast(operand),
+                    value -> Long.compareUnsigned(value, operand) >= 0);
+            check(accessor, records, values, ScanPredicate.between(operand >>> 1, operand),
+                    value -> Long.compareUnsigned(value, operand >>> 1) >= 0
+                            && Long.compareUnsigned(value, operand) <= 0);
+            check(accessor, records, values, ScanPredicate.anyBits(operand), value -> (value & operand) != 0);
+            check(accessor, records, values, ScanPredicate.allBits(operand), value -> (value & operand) == operand);
+            check(accessor, records, values, ScanPredicate.noBits(operand), value -> (value & operand) == 0);
+        }
+    }
+
+    private static void check(FieldAccessor accessor, MemorySegment records, long[] values, ScanPredicate predicate,
+                              LongPredicate expected) {
+        final BitSet expectedMatches = new BitSet();
+        for (int i = 0; i < values.length; i++) {
+            if (expected.test(values[i])) expectedMatches.set(i);
+        }
+
+        for (boolean vectorized : BitStructScanner.VECTORIZED ? new boolean[] {false, true} : new boolean[] {false}) {
+            final BitSet matches = BitStructScanner.filter(accessor, records, OFFSET, COUNT, predicate, vectorized);
+            assertEquals(expectedMatches, matches, predicate + (vectorized ? " vectorized" : " scalar"));
+        }
+    }
+
+    private static byte[] random(int size) {
+        final byte[] bytes = new byte[size];
+        new Random(17).nextBytes(bytes);
+        return bytes;
+    }
+
+
+
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    public record Wide64(
+            @BitVal(first = 0, len = 64) long value,
+            @BitVal(first = 64, len = 8) byte tag
+    ) implements BitStruct { }
+
+}
@@ -0,0 +1,84 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.example.Utils.bs;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+public class EndianTest {
+
+    @Test
+    public void bitArrayMatchesBigInteger() {
+        final Random random = new Random(21);
+        for (int width : new int[] {8, 24, 64, 72, 128, 200}) {
+            final BigInteger mask = BigInteger.ONE.shiftLeft(width).subtract(BigInteger.ONE);
+            for (int round = 0; round < 50; round++) {
+                final BigInteger a = new BigInteger(width, random);
+                final BigInteger b = new BigInteger(width, random);
+                final int by = random.nextInt(width + 10);
+
+                final Endian.Ray left = bits(a, width);
+                final Endian.Ray right = bits(b, width);
+                assertEquals(a.not().and(mask), value(left.not()));
+                assertEquals(a.shiftLeft(by).and(mask), value(left.leftShift(by)));
+                assertEquals(a.shiftRight(by), value(left.rightShift(by)));
+                assertEquals(a.and(b), value(left.and(right, width / 8)));
+                assertEquals(a.or(b), value(left.or(right, width / 8)));
+
+                // The operations above returned copies.
+                assertEquals(a, value(left));
+            }
+        }
+    }
+
+    @Test
+    public void inPlaceAndFieldAccess() {
+        final Endian.BitArray array = new Endian.BitArray(bs(0x01, 0x02, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08, 0x09),
+                BitDetails.ByteOrdering.BIG);
+        assertEquals(0x0203040506070809L, array.getLong(0, 64));
+        assertEquals(0x0102L, array.getLong(56, 16));
+
+        array.setLongInPlace(60, 8, 0xff).rightShiftInPlace(8);
+        assertArrayEquals(bs(0x00, 0x0f, 0xf2, 0x03, 0x04, 0x05, 0x06, 0x07, 0x08), array.asByteArray());
+
+        final Endian.BitLong register = new Endian.BitLong(32, 0xcf, BitDetails.ByteOrdering.LITTLE);
+        register.notInPlace().andInPlace(new Endian.BitLong(8, 0xff, BitDetails.ByteOrdering.LITTLE));
+        assertEquals(0x30, register.value());
+        assertArrayEquals(bs(0x30, 0, 0, 0), register.asByteArray());
+
+        assertInstanceOf(Endian.BitLong.class, Endian.forStruct(8, BitDetails.ByteOrdering.BIG));
+        assertInstanceOf(Endian.BitArray.class, Endian.forStruct(9, BitDetails.ByteOrdering.BIG));
+    }
+
+    @Test
+    public void mixesWithBigIntegerRays() {
+        final Endian.BitArray array = new Endian.BitArray(bs(0xff, 0x0f, 0xf0), BitDetails.ByteOrdering.LITTLE);
+        assertArrayEquals(bs(0x0f, 0x00, 0x00), array.and(new Endian.LBI(0x0f), 3).asByteArray());
+        assertArrayEquals(bs(0xff, 0x0f, 0xf1), array.or(new Endian.BBI(0x10000), 3).asByteArray());
+        assertArrayEquals(bs(0xef, 0x0f, 0xf0), array.and(Endian.LBI.ONE.leftShift(4).not(), 3).asByteArray());
+    }
+
+
+
+    private static Endian.Ray bits(BigInteger value, int width) {
+        final Endian.BitArray array = new Endian.BitArray(width, BitDetails.ByteOrdering.LITTLE);
+        for (int first = 0; first < width; first += 64) {
+            array.setLongInPlace(first, Math.min(64, width - first), value.shiftRight(first).longValue());
+        }
+        if (width > 64) return array;
+        return new Endian.BitLong(width, array.getLong(0, width), BitDetails.ByteOrdering.LITTLE);
+    }
+
+    private static BigInteger value(Endian.Ray ray) {
+        final byte[] little = ray.asByteArray();
+        final byte[] big = new byte[little.length];
+        for (int i = 0; i < little.length; i++) big[i] = little[little.length - 1 - i];
+        return new BigInteger(1, big);
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.example.lombok;
+
+import org.example.BitColumns;
+import org.example.BitDetails;
+import org.example.BitStruct;
+import org.example.BitVal;
+import org.example.FieldAccessor;
+import org.junit.jupiter.api.Test;
+
+import static org.example.Utils.bs;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ArrayFieldTest {
+
+    private static final byte[] BYTES = bs(
+            0x21, 0x43,
+            0xcf, 0, 0, 0, 0x05, 0, 0, 0,
+            0x01, 0x02, 0x04,
+            0b1010_0101,
+            0x45, 0x23, 0xe1, 0xcd, 0xab,
+            0xfe, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff
+    );
+
+    @Test
+    public void decodeAndEncode() {
+        final Samples decoded = BitStruct.decode(Samples.class, BYTES);
+
+        assertArrayEquals(new byte[] {1, 2, 3, 4}, decoded.gains());
+        assertEquals(2, decoded.pwrUps().length);
+        assertArrayEquals(
+                new EnumParamsTest.TestEnum[] {EnumParamsTest.TestEnum.A, EnumParamsTest.TestEnum.B,
+                        EnumParamsTest.TestEnum.C},
+                decoded.checks()
+        );
+        assertArrayEquals(new boolean[] {true, false, true, false, false, true, false, true}, decoded.flags());
+        assertArrayEquals(new int[] {0x12345, 0xabcde}, decoded.wide());
+        assertArrayEquals(new long[] {-2}, decoded.stamps());
+
+        assertArrayEquals(BYTES, decoded.encode());
+    }
+
+    @Test
+    public void elementsByPath() {
+        assertEquals((byte) 3, BitStruct.readField(Samples.class, BYTES, "gains[2]"));
+        assertEquals((byte) 0xf, BitStruct.readField(Samples.class, BYTES, "pwrUps[0].source"));
+        assertEquals((byte) 5, BitStruct.readField(Samples.class, BYTES, "pwrUps[1].source"));
+        assertSame(EnumParamsTest.TestEnum.C, BitStruct.readField(Samples.class, BYTES, "checks[2]"));
+        assertEquals(0xabcde, BitStruct.readField(Samples.class, BYTES, "wide[1]"));
+
+        assertThrows(RuntimeException.class, () -> FieldAccessor.of(Samples.class, "gains"));
+        assertThrows(RuntimeException.class, () -> FieldAccessor.of(Samples.class, "gains[4]"));
+        assertThrows(RuntimeException.class, () -> FieldAccessor.of(Samples.class, "flags[x]"));
+
+        final BitColumns columns = BitColumns.decode(Samples.class, BYTES, 1);
+        assertTrue(columns.paths().contains("pwrUps[1].direction"));
+        assertEquals(4, columns.bytes("gains[3]")[0]);
+        assertEquals(2, columns.ordinals("checks[2]")[0]);
+        assertTrue(columns.booleans("flags[7]").get(0));
+        assertEquals(-2L, columns.longs("stamps[0]")[0]);
+    }
+
+    @Test
+    public void badArrays() {
+        final Samples decoded = BitStruct.decode(Samples.class, BYTES);
+        final Samples shortGains = new Samples(new byte[3], decoded.pwrUps(), decoded.checks(), decoded.flags(),
+                decoded.wide(), decoded.stamps());
+        assertThrows(RuntimeException.class, shortGains::encode);
+
+        assertThrows(RuntimeException.class, () -> BitStruct.decode(NoCount.class, bs(0)));
+        assertThrows(RuntimeException.class, () -> BitStruct.decode(CountOnScalar.class, bs(0)));
+        assertThrows(RuntimeException.class, () -> BitStruct.decode(CloseStride.class, bs(0)));
+    }
+
+
+
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    public record Samples(
+            @BitVal(first = 0, len = 4, count = 4) byte[] gains,
+            @BitVal(first = 16, len = 32, count = 2) NestedOrderingTest.PwrUp0[] pwrUps,
+            @BitVal(first = 80, len = 4, count = 3, stride = 8) EnumParamsTest.TestEnum[] checks,
+            @BitVal(first = 104, len = 1, count = 8) boolean[] flags,
+            @BitVal(first = 112, len = 20, count = 2) int[] wide,
+            @BitVal(first = 152, len = 64, count = 1) long[] stamps
+    ) implements BitStruct { }
+
+    public record NoCount(@BitVal(first = 0, len = 4) byte[] values) implements BitStruct { }
+
+    public record CountOnScalar(@BitVal(first = 0, len = 4, count = 2) byte value) implements BitStruct { }
+
+    public record CloseStride(@BitVal(first = 0, len = 4, count = 2, stride = 2) byte[] values) implements BitStruct { }
+
+}
@@ -0,0 +1,106 @@
+package org.example.lombok;
+
+import org.example.BitColumns;
+import org.example.BitDetails;
+import org.example.BitStruct;
+import org.example.BitVal;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static org.example.Utils.bs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BitColumnsTest {
+
+    private static final int COUNT = 2500;
+
+    @Test
+    public void everyTypeMatchesDecode() {
+        final MemorySegment records = MemorySegment.ofArray(random(1 + COUNT * 8));
+        for (int i = 0; i < COUNT; i++) {
+            // Keep the enum to a known value or an unknown one, which decodes as null.
+            records.set(JAVA_BYTE, 1 + i * 8L, (byte) (i % 2));
+        }
+
+        final BitColumns columns = BitColumns.decode(Row.class, records, 1, COUNT);
+        final List<Row> rows = BitStruct.decodeAll(Row.class, records, 1, COUNT);
+
+        assertEquals(COUNT, columns.count());
+        assertEquals(List.of("mode", "on", "level", "stamp", "tag"), columns.paths());
+
+        final BitSet on = columns.booleans("on");
+        final short[] level = columns.shorts("level");
+        final long[] stamp = columns.longs("stamp");
+        final byte[] tag = columns.bytes("tag");
+        final int[] mode = columns.ordinals("mode");
+        for (int i = 0; i < COUNT; i++) {
+            final Row row = rows.get(i);
+            assertEquals(row.on(), on.get(i));
+            assertEquals(row.level(), level[i]);
+            assertEquals(row.stamp(), stamp[i]);
+            assertEquals(row.tag(), tag[i]);
+            assertEquals((row.mode() == null) ? -1 : row.mode().ordinal(), mode[i]);
+        }
+    }
+
+    @Test
+    public void nestedFieldsAreFlattened() {
+        final byte[] bytes = random(COUNT * 3);
+        final BitColumns columns = BitColumns.decode(InPlaceDecodeTest.Shifted.class, bytes, COUNT);
+        final List<InPlaceDecodeTest.Shifted> decoded =
+                BitStruct.decodeAll(InPlaceDecodeTest.Shifted.class, bytes, COUNT);
+
+        assertEquals(List.of("nibble", "pair.low", "pair.high"), columns.paths());
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(decoded.get(i).nibble(), columns.bytes("nibble")[i]);
+            assertEquals(decoded.get(i).pair().low(), columns.bytes("pair.low")[i]);
+            assertEquals(decoded.get(i).pair().high(), columns.bytes("pair.high")[i]);
+        }
+    }
+
+    @Test
+    public void lazyFieldsAreFlattened() {
+        final byte[] bank = bs(0x1e, 0, 0, 2, 0x12, 0, 0, 0, 0xcf, 0, 0, 0);
+        final BitColumns columns = BitColumns.decode(LazyTest.LazyBank.class, bank, 1);
+
+        assertEquals(15, columns.bytes("statusReg.date")[0]);
+        assertEquals(0x12, columns.bytes("currentPowerUpReg.currentState")[0]);
+        assertEquals(0xf, columns.bytes("pwrUp0.source")[0]);
+    }
+
+    @Test
+    public void wrongColumns() {
+        final BitColumns columns = BitColumns.decode(Row.class, new byte[8], 1);
+        assertSame(columns.shorts("level"), columns.shorts("level"));
+        assertThrows(RuntimeException.class, () -> columns.ints("level"));
+        assertThrows(RuntimeException.class, () -> columns.ints("mode"));
+        assertThrows(RuntimeException.class, () -> columns.ordinals("tag"));
+        assertThrows(RuntimeException.class, () -> columns.bytes("missing"));
+        assertThrows(RuntimeException.class, () -> BitColumns.decode(Row.class, new byte[15], 2));
+    }
+
+
+
+    private static byte[] random(int size) {
+        final byte[] bytes = new byte[size];
+        new Random(5).nextBytes(bytes);
+        return bytes;
+    }
+
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    public record Row(
+            @BitVal(first = 0, len = 8) EnumParamsTest.NullEnum mode,
+            @BitVal(first = 8, len = 1) boolean on,
+            @BitVal(first = 9, len = 15) short level,
+            @BitVal(first = 24, len = 32) long stamp,
+            @BitVal(first = 56, len = 8) byte tag
+    ) implements BitStruct { }
+
+}
@@ -0,0 +1,93 @@
+package org.example.lombok;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.example.BitMetrics;
+import org.example.BitMetricsRecorder;
+import org.example.BitStruct;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.example.Utils.bs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BitMetricsTest {
+
+    private static final byte[] BYTES = bs(0xcf, 0, 0, 0, 0x12, 0, 0, 0, 0x1e, 0, 0, 2);
+
+    @Test
+    public void recorderCountsCallsBytesAndErrors() {
+        final BitMetricsRecorder recorder = new BitMetricsRecorder();
+        BitMetrics.register(recorder);
+        try {
+            final NestedOrderingTest.BankLittle bank = BitStruct.decode(NestedOrderingTest.BankLittle.class, BYTES);
+            BitStruct.decode(NestedOrderingTest.BankLittle.class, BYTES);
+            bank.encode();
+            assertThrows(RuntimeException.class, () -> BitStruct.decode(NestedOrderingTest.BankLittle.class, bs(1)));
+        } finally {
+            BitMetrics.unregister(recorder);
+        }
+        BitStruct.decode(NestedOrderingTest.BankLittle.class, BYTES);
+
+        final BitMetricsRecorder.Stats decodes =
+                recorder.stats(NestedOrderingTest.BankLittle.class, BitMetrics.Operation.DECODE);
+        assertEquals(2, decodes.calls());
+        assertEquals(24, decodes.bytes());
+        assertEquals(1, decodes.errors());
+        assertTrue(decodes.percentile(1) > 0);
+
+        final BitMetricsRecorder.Stats encodes =
+                recorder.stats(NestedOrderingTest.BankLittle.class, BitMetrics.Operation.ENCODE);
+        assertEquals(1, encodes.calls());
+        assertEquals(12, encodes.bytes());
+
+        // Nested structs are part of their parent's time, not calls of their own.
+        assertEquals(0, recorder.stats(NestedOrderingTest.PwrUp0.class, BitMetrics.Operation.DECODE).calls());
+        assertEquals(1, recorder.stats(BitMetrics.Operation.DECODE).size());
+    }
+
+    @Test
+    public void flightRecorderEvents() throws Exception {
+        final Path file = Files.createTempFile("bitstructs", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.example.Decode");
+            recording.enable("org.example.Encode");
+            recording.start();
+
+            BitMetrics.register(BitMetrics.flightRecorder());
+            try {
+                BitStruct.decode(NestedOrderingTest.BankLittle.class, BYTES).encode();
+                assertThrows(RuntimeException.class, () -> BitStruct.decode(NestedOrderingTest.BankLittle.class, bs()));
+            } finally {
+                BitMetrics.unregister(BitMetrics.flightRecorder());
+            }
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        final List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        final String bank = NestedOrderingTest.BankLittle.class.getName();
+        final List<RecordedEvent> decodes = events.stream()
+                .filter(event -> event.getEventType().getName().equals("org.example.Decode"))
+                .toList();
+        assertEquals(2, decodes.size());
+        assertEquals(bank, decodes.get(0).getClass("struct").getName());
+        assertEquals(12, decodes.get(0).getInt("bytes"));
+        assertTrue(decodes.get(0).getEndTime().isAfter(decodes.get(0).getStartTime()));
+        assertTrue(decodes.get(1).getString("error") != null);
+
+        assertEquals(1, events.stream()
+                .filter(event -> event.getEventType().getName().equals("org.example.Encode"))
+                .count());
+    }
+
+}
@@ -0,0 +1,185 @@
+package org.example.lombok;
+
+import org.example.BitStruct;
+import org.example.BitStructReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BitStructReaderTest {
+
+    private static final int COUNT = 100;
+
+    private static final int SIZE = 12;
+
+    @Test
+    public void framesCrossReads() {
+        final byte[] bytes = randomRecords(COUNT);
+        // A 20 byte buffer fed 5 bytes a read, so most frames are split over reads and over the buffer end.
+        final BitStructReader<NestedOrderingTest.BankLittle> reader =
+                BitStructReader.of(NestedOrderingTest.BankLittle.class, trickle(bytes, 5), 20);
+
+        final List<NestedOrderingTest.BankLittle> expected =
+                BitStruct.decodeAll(NestedOrderingTest.BankLittle.class, bytes, COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            assertTrue(reader.hasNext());
+            assertArrayEquals(expected.get(i).encode(), reader.next().encode(), "Frame " + i);
+        }
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void stream() {
+        final byte[] bytes = randomRecords(COUNT);
+        try (BitStructReader<NestedOrderingTest.BankLittle> reader =
+                     BitStructReader.of(NestedOrderingTest.BankLittle.class, new ByteArrayInputStream(bytes))) {
+            assertEquals(COUNT, reader.stream().count());
+        }
+    }
+
+    @Test
+    public void partialFrame() {
+        final byte[] bytes = Arrays.copyOf(randomRecords(2), SIZE + 5);
+        final BitStructReader<NestedOrderingTest.BankLittle> reader =
+                BitStructReader.of(NestedOrderingTest.BankLittle.class, new ByteArrayInputStream(bytes));
+
+        reader.next();
+        assertThrows(RuntimeException.class, reader::hasNext);
+    }
+
+    @Test
+    public void publisherFollowsDemand() {
+        final BitStructReader<NestedOrderingTest.BankLittle> reader = BitStructReader.of(
+                NestedOrderingTest.BankLittle.class, new ByteArrayInputStream(randomRecords(COUNT))
+        );
+        final Collector collector = new Collector();
+        reader.publisher(Runnable::run).subscribe(collector);
+
+        collector.subscription.request(3);
+        assertEquals(3, collector.received.size());
+        assertFalse(collector.complete);
+
+        collector.subscription.request(Long.MAX_VALUE);
+        assertEquals(COUNT, collector.received.size());
+        assertTrue(collector.complete);
+        assertNull(collector.error);
+    }
+
+    @Test
+    public void completesWithoutDemand() {
+        final BitStructReader<NestedOrderingTest.BankLittle> empty = BitStructReader.of(
+                NestedOrderingTest.BankLittle.class, new ByteArrayInputStream(new byte[0])
+        );
+        final Collector nothingRequested = new Collector();
+        empty.publisher(Runnable::run).subscribe(nothingRequested);
+        assertTrue(nothingRequested.complete);
+        assertTrue(nothingRequested.received.isEmpty());
+
+        final BitStructReader<NestedOrderingTest.BankLittle> reader = BitStructReader.of(
+                NestedOrderingTest.BankLittle.class, new ByteArrayInputStream(randomRecords(COUNT))
+        );
+        final Collector exactDemand = new Collector();
+        reader.publisher(Runnable::run).subscribe(exactDemand);
+        assertFalse(exactDemand.complete);
+
+        exactDemand.subscription.request(COUNT);
+        assertEquals(COUNT, exactDemand.received.size());
+        assertTrue(exactDemand.complete);
+        assertNull(exactDemand.error);
+    }
+
+    @Test
+    public void badDemandErrorsAfterTheItemInFlight() {
+        final BitStructReader<NestedOrderingTest.BankLittle> reader = BitStructReader.of(
+                NestedOrderingTest.BankLittle.class, new ByteArrayInputStream(randomRecords(COUNT))
+        );
+        final List<String> signals = new ArrayList<>();
+        final Collector collector = new Collector() {
+            @Override
+            public void onNext(NestedOrderingTest.BankLittle item) {
+                signals.add("onNext");
+                super.onNext(item);
+                if (received.size() == 2) subscription.request(0);
+                signals.add("onNext returned");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                signals.add("onError");
+                super.onError(throwable);
+            }
+        };
+        reader.publisher(Runnable::run).subscribe(collector);
+
+        collector.subscription.request(10);
+        assertEquals(List.of("onNext", "onNext returned", "onNext", "onNext returned", "onError"), signals);
+        assertTrue(collector.error instanceof IllegalArgumentException);
+        assertFalse(collector.complete);
+
+        collector.subscription.request(0);
+        collector.subscription.request(5);
+        assertEquals(5, signals.size());
+    }
+
+
+
+    private static byte[] randomRecords(int count) {
+        final byte[] bytes = new byte[count * SIZE];
+        new Random(3).nextBytes(bytes);
+        return bytes;
+    }
+
+    /** A stream returning at most chunk bytes per read. */
+    private static InputStream trickle(byte[] bytes, int chunk) {
+        return new ByteArrayInputStream(bytes) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunk));
+            }
+        };
+    }
+
+    private static class Collector implements Flow.Subscriber<NestedOrderingTest.BankLittle> {
+        final List<NestedOrderingTest.BankLittle> received = new ArrayList<>();
+
+        Flow.Subscription subscription;
+
+        private boolean complete = false;
+
+        private Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(NestedOrderingTest.BankLittle item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.complete = true;
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+package org.example.lombok;
+
+import org.example.BitStruct;
+import org.example.BitStructWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.List;
+import java.util.Random;
+
+import static org.example.Utils.bs;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BitStructWriterTest {
+
+    private static final int COUNT = 5_000;
+
+    private static final int SIZE = 12;
+
+    @Test
+    public void gatheringWritesPerBatch() {
+        final List<NestedOrderingTest.BankLittle> structs = randomStructs();
+        final RecordingChannel channel = new RecordingChannel();
+
+        // 40 000 bytes per batch spans several of the writer's buffers.
+        try (BitStructWriter writer = BitStructWriter.of(channel, 40_000, Integer.MAX_VALUE)) {
+            structs.forEach(writer::write);
+        }
+
+        assertArrayEquals(expected(structs), channel.out.toByteArray());
+        assertEquals((COUNT * SIZE + 40_000 - 1) / 40_000, channel.writes);
+    }
+
+    @Test
+    public void countThresholdAndFlush() {
+        final List<NestedOrderingTest.BankLittle> structs = randomStructs().subList(0, 25);
+        final RecordingChannel channel = new RecordingChannel();
+
+        final BitStructWriter writer = BitStructWriter.of(channel, Integer.MAX_VALUE, 10);
+        structs.forEach(writer::write);
+        assertEquals(2, channel.writes);
+        assertEquals(20 * SIZE, channel.out.size());
+
+        writer.flush();
+        assertEquals(3, channel.writes);
+        assertArrayEquals(expected(structs), channel.out.toByteArray());
+    }
+
+    @Test
+    public void failedFlushKeepsUnwrittenBytes() {
+        final List<NestedOrderingTest.BankLittle> structs = randomStructs().subList(0, 4_000);
+        final RecordingChannel channel = new RecordingChannel();
+        // Part way through a struct in the second of the writer's buffers.
+        channel.failAt = 20_000;
+
+        final BitStructWriter writer = BitStructWriter.of(channel, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        structs.subList(0, 3_000).forEach(writer::write);
+        assertThrows(UncheckedIOException.class, writer::flush);
+        assertEquals(20_000, channel.out.size());
+
+        structs.subList(3_000, 4_000).forEach(writer::write);
+        writer.flush();
+        assertArrayEquals(expected(structs), channel.out.toByteArray());
+    }
+
+    @Test
+    public void mixedStructsToStream() {
+        final NestedOrderingTest.BankLittle bank = BitStruct.decode(
+                NestedOrderingTest.BankLittle.class, bs(0xcf, 0, 0, 0, 0x12, 0, 0, 0, 0x1e, 0, 0, 2)
+        );
+        final InPlaceDecodeTest.Shifted shifted =
+                BitStruct.decode(InPlaceDecodeTest.Shifted.class, bs(0x0a, 0xbc, 0xde));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (BitStructWriter writer = BitStructWriter.of(out)) {
+            writer.write(shifted);
+            writer.write(bank);
+            writer.write(shifted);
+        }
+
+        assertArrayEquals(
+                bs(0x0a, 0xbc, 0xde, 0xcf, 0, 0, 0, 0x12, 0, 0, 0, 0x1e, 0, 0, 2, 0x0a, 0xbc, 0xde),
+                out.toByteArray()
+        );
+    }
+
+
+
+    private static List<NestedOrderingTest.BankLittle> randomStructs() {
+        final byte[] bytes = new byte[COUNT * SIZE];
+        new Random(5).nextBytes(bytes);
+        return BitStruct.decodeAll(NestedOrderingTest.BankLittle.class, bytes, COUNT);
+    }
+
+    private static byte[] expected(List<? extends BitStruct> structs) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        structs.forEach(struct -> out.writeBytes(struct.encode()));
+        return out.toByteArray();
+    }
+
+    /** Counts gathering writes, taking everything it is given until it fails once at failAt bytes. */
+    private static class RecordingChannel implements GatheringByteChannel {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        private int writes = 0;
+
+        private long failAt = Long.MAX_VALUE;
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            writes++;
+            long written = 0;
+            for (int i = offset; i < offset + length; i++) written += write(srcs[i]);
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) throws IOException {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (out.size() + src.remaining() > failAt) {
+                final byte[] bytes = new byte[(int) (failAt - out.size())];
+                src.get(bytes);
+                out.writeBytes(bytes);
+                failAt = Long.MAX_VALUE;
+                throw new IOException("Failing once at " + out.size() + " bytes.");
+            }
+
+            final byte[] bytes = new byte[src.remaining()];
+            src.get(bytes);
+            out.writeBytes(bytes);
+            return bytes.length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() { }
+    }
+
+}
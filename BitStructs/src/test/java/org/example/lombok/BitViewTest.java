@@ -0,0 +1,98 @@
+package org.example.lombok;
+
+import org.example.BitStruct;
+import org.example.BitView;
+import org.example.FieldAccessor;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+
+import static org.example.Utils.bs;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BitViewTest {
+
+    @Test
+    public void readsInBothOrderings() {
+        final BitView<NestedOrderingTest.StatusReg> big = BitView.of(NestedOrderingTest.StatusReg.class)
+                .bind(bs(0x1e, 0, 0, 2), 0);
+        assertEquals(2, big.getLong("status"));
+        assertEquals(15, big.getLong("date"));
+
+        final BitView<NestedOrderingTest.PwrUp0> little = BitView.of(NestedOrderingTest.PwrUp0.class)
+                .bind(bs(0xcf, 0, 0, 0), 0);
+        assertEquals(0xf, little.getLong("source"));
+        assertTrue(little.getBoolean("enable"));
+        assertEquals((byte) 1, little.get("direction"));
+    }
+
+    @Test
+    public void writesOnlyTheField() {
+        final byte[] bytes = bs(0xff, 0x1e, 0, 0, 2, 0xff);
+        final BitView<NestedOrderingTest.StatusReg> view = BitView.of(NestedOrderingTest.StatusReg.class)
+                .bind(bytes, 1);
+
+        view.setLong("date", 3);
+        view.set("status", (byte) 5);
+        assertArrayEquals(bs(0xff, 0x06, 0, 0, 5, 0xff), bytes);
+
+        final NestedOrderingTest.StatusReg decoded = view.decode();
+        assertArrayEquals(bs(0x06, 0, 0, 5), decoded.encode());
+    }
+
+    @Test
+    public void repointsOverARun() {
+        final byte[] run = bs(0x02, 0xc0, 0x04, 0x90, 0x01, 0x30);
+        final BitView<EnumParamsTest.SimpleCheck> view = BitView.of(EnumParamsTest.SimpleCheck.class).bind(run, 0);
+        final FieldAccessor delta1 = view.field("delta1");
+
+        final long[] read = new long[3];
+        for (int i = 0; i < 3; i++) {
+            view.offset((long) i * view.size());
+            read[i] = view.getLong(delta1);
+            view.setLong(delta1, read[i] + 1);
+        }
+
+        assertArrayEquals(new long[] {0, 0, 0}, read);
+        for (int i = 0; i < 3; i++) {
+            final EnumParamsTest.SimpleCheck decoded =
+                    BitStruct.decode(EnumParamsTest.SimpleCheck.class, MemorySegment.ofArray(run), 2L * i);
+            assertEquals(1, decoded.getDelta1());
+        }
+    }
+
+    @Test
+    public void enumFields() {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(4).put(bs(0, 0, 0b0000_0100, 0b0000_0101)).position(2);
+        final BitView<EnumParamsTest.SimpleCheck> view = BitView.of(EnumParamsTest.SimpleCheck.class).bind(buffer);
+
+        assertSame(EnumParamsTest.TestEnum.C, view.get("delta2"));
+        assertEquals(5, view.getLong("delta1"));
+
+        view.set("delta2", EnumParamsTest.TestEnum.A);
+        assertEquals(1, buffer.get(2));
+        assertEquals(5, buffer.get(3));
+        assertEquals(2, buffer.position());
+    }
+
+    @Test
+    public void badAccess() {
+        final BitView<NestedOrderingTest.BankLittle> bank = BitView.of(NestedOrderingTest.BankLittle.class)
+                .bind(new byte[12], 0);
+        assertThrows(RuntimeException.class, () -> bank.getLong("pwrUp0"));
+        assertThrows(RuntimeException.class, () -> bank.getLong("missing"));
+        assertThrows(RuntimeException.class, () -> bank.offset(1));
+
+        final BitView<EnumParamsTest.SimpleCheck> check = BitView.of(EnumParamsTest.SimpleCheck.class)
+                .bind(new byte[2], 0);
+        assertThrows(RuntimeException.class, () -> check.set("delta1", "five"));
+        assertFalse(check.getBoolean("delta1"));
+    }
+
+}
@@ -0,0 +1,73 @@
+package org.example.lombok;
+
+import org.example.BitStruct;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.example.Utils.bs;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DecodeAllTest {
+
+    private static final byte[] RECORDS = bs(
+            0xcf, 0, 0, 0, 0x12, 0, 0, 0, 0x1e, 0, 0, 2,
+            0x01, 0, 0, 0, 0x34, 0, 0, 0, 0x06, 0, 0, 1,
+            0x3f, 0, 0, 0, 0x7f, 0, 0, 0, 0x02, 0, 0, 4
+    );
+
+    private static final int SIZE = 12;
+
+    @Test
+    public void listFromArray() {
+        final List<NestedOrderingTest.BankLittle> decoded =
+                BitStruct.decodeAll(NestedOrderingTest.BankLittle.class, RECORDS, 3);
+
+        assertEquals(3, decoded.size());
+        for (int i = 0; i < decoded.size(); i++) {
+            assertArrayEquals(record(i), decoded.get(i).encode());
+        }
+    }
+
+    @Test
+    public void arrayFromBuffer() {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORDS.length + 4).position(4);
+        buffer.put(4, RECORDS);
+
+        final NestedOrderingTest.BankLittle[] decoded = new NestedOrderingTest.BankLittle[2];
+        BitStruct.decodeAll(NestedOrderingTest.BankLittle.class, buffer, decoded);
+
+        assertEquals(4, buffer.position());
+        assertArrayEquals(record(0), decoded[0].encode());
+        assertArrayEquals(record(1), decoded[1].encode());
+    }
+
+    @Test
+    public void listFromSegment() {
+        final MemorySegment segment = MemorySegment.ofArray(RECORDS);
+        final List<NestedOrderingTest.BankLittle> decoded =
+                BitStruct.decodeAll(NestedOrderingTest.BankLittle.class, segment, SIZE, 2);
+
+        assertArrayEquals(record(1), decoded.get(0).encode());
+        assertArrayEquals(record(2), decoded.get(1).encode());
+    }
+
+    @Test
+    public void tooSmall() {
+        final Class<NestedOrderingTest.BankLittle> type = NestedOrderingTest.BankLittle.class;
+        assertThrows(RuntimeException.class, () -> BitStruct.decodeAll(type, RECORDS, 4));
+        assertThrows(RuntimeException.class, () -> BitStruct.decodeAll(type, RECORDS, -1));
+    }
+
+
+
+    private static byte[] record(int index) {
+        return Arrays.copyOfRange(RECORDS, index * SIZE, (index + 1) * SIZE);
+    }
+
+}
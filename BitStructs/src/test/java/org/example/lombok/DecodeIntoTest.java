@@ -0,0 +1,129 @@
+package org.example.lombok;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.BitDetails;
+import org.example.BitStruct;
+import org.example.BitStructPool;
+import org.example.BitVal;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.example.Utils.bs;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DecodeIntoTest {
+
+    private static final byte[] FIRST = bs(0x15, 0x02, 0x21, 0x43, 0x65, 0x87);
+
+    private static final byte[] SECOND = bs(0x0a, 0x04, 0xba, 0xdc, 0xfe, 0x10);
+
+    @Test
+    public void matchesDecodeAndReusesInstances() {
+        final Frame target = BitStruct.decodeInto(new Frame(), FIRST);
+        assertEquals(BitStruct.decode(Frame.class, FIRST), target);
+        assertEquals(5, target.count);
+        assertEquals(true, target.flag);
+        assertSame(EnumParamsTest.TestEnum.B, target.mode);
+        assertEquals(new Reading((byte) 1, (byte) 2), target.reading);
+        assertArrayEquals(new byte[] {7, 8}, target.gains);
+        assertArrayEquals(FIRST, target.encode());
+
+        final Reading reading = target.reading;
+        final Reading[] pair = target.pair;
+        final Reading first = pair[0];
+        final byte[] gains = target.gains;
+
+        assertSame(target, BitStruct.decodeInto(target, SECOND));
+        assertEquals(BitStruct.decode(Frame.class, SECOND), target);
+        assertEquals(false, target.flag);
+        assertSame(reading, target.reading);
+        assertSame(pair, target.pair);
+        assertSame(first, target.pair[0]);
+        assertSame(gains, target.gains);
+        assertArrayEquals(SECOND, target.encode());
+    }
+
+    @Test
+    public void missingStructsComeFromThePool() {
+        final List<Class<?>> taken = new ArrayList<>();
+        final BitStructPool counting = new BitStructPool() {
+            @Override
+            public <S extends BitStruct> S take(Class<S> type) {
+                taken.add(type);
+                return BitStructPool.perThread().take(type);
+            }
+
+            @Override
+            public void give(BitStruct struct) {
+                BitStructPool.perThread().give(struct);
+            }
+        };
+
+        final Frame target = new Frame();
+        target.pair = new Reading[] {new Reading(), null};
+        BitStruct.decodeInto(target, MemorySegment.ofArray(FIRST), 0, counting);
+        assertEquals(List.of(Reading.class, Reading.class), taken);
+        assertEquals(BitStruct.decode(Frame.class, FIRST), target);
+
+        final Reading pooled = new Reading();
+        BitStructPool.perThread().give(pooled);
+        assertSame(pooled, BitStructPool.perThread().take(Reading.class));
+    }
+
+    @Test
+    public void immutableStructsThrow() {
+        final byte[] bytes = bs(0x11, 0xcb, 0xaa, 0x12, 0xf3);
+        final NestedBitStructTest.ParentStruct parent = BitStruct.decode(NestedBitStructTest.ParentStruct.class, bytes);
+        assertThrows(RuntimeException.class, () -> BitStruct.decodeInto(parent, bytes));
+
+        final ArrayFieldTest.NoCount record = new ArrayFieldTest.NoCount(new byte[0]);
+        assertThrows(RuntimeException.class, () -> BitStruct.decodeInto(record, bs(0)));
+        assertThrows(RuntimeException.class, () -> BitStruct.decodeInto(new Frame(), bs(0x15, 0x02)));
+    }
+
+
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    public static class Frame implements BitStruct {
+        @BitVal(first = 0, len = 4)
+        private int count;
+
+        @BitVal(first = 4, len = 1)
+        private Boolean flag;
+
+        @BitVal(first = 8, len = 4)
+        private EnumParamsTest.TestEnum mode;
+
+        @BitVal(first = 16, len = 8)
+        private Reading reading;
+
+        @BitVal(first = 24, len = 8, count = 2)
+        private Reading[] pair;
+
+        @BitVal(first = 40, len = 4, count = 2)
+        private byte[] gains;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Reading implements BitStruct {
+        @BitVal(first = 0, len = 4)
+        private byte low;
+
+        @BitVal(first = 4, len = 4)
+        private byte high;
+    }
+
+}
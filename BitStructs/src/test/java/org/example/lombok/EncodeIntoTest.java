@@ -0,0 +1,80 @@
+package org.example.lombok;
+
+import org.example.BitStruct;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static org.example.Utils.bs;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EncodeIntoTest {
+
+    private static final byte FILL = (byte) 0xa5;
+
+    @Test
+    public void arrayAtOffset() {
+        final byte[] bank = bs(0x1e, 0, 0, 2, 0x12, 0, 0, 0, 0xcf, 0, 0, 0);
+        final NestedOrderingTest.BankBig decoded = BitStruct.decode(NestedOrderingTest.BankBig.class, bank);
+
+        final byte[] frame = filled(bank.length + 7);
+        assertEquals(bank.length, decoded.encodeInto(frame, 3));
+
+        assertArrayEquals(bank, Arrays.copyOfRange(frame, 3, 3 + bank.length));
+        assertUntouched(frame, 0, 3);
+        assertUntouched(frame, 3 + bank.length, frame.length);
+    }
+
+    @Test
+    public void directBufferAtPosition() {
+        final byte[] bank = bs(0xcf, 0, 0, 0, 0x12, 0, 0, 0, 0x1e, 0, 0, 2);
+        final NestedOrderingTest.BankLittle decoded = BitStruct.decode(NestedOrderingTest.BankLittle.class, bank);
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(16).put(filled(16)).position(2);
+        assertEquals(bank.length, decoded.encodeInto(buffer));
+        assertEquals(2, buffer.position());
+
+        final byte[] written = new byte[bank.length];
+        buffer.get(2, written);
+        assertArrayEquals(bank, written);
+    }
+
+    @Test
+    public void nestedStructsInSegment() {
+        final InPlaceDecodeTest.Wide wide = BitStruct.decode(InPlaceDecodeTest.Wide.class, bs(1, 2, 3, 4));
+        final InPlaceDecodeTest.Shifted shifted =
+                BitStruct.decode(InPlaceDecodeTest.Shifted.class, bs(0x0a, 0xbc, 0xde));
+
+        final MemorySegment segment = MemorySegment.ofArray(filled(10));
+        final int wideSize = wide.encodeInto(segment, 1);
+        final int shiftedSize = shifted.encodeInto(segment, 1 + wideSize);
+
+        assertArrayEquals(wide.encode(), segment.asSlice(1, wideSize).toArray(JAVA_BYTE));
+        assertArrayEquals(bs(0x0a, 0xbc, 0xde), segment.asSlice(1 + wideSize, shiftedSize).toArray(JAVA_BYTE));
+    }
+
+    @Test
+    public void tooSmall() {
+        final InPlaceDecodeTest.Wide wide = BitStruct.decode(InPlaceDecodeTest.Wide.class, bs(1, 2, 3, 4));
+        assertThrows(RuntimeException.class, () -> wide.encodeInto(new byte[5], 2));
+        assertThrows(RuntimeException.class, () -> wide.encodeInto(ByteBuffer.allocate(3)));
+    }
+
+
+
+    private static byte[] filled(int size) {
+        final byte[] bytes = new byte[size];
+        Arrays.fill(bytes, FILL);
+        return bytes;
+    }
+
+    private static void assertUntouched(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) assertEquals(FILL, bytes[i], "Byte " + i + " was written.");
+    }
+
+}
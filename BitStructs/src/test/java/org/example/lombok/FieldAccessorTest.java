@@ -0,0 +1,96 @@
+package org.example.lombok;
+
+import org.example.BitStruct;
+import org.example.BitVal;
+import org.example.BitView;
+import org.example.FieldAccessor;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.util.List;
+
+import static org.example.Utils.bs;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FieldAccessorTest {
+
+    @Test
+    public void pathsThroughBothOrderings() {
+        final byte[] little = bs(0xcf, 0, 0, 0, 0x12, 0, 0, 0, 0x1e, 0, 0, 2);
+        final byte[] big = bs(0x1e, 0, 0, 2, 0x12, 0, 0, 0, 0xcf, 0, 0, 0);
+
+        for (Class<? extends BitStruct> bank : List.of(
+                NestedOrderingTest.BankLittle.class, NestedOrderingTest.BankBig.class
+        )) {
+            final byte[] bytes = (bank == NestedOrderingTest.BankLittle.class) ? little : big;
+            assertEquals((byte) 0xf, BitStruct.readField(bank, bytes, "pwrUp0.source"));
+            assertEquals((byte) 1, BitStruct.readField(bank, bytes, "pwrUp0.enable"));
+            assertEquals((byte) 1, BitStruct.readField(bank, bytes, "pwrUp0.direction"));
+            assertEquals((byte) 0x12, BitStruct.readField(bank, bytes, "currentPowerUpReg.currentState"));
+            assertEquals(0, BitStruct.readField(bank, bytes, "currentPowerUpReg.empty"));
+            assertEquals((byte) 2, BitStruct.readField(bank, bytes, "statusReg.status"));
+            assertEquals((byte) 15, BitStruct.readField(bank, bytes, "statusReg.date"));
+        }
+    }
+
+    @Test
+    public void unalignedAndWideNestedFields() {
+        final byte[] shiftedBytes = bs(0x0a, 0xbc, 0xde);
+        final InPlaceDecodeTest.Shifted shifted = BitStruct.decode(InPlaceDecodeTest.Shifted.class, shiftedBytes);
+        assertEquals(shifted.nibble(), BitStruct.readField(InPlaceDecodeTest.Shifted.class, shiftedBytes, "nibble"));
+        assertEquals(shifted.pair().low(),
+                BitStruct.readField(InPlaceDecodeTest.Shifted.class, shiftedBytes, "pair.low"));
+        assertEquals(shifted.pair().high(),
+                BitStruct.readField(InPlaceDecodeTest.Shifted.class, shiftedBytes, "pair.high"));
+
+        final MemorySegment wideBytes = MemorySegment.ofArray(bs(9, 1, 2, 3, 4));
+        final InPlaceDecodeTest.Wide wide = BitStruct.decode(InPlaceDecodeTest.Wide.class, wideBytes, 1);
+        assertEquals(wide.pair().low(), BitStruct.readField(InPlaceDecodeTest.Wide.class, wideBytes, 1, "pair.low"));
+        assertEquals(wide.pair().high(), BitStruct.readField(InPlaceDecodeTest.Wide.class, wideBytes, 1, "pair.high"));
+    }
+
+    @Test
+    public void enumsAndLazyFields() {
+        assertSame(EnumParamsTest.TestEnum.C, BitStruct.readField(Tagged.class, bs(0x04, 0x05, 0x7f), "check.delta2"));
+        assertEquals(5L, FieldAccessor.of(Tagged.class, "check.delta1").getLong(bs(0x04, 0x05, 0x7f)));
+
+        final byte[] bank = bs(0x1e, 0, 0, 2, 0x12, 0, 0, 0, 0xcf, 0, 0, 0);
+        assertEquals((byte) 15, BitStruct.readField(LazyTest.LazyBank.class, bank, "statusReg.date"));
+    }
+
+    @Test
+    public void writesThroughPaths() {
+        final byte[] bytes = bs(0xcf, 0, 0, 0, 0x12, 0, 0, 0, 0x1e, 0, 0, 2);
+        final BitView<NestedOrderingTest.BankLittle> view = BitView.of(NestedOrderingTest.BankLittle.class)
+                .bind(bytes, 0);
+
+        view.setLong("statusReg.date", 7);
+        view.set("currentPowerUpReg.currentState", (byte) 0x21);
+
+        final byte[] encoded = view.decode().encode();
+        assertEquals((byte) 7, BitStruct.readField(NestedOrderingTest.BankLittle.class, encoded, "statusReg.date"));
+        assertEquals((byte) 0x21, view.get("currentPowerUpReg.currentState"));
+        assertEquals((byte) 2, view.get("statusReg.status"));
+        assertEquals((byte) 0xf, view.get("pwrUp0.source"));
+    }
+
+    @Test
+    public void badPaths() {
+        final Class<NestedOrderingTest.BankLittle> bank = NestedOrderingTest.BankLittle.class;
+        assertThrows(RuntimeException.class, () -> FieldAccessor.of(bank, "pwrUp0"));
+        assertThrows(RuntimeException.class, () -> FieldAccessor.of(bank, "pwrUp0.source.bit"));
+        assertThrows(RuntimeException.class, () -> FieldAccessor.of(bank, "pwrUp0.missing"));
+        assertThrows(RuntimeException.class, () -> FieldAccessor.of(bank, "pwrUp0."));
+        assertThrows(RuntimeException.class, () -> BitStruct.readField(bank, new byte[11], "pwrUp0.source"));
+    }
+
+
+
+    public record Tagged(
+            @BitVal(first = 0, len = 8) byte sequence,
+            @BitVal(first = 8, len = 16) EnumParamsTest.SimpleCheck check
+    ) implements BitStruct { }
+
+}
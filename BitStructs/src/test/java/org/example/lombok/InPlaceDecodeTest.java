@@ -0,0 +1,97 @@
+package org.example.lombok;
+
+import org.example.BitDetails;
+import org.example.BitStruct;
+import org.example.BitVal;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.example.Utils.bs;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class InPlaceDecodeTest {
+
+    @Test
+    public void segmentAtOffset() {
+        final byte[] bank = bs(0x1e, 0, 0, 2, 0x12, 0, 0, 0, 0xcf, 0, 0, 0);
+        final MemorySegment segment = MemorySegment.ofArray(padded(bank, 5, 7));
+
+        final NestedOrderingTest.BankBig decoded = BitStruct.decode(NestedOrderingTest.BankBig.class, segment, 5);
+        assertArrayEquals(bank, decoded.encode());
+    }
+
+    @Test
+    public void directBufferAtPosition() {
+        final byte[] bank = bs(0xcf, 0, 0, 0, 0x12, 0, 0, 0, 0x1e, 0, 0, 2);
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(20).put(padded(bank, 3, 5)).position(3);
+
+        final NestedOrderingTest.BankLittle decoded = BitStruct.decode(NestedOrderingTest.BankLittle.class, buffer);
+        assertArrayEquals(bank, decoded.encode());
+        assertEquals(3, buffer.position());
+    }
+
+    @Test
+    public void wideFieldOfOtherOrder() {
+        final byte[] bytes = bs(1, 2, 3, 4);
+        final Wide decoded = BitStruct.decode(Wide.class, MemorySegment.ofArray(padded(bytes, 2, 0)), 2);
+
+        // The 3 byte field is reversed for the big endian pair, which then reads its low 2 bytes.
+        assertEquals(3, decoded.pair.low);
+        assertEquals(2, decoded.pair.high);
+        assertEquals(4, decoded.tail);
+        assertEquals(decoded, BitStruct.decode(Wide.class, bytes));
+    }
+
+    @Test
+    public void unalignedNested() {
+        final byte[] bytes = bs(0x0a, 0xbc, 0xde);
+        final Shifted decoded = BitStruct.decode(Shifted.class, ByteBuffer.wrap(bytes));
+
+        assertEquals((byte) 0xcd, decoded.pair.low);
+        assertEquals((byte) 0xab, decoded.pair.high);
+        assertEquals(0xe, decoded.nibble);
+        assertArrayEquals(bytes, decoded.encode());
+    }
+
+    @Test
+    public void tooSmall() {
+        final MemorySegment segment = MemorySegment.ofArray(new byte[12]);
+        assertThrows(RuntimeException.class, () -> BitStruct.decode(NestedOrderingTest.BankBig.class, segment, 1));
+        assertThrows(RuntimeException.class, () -> BitStruct.decode(Wide.class, ByteBuffer.allocate(3)));
+    }
+
+
+
+    private static byte[] padded(byte[] bytes, int before, int after) {
+        final byte[] result = new byte[before + bytes.length + after];
+        Arrays.fill(result, (byte) 0x5a);
+        System.arraycopy(bytes, 0, result, before, bytes.length);
+        return result;
+    }
+
+
+
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    public record Wide(
+            @BitVal(first = 0, len = 24) Pair pair,
+            @BitVal(first = 24, len = 8) byte tail
+    ) implements BitStruct { }
+
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.BIG)
+    public record Shifted(
+            @BitVal(first = 0, len = 4) byte nibble,
+            @BitVal(first = 4, len = 16) Pair pair
+    ) implements BitStruct { }
+
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.BIG)
+    public record Pair(
+            @BitVal(first = 0, len = 8) byte low,
+            @BitVal(first = 8, len = 8) byte high
+    ) implements BitStruct { }
+
+}
@@ -0,0 +1,123 @@
+package org.example.lombok;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.BitDetails;
+import org.example.BitStruct;
+import org.example.BitVal;
+import org.example.Lazy;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static org.example.Utils.bs;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LazyTest {
+
+    @Test
+    public void decodesOnFirstRead() {
+        final byte[] bytes = bs(0x1e, 0, 0, 2, 0x12, 0, 0, 0, 0xcf, 0, 0, 0);
+        final LazyBank decoded = BitStruct.decode(LazyBank.class, bytes);
+        final NestedOrderingTest.BankBig eager = BitStruct.decode(NestedOrderingTest.BankBig.class, bytes);
+
+        assertFalse(decoded.pwrUp0.isDecoded());
+        assertFalse(decoded.statusReg.isDecoded());
+
+        final NestedOrderingTest.PwrUp0 pwrUp0 = decoded.pwrUp0.get();
+        assertTrue(decoded.pwrUp0.isDecoded());
+        assertFalse(decoded.statusReg.isDecoded());
+        assertSame(pwrUp0, decoded.pwrUp0.get());
+
+        assertArrayEquals(eager.encode(), decoded.encode());
+        assertArrayEquals(bytes, decoded.encode());
+    }
+
+    @Test
+    public void readsTheSourceWhenFirstRead() {
+        final MemorySegment segment = MemorySegment.ofArray(bs(0, 0, 0, 0, 0, 0x12, 0, 0, 0, 0, 0, 0, 0));
+        final LazyBank decoded = BitStruct.decode(LazyBank.class, segment, 1);
+
+        segment.set(JAVA_BYTE, 1, (byte) 0x1e);
+        assertArrayEquals(bs(0x1e, 0, 0, 0), decoded.statusReg.get().encode());
+        assertEquals(0x12, decoded.currentPowerUpReg.currentState());
+    }
+
+    @Test
+    public void builtFromValues() {
+        final byte[] bytes = bs(0x1e, 0, 0, 2, 0x12, 0, 0, 0, 0xcf, 0, 0, 0);
+        final LazyBank decoded = BitStruct.decode(LazyBank.class, bytes);
+
+        final LazyBank built = new LazyBank(
+                Lazy.of(decoded.pwrUp0.get()),
+                decoded.currentPowerUpReg,
+                Lazy.of(decoded.statusReg.get())
+        );
+
+        assertTrue(built.pwrUp0.isDecoded());
+        assertEquals(decoded, built);
+        assertArrayEquals(bytes, built.encode());
+        assertThrows(NullPointerException.class, () -> Lazy.of(null));
+    }
+
+    @Test
+    public void decodeIntoRepointsTheLazyItHolds() {
+        final byte[] first = bs(0x1e, 0, 0, 2, 0x12, 0, 0, 0);
+        final byte[] second = bs(0xcf, 0, 0, 1, 0x34, 0, 0, 0);
+        final MutableLazyBank target = BitStruct.decodeInto(new MutableLazyBank(), first);
+        final Lazy<NestedOrderingTest.PwrUp0> lazy = target.pwrUp0;
+        final NestedOrderingTest.PwrUp0 firstPwrUp0 = lazy.get();
+
+        BitStruct.decodeInto(target, MemorySegment.ofArray(second), 0);
+        assertSame(lazy, target.pwrUp0);
+        assertFalse(lazy.isDecoded());
+        assertNotSame(firstPwrUp0, lazy.get());
+        assertArrayEquals(BitStruct.decode(MutableLazyBank.class, second).pwrUp0.get().encode(), lazy.get().encode());
+        assertArrayEquals(second, target.encode());
+
+        // A lazy that holds a value rather than a source is replaced, not changed.
+        final Lazy<NestedOrderingTest.PwrUp0> built = Lazy.of(firstPwrUp0);
+        target.pwrUp0 = built;
+        BitStruct.decodeInto(target, first);
+        assertNotSame(built, target.pwrUp0);
+        assertSame(firstPwrUp0, built.get());
+        assertArrayEquals(first, target.encode());
+    }
+
+
+
+    @Data
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.BIG)
+    @AllArgsConstructor
+    public static class LazyBank implements BitStruct {
+        @BitVal(first = 0, len = 32)
+        private final Lazy<NestedOrderingTest.PwrUp0> pwrUp0;
+
+        @BitVal(first = 32, len = 32)
+        private final NestedOrderingTest.CurrentPowerUpReg currentPowerUpReg;
+
+        @BitVal(first = 64, len = 32)
+        private final Lazy<NestedOrderingTest.StatusReg> statusReg;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.BIG)
+    public static class MutableLazyBank implements BitStruct {
+        @BitVal(first = 0, len = 32)
+        private Lazy<NestedOrderingTest.PwrUp0> pwrUp0;
+
+        @BitVal(first = 32, len = 32)
+        private int currentState;
+    }
+
+}
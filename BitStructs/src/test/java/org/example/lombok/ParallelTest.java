@@ -0,0 +1,70 @@
+package org.example.lombok;
+
+import org.example.BitStruct;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ParallelTest {
+
+    private static final int COUNT = 10_000;
+
+    private static final int SIZE = 12;
+
+    @Test
+    public void decodeMatchesSequential() {
+        final MemorySegment segment = MemorySegment.ofArray(randomRecords());
+
+        final List<NestedOrderingTest.BankLittle> sequential =
+                BitStruct.decodeAll(NestedOrderingTest.BankLittle.class, segment, 0, COUNT);
+        final List<NestedOrderingTest.BankLittle> parallel =
+                BitStruct.decodeParallel(NestedOrderingTest.BankLittle.class, segment, 0, COUNT);
+
+        assertEquals(COUNT, parallel.size());
+        for (int i = 0; i < COUNT; i++) {
+            assertArrayEquals(sequential.get(i).encode(), parallel.get(i).encode(), "Record " + i);
+        }
+    }
+
+    @Test
+    public void encodeMatchesSequential() {
+        final List<NestedOrderingTest.BankLittle> structs = BitStruct.decodeAll(
+                NestedOrderingTest.BankLittle.class, MemorySegment.ofArray(randomRecords()), 0, COUNT
+        );
+
+        final byte[] sequential = new byte[COUNT * SIZE];
+        for (int i = 0; i < COUNT; i++) structs.get(i).encodeInto(sequential, i * SIZE);
+
+        final MemorySegment parallel = MemorySegment.ofArray(new byte[COUNT * SIZE + 3]);
+        assertEquals(COUNT * SIZE, BitStruct.encodeAllParallel(structs, parallel, 3));
+        assertArrayEquals(sequential, parallel.asSlice(3).toArray(ValueLayout.JAVA_BYTE));
+    }
+
+    @Test
+    public void streamKeepsOrder() {
+        final MemorySegment segment = MemorySegment.ofArray(randomRecords());
+        final List<byte[]> encoded = BitStruct.stream(NestedOrderingTest.BankLittle.class, segment, SIZE, COUNT - 1)
+                .parallel()
+                .map(BitStruct::encode)
+                .toList();
+
+        final List<NestedOrderingTest.BankLittle> expected =
+                BitStruct.decodeAll(NestedOrderingTest.BankLittle.class, segment, SIZE, COUNT - 1);
+        for (int i = 0; i < COUNT - 1; i++) assertArrayEquals(expected.get(i).encode(), encoded.get(i));
+    }
+
+
+
+    private static byte[] randomRecords() {
+        final byte[] bytes = new byte[COUNT * SIZE];
+        new Random(11).nextBytes(bytes);
+        return bytes;
+    }
+
+}
@@ -0,0 +1,116 @@
+package org.example.lombok;
+
+import lombok.AllArgsConstructor;
+import org.example.BitDetails;
+import org.example.BitStruct;
+import org.example.BitVal;
+import org.junit.jupiter.api.Test;
+
+import static org.example.Utils.bs;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WideFieldTest {
+
+    @Test
+    public void unalignedLongBig() {
+        final byte[] bytes = bs(0xdf, 0xed, 0xcb, 0xa9, 0x87, 0x65, 0x43, 0x21, 0x0a);
+        final UnalignedBig decoded = BitStruct.decode(UnalignedBig.class, bytes);
+
+        assertEquals(0xa, decoded.low);
+        assertEquals(0xfedcba9876543210L, decoded.wide);
+        assertEquals(5, decoded.high);
+        assertTrue(decoded.flag);
+
+        assertArrayEquals(bytes, decoded.encode());
+    }
+
+    @Test
+    public void unalignedLongLittle() {
+        final byte[] bytes = bs(0x0a, 0x21, 0x43, 0x65, 0x87, 0xa9, 0xcb, 0xed, 0xdf);
+        final UnalignedLittle decoded = BitStruct.decode(UnalignedLittle.class, bytes);
+
+        assertEquals(0xa, decoded.low);
+        assertEquals(0xfedcba9876543210L, decoded.wide);
+        assertEquals(5, decoded.high);
+        assertTrue(decoded.flag);
+
+        assertArrayEquals(bytes, decoded.encode());
+    }
+
+    @Test
+    public void widerThanLongIsSignFilled() {
+        assertArrayEquals(
+                bs(0xfc, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0x05, 0x00, 0x00),
+                new OverLongLittle(-1L, 5).encode()
+        );
+        assertArrayEquals(
+                bs(0x00, 0x00, 0x05, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xfc),
+                new OverLongBig(-1L, 5).encode()
+        );
+        assertArrayEquals(
+                bs(0x04, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x05, 0x00, 0x00),
+                new OverLongLittle(1L, 5).encode()
+        );
+
+        // Decode keeps the low 64 bits, so the sign fill round trips.
+        final byte[] bytes = bs(0xa8, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0xff, 0x07, 0x00, 0x00);
+        final OverLongLittle decoded = BitStruct.decode(OverLongLittle.class, bytes);
+        assertEquals(-22L, decoded.wide);
+        assertArrayEquals(bytes, decoded.encode());
+    }
+
+
+
+    @AllArgsConstructor
+    public static class UnalignedBig implements BitStruct {
+        @BitVal(first = 0, len = 4)
+        private final byte low;
+
+        @BitVal(first = 4, len = 64)
+        private final long wide;
+
+        @BitVal(first = 68, len = 3)
+        private final byte high;
+
+        @BitVal(first = 71, len = 1)
+        private final boolean flag;
+    }
+
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    @AllArgsConstructor
+    public static class UnalignedLittle implements BitStruct {
+        @BitVal(first = 0, len = 4)
+        private final byte low;
+
+        @BitVal(first = 4, len = 64)
+        private final long wide;
+
+        @BitVal(first = 68, len = 3)
+        private final byte high;
+
+        @BitVal(first = 71, len = 1)
+        private final boolean flag;
+    }
+
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    @AllArgsConstructor
+    public static class OverLongLittle implements BitStruct {
+        @BitVal(first = 2, len = 70)
+        private final long wide;
+
+        @BitVal(first = 72, len = 24)
+        private final int tail;
+    }
+
+    @AllArgsConstructor
+    public static class OverLongBig implements BitStruct {
+        @BitVal(first = 2, len = 70)
+        private final long wide;
+
+        @BitVal(first = 72, len = 24)
+        private final int tail;
+    }
+
+}
@@ -0,0 +1,106 @@
+package org.example.manual;
+
+import org.example.BitDetails;
+import org.example.BitStruct;
+import org.example.BitVal;
+import org.example.lombok.DecodeIntoTest.Reading;
+import org.example.lombok.EnumParamsTest.TestEnum;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class ConstructorOrderTest {
+
+    @Test
+    public void argumentsMatchedByName() {
+        final Mixed mixed = new Mixed(
+                new byte[] {0x9, 0x6}, 0x7a5L, TestEnum.C, (short) 0x1234, 0x0bad_cafe, true,
+                new Reading((byte) 3, (byte) 12), (byte) 0x55, 0x12_3456_789aL, Boolean.TRUE, (short) -2, 0xabc
+        );
+
+        final byte[] bytes = mixed.encode();
+        assertEquals(20, bytes.length);
+        assertEquals((byte) 0xab, bytes[0]);
+        assertEquals((byte) 0x34, bytes[1]);
+        assertEquals((byte) 0xbc, bytes[14]);
+        assertEquals((byte) 0x4a, bytes[15]);
+        assertEquals((byte) 0xc3, bytes[16]);
+        assertEquals((byte) 0x69, bytes[17]);
+
+        final Mixed decoded = BitStruct.decode(Mixed.class, bytes);
+        assertEquals(true, decoded.flag);
+        assertEquals((byte) 0x55, decoded.small);
+        assertEquals((short) 0x1234, decoded.half);
+        assertEquals((short) -2, decoded.other);
+        assertEquals(0x0bad_cafe, decoded.word);
+        assertEquals(0x12_3456_789aL, decoded.wide);
+        assertEquals(0xabc, decoded.boxedWord);
+        assertSame(TestEnum.C, decoded.mode);
+        assertEquals(new Reading((byte) 3, (byte) 12), decoded.reading);
+        assertArrayEquals(new byte[] {0x9, 0x6}, decoded.gains);
+        assertEquals(Boolean.TRUE, decoded.boxedFlag);
+        assertEquals(0x7a5L, decoded.boxedWide);
+        assertArrayEquals(bytes, decoded.encode());
+    }
+
+
+
+    /** Every kind of argument, with the constructor taking them in a different order than they are declared. */
+    @BitDetails(byteOrdering = BitDetails.ByteOrdering.LITTLE)
+    public static class Mixed implements BitStruct {
+        @BitVal(first = 0, len = 1)
+        private final boolean flag;
+
+        @BitVal(first = 1, len = 7)
+        private final byte small;
+
+        @BitVal(first = 8, len = 16)
+        private final short half;
+
+        @BitVal(first = 24, len = 16)
+        private final short other;
+
+        @BitVal(first = 40, len = 32)
+        private final int word;
+
+        @BitVal(first = 72, len = 40)
+        private final long wide;
+
+        @BitVal(first = 112, len = 12)
+        private final Integer boxedWord;
+
+        @BitVal(first = 124, len = 4)
+        private final TestEnum mode;
+
+        @BitVal(first = 128, len = 8)
+        private final Reading reading;
+
+        @BitVal(first = 136, len = 4, count = 2)
+        private final byte[] gains;
+
+        @BitVal(first = 144, len = 1)
+        private final Boolean boxedFlag;
+
+        @BitVal(first = 145, len = 15)
+        private final Long boxedWide;
+
+        public Mixed(byte[] gains, Long boxedWide, TestEnum mode, short half, int word, boolean flag, Reading reading,
+                     byte small, long wide, Boolean boxedFlag, short other, Integer boxedWord) {
+            this.flag = flag;
+            this.small = small;
+            this.half = half;
+            this.other = other;
+            this.word = word;
+            this.wide = wide;
+            this.boxedWord = boxedWord;
+            this.mode = mode;
+            this.reading = reading;
+            this.gains = gains;
+            this.boxedFlag = boxedFlag;
+            this.boxedWide = boxedWide;
+        }
+    }
+
+}